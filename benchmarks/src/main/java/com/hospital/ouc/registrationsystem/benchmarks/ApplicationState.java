@@ -0,0 +1,60 @@
+package com.hospital.ouc.registrationsystem.benchmarks;
+
+import com.hospital.ouc.registrationsystem.RegistrationSystemApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 每个 JMH fork 启动一次的完整应用上下文（连接 {@link BenchmarkDatabase}），各基准共享。
+ * 关闭集群同步与 SQL 日志，避免日志输出与 NOTIFY 干扰测量；其余配置与生产一致。
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private BenchmarkDatabase database;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        database = BenchmarkDatabase.start();
+        Map<String, Object> props = new HashMap<>();
+        props.put("spring.datasource.url", database.getUrl());
+        props.put("spring.datasource.username", database.getUsername());
+        props.put("spring.datasource.password", database.getPassword());
+        props.put("spring.datasource.hikari.maximum-pool-size", Integer.getInteger("bench.pool-size", 20));
+        props.put("spring.jpa.show-sql", false);
+        props.put("spring.jpa.properties.hibernate.format_sql", false);
+        props.put("server.port", 0);
+        props.put("registration.cluster.enabled", false);
+        props.put("logging.level.root", "WARN");
+        context = new SpringApplicationBuilder(RegistrationSystemApplication.class)
+                .properties(props)
+                .run();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public BenchmarkDatabase database() {
+        return database;
+    }
+}
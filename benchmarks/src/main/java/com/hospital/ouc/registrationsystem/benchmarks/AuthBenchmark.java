@@ -0,0 +1,45 @@
+package com.hospital.ouc.registrationsystem.benchmarks;
+
+import com.hospital.ouc.registrationsystem.domain.service.AuthService;
+import com.hospital.ouc.registrationsystem.web.dto.LoginRequest;
+import com.hospital.ouc.registrationsystem.web.dto.LoginResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 患者登录（AuthService.login）的吞吐量：按用户名查询、密码摘要比对与档案加载。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthBenchmark {
+
+    private AuthService authService;
+    private final LoginRequest request = new LoginRequest("bench1", "123456");
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) {
+        authService = app.bean(AuthService.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public LoginResponse login() {
+        return authService.login(request);
+    }
+}
@@ -0,0 +1,130 @@
+package com.hospital.ouc.registrationsystem.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试使用的数据库。
+ * 默认启动内嵌 PostgreSQL（真实的 PostgreSQL 进程，支持 SKIP LOCKED、pg_trgm 等应用依赖的特性），
+ * 执行应用自带的 db/init.sql 并写入压测数据；
+ * 指定 -Dbench.jdbc.url（以及 bench.jdbc.username / bench.jdbc.password）时改用外部数据库，
+ * 外部库默认不做初始化，加 -Dbench.db.init=true 才会执行 init.sql（会删除并重建全部表）。
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    /** 压测患者数，决定注册基准在一轮迭代内可用的（患者, 号源）组合数 */
+    public static final int PATIENTS = Integer.getInteger("bench.patients", 50_000);
+
+    // 压测排班容量足够大，号源不会在迭代中被占满
+    private static final int SLOT_CAPACITY = 1_000_000;
+
+    private final EmbeddedPostgres embedded;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private BenchmarkDatabase(EmbeddedPostgres embedded, String url, String username, String password) {
+        this.embedded = embedded;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static BenchmarkDatabase start() throws IOException, SQLException {
+        String externalUrl = System.getProperty("bench.jdbc.url");
+        BenchmarkDatabase db;
+        boolean init;
+        if (externalUrl != null && !externalUrl.isBlank()) {
+            db = new BenchmarkDatabase(null, externalUrl,
+                    System.getProperty("bench.jdbc.username", "postgres"),
+                    System.getProperty("bench.jdbc.password", ""));
+            init = Boolean.getBoolean("bench.db.init");
+        } else {
+            EmbeddedPostgres pg = EmbeddedPostgres.builder().start();
+            db = new BenchmarkDatabase(pg, pg.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+            init = true;
+        }
+        if (init) {
+            db.initialize();
+        }
+        return db;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+
+    /**
+     * 建表并写入压测数据：全部医生周一到周五 8 个时段都有排班，另有 PATIENTS 个患者（密码均为 123456）
+     */
+    private void initialize() throws IOException, SQLException {
+        try (Connection conn = connect(); Statement st = conn.createStatement()) {
+            runInitScript(conn);
+            st.execute("INSERT INTO doctor_department_schedule (doctor_profile_id, department_id, weekday, timeslot, max_patients_per_slot) " +
+                    "SELECT d.id, d.department_id, w, t, " + SLOT_CAPACITY + " FROM doctor_profile d " +
+                    "CROSS JOIN generate_series(1, 5) w " +
+                    "CROSS JOIN unnest(ARRAY['AM1','AM2','AM3','AM4','PM1','PM2','PM3','PM4']) t " +
+                    "ON CONFLICT (doctor_profile_id, weekday, timeslot) DO UPDATE SET max_patients_per_slot = EXCLUDED.max_patients_per_slot");
+            st.execute("INSERT INTO app_user (username, password, role) " +
+                    "SELECT 'bench' || g, encode(digest('123456' || 'OucWebDev123', 'sha256'), 'hex'), 'PATIENT' " +
+                    "FROM generate_series(1, " + PATIENTS + ") g");
+            st.execute("INSERT INTO patient_profile (user_id, id_card, name, phone_number, age, gender) " +
+                    "SELECT u.id, '9' || lpad(substr(u.username, 6), 17, '0'), 'Bench ' || substr(u.username, 6), " +
+                    "'19' || lpad(substr(u.username, 6), 9, '0'), 30, CASE WHEN u.id % 2 = 0 THEN 'male' ELSE 'female' END " +
+                    "FROM app_user u WHERE u.username LIKE 'bench%'");
+            st.execute("ANALYZE");
+        }
+    }
+
+    /**
+     * 执行应用自带的 db/init.sql：删除并重建全部表，写入示例数据
+     */
+    public static void runInitScript(Connection conn) throws IOException, SQLException {
+        String schema;
+        try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/db/init.sql")) {
+            if (in == null) {
+                throw new IllegalStateException("db/init.sql not found on classpath");
+            }
+            schema = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute(schema);
+        }
+    }
+
+    /**
+     * 清空挂号相关表并归零已占号数，使每轮迭代从相同的状态开始
+     */
+    public void resetRegistrations() throws SQLException {
+        try (Connection conn = connect(); Statement st = conn.createStatement()) {
+            st.execute("TRUNCATE registration_outbox, registration_idempotency, registration_waitlist, patient_doctor_registration");
+            st.execute("UPDATE doctor_slot_inventory SET booked_patients = 0 WHERE booked_patients <> 0");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+}
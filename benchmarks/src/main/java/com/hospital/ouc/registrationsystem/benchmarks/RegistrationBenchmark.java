@@ -0,0 +1,132 @@
+package com.hospital.ouc.registrationsystem.benchmarks;
+
+import com.hospital.ouc.registrationsystem.domain.service.DoctorAvailabilityIndex;
+import com.hospital.ouc.registrationsystem.domain.service.PatientRegistrationService;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 挂号（PatientRegistrationService.register）在并发下的吞吐量。
+ * hot：所有线程同时争抢同一号源（同一条库存行的条件 UPDATE），该号源的患者用完后才换下一个号源；
+ * spread：相邻请求落在不同号源上，衡量无热点时的吞吐。
+ * 每个请求使用不同的（患者, 号源）组合，不会触发“重复挂号”；每轮迭代开始前清空挂号数据。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+
+    @Param({"hot", "spread"})
+    public String contention;
+
+    /** 可挂号的号源：医生、其可诊疗且属于本科室的疾病、时段 */
+    private record Slot(long doctorProfileId, long diseaseId, String timeslot) {
+    }
+
+    private static final String[] TIMESLOTS = {"AM1", "AM2", "AM3", "AM4", "PM1", "PM2", "PM3", "PM4"};
+
+    // 下周三：在预约窗口内，且压测数据中所有医生周一到周五都有排班
+    private static final int WEEKDAY = 3;
+
+    private PatientRegistrationService registrationService;
+    private BenchmarkDatabase database;
+    private DoctorAvailabilityIndex availabilityIndex;
+    private List<Slot> slots;
+    private long[] patientIds;
+    private LocalDate visitDate;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) throws SQLException {
+        registrationService = app.bean(PatientRegistrationService.class);
+        availabilityIndex = app.bean(DoctorAvailabilityIndex.class);
+        database = app.database();
+        visitDate = LocalDate.now().plusWeeks(1).with(DayOfWeek.of(WEEKDAY));
+        slots = new ArrayList<>();
+        List<Long> patients = new ArrayList<>();
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT dd.doctor_profile_id, dd.disease_id FROM doctor_disease dd " +
+                    "JOIN doctor_profile d ON d.id = dd.doctor_profile_id " +
+                    "JOIN disease dis ON dis.id = dd.disease_id AND dis.department_id = d.department_id " +
+                    "WHERE d.is_active ORDER BY dd.doctor_profile_id, dd.disease_id")) {
+                while (rs.next()) {
+                    for (String timeslot : TIMESLOTS) {
+                        slots.add(new Slot(rs.getLong(1), rs.getLong(2), timeslot));
+                    }
+                }
+            }
+            try (ResultSet rs = st.executeQuery("SELECT p.id FROM patient_profile p JOIN app_user u ON u.id = p.user_id " +
+                    "WHERE u.username LIKE 'bench%' ORDER BY p.id")) {
+                while (rs.next()) {
+                    patients.add(rs.getLong(1));
+                }
+            }
+        }
+        if (slots.isEmpty() || patients.isEmpty()) {
+            throw new IllegalStateException("benchmark data missing: " + slots.size() + " slots, " + patients.size() + " patients");
+        }
+        patientIds = patients.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIteration() throws SQLException {
+        database.resetRegistrations();
+        availabilityIndex.rebuild();
+        sequence.set(0);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public RegistrationResponseDTO register() {
+        long n = sequence.getAndIncrement();
+        int patientCount = patientIds.length;
+        int slotCount = slots.size();
+        if (n >= (long) patientCount * slotCount) {
+            throw new IllegalStateException("（患者, 号源）组合已用完，请增大 -Dbench.patients");
+        }
+        Slot slot;
+        long patientId;
+        if ("hot".equals(contention)) {
+            slot = slots.get((int) (n / patientCount % slotCount));
+            patientId = patientIds[(int) (n % patientCount)];
+        } else {
+            slot = slots.get((int) (n % slotCount));
+            patientId = patientIds[(int) (n / slotCount % patientCount)];
+        }
+        RegistrationRequestDTO req = new RegistrationRequestDTO();
+        req.setPatientProfileId(patientId);
+        req.setDoctorProfileId(slot.doctorProfileId());
+        req.setDiseaseId(slot.diseaseId());
+        req.setWeekday(WEEKDAY);
+        req.setTimeslot(slot.timeslot());
+        req.setVisitDate(visitDate);
+        return registrationService.register(req);
+    }
+}
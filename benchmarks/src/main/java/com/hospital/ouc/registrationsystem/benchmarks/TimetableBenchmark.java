@@ -0,0 +1,61 @@
+package com.hospital.ouc.registrationsystem.benchmarks;
+
+import com.hospital.ouc.registrationsystem.domain.service.PatientScheduleService;
+import com.hospital.ouc.registrationsystem.web.dto.DiseaseTimetableItemDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 疾病排班表（PatientScheduleService.getDiseaseTimetable）的单次耗时：整周与指定星期两种查询。
+ * 选取可诊疗医生最多的疾病，即结果行数最多的情况。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimetableBenchmark {
+
+    private PatientScheduleService scheduleService;
+    private Long diseaseId;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) throws SQLException {
+        scheduleService = app.bean(PatientScheduleService.class);
+        try (Connection conn = app.database().connect(); Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT disease_id FROM doctor_disease GROUP BY disease_id " +
+                     "ORDER BY count(*) DESC, disease_id LIMIT 1")) {
+            if (!rs.next()) {
+                throw new IllegalStateException("benchmark data missing: no doctor_disease rows");
+            }
+            diseaseId = rs.getLong(1);
+        }
+    }
+
+    @Benchmark
+    public List<DiseaseTimetableItemDTO> wholeWeek() {
+        return scheduleService.getDiseaseTimetable(diseaseId, null);
+    }
+
+    @Benchmark
+    public List<DiseaseTimetableItemDTO> singleWeekday() {
+        return scheduleService.getDiseaseTimetable(diseaseId, 3);
+    }
+}
@@ -0,0 +1,65 @@
+package com.hospital.ouc.registrationsystem.benchmarks.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 形如 --key=value 的命令行参数；只写 --key 时值为 true
+ */
+final class CommandLineArgs {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    CommandLineArgs(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("unrecognized argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String v = values.get(key);
+        return v == null ? defaultValue : Integer.parseInt(v.replace("_", ""));
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String v = values.get(key);
+        return v == null ? defaultValue : Double.parseDouble(v);
+    }
+
+    boolean getBoolean(String key) {
+        return Boolean.parseBoolean(values.get(key));
+    }
+
+    /**
+     * 时长：纯数字按秒，也可带 ms / s / m 后缀，如 500ms、30s、5m
+     */
+    Duration getDuration(String key, Duration defaultValue) {
+        String v = values.get(key);
+        if (v == null) {
+            return defaultValue;
+        }
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("s")) {
+            v = v.substring(0, v.length() - 1);
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+}
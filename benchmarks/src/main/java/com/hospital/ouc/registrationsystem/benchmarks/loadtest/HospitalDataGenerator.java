@@ -0,0 +1,329 @@
+package com.hospital.ouc.registrationsystem.benchmarks.loadtest;
+
+import com.hospital.ouc.registrationsystem.benchmarks.BenchmarkDatabase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Random;
+
+/**
+ * 合成医院数据生成器：按规模参数批量写入科室、疾病、医生、排班、患者与历史挂号，用于在本地复现生产量级。
+ * 全部经 COPY FROM STDIN 写入（不逐行 INSERT），主键在生成器内按各表当前最大值顺延分配，写完后同步序列。
+ * 随机数种子固定，同样的参数生成同样的数据。
+ * <p>
+ * 生成的账号：医生 lt_d1…lt_dN、患者 lt_p1…lt_pN，密码均为 123456（与 init.sql 相同的 sha256(明文 + SALT)）。
+ * 历史挂号均为过去日期的 COMPLETED / CANCELLED 记录，不占用号源库存；未来号源由应用启动时按排班滚动生成，
+ * 因此生成后需（重新）启动应用。
+ * <pre>
+ * --jdbc-url=jdbc:postgresql://localhost:5432/registration_system --username=postgres --password=123456
+ * --init                       先执行 db/init.sql（删除并重建全部表）
+ * --departments=30 --diseases-per-department=20 --doctors-per-department=40 --diseases-per-doctor=4
+ * --schedule-density=0.4       每位医生在每个（星期, 时段）出诊的概率
+ * --patients=200000 --registrations=2000000 --history-days=365 --seed=42
+ * </pre>
+ */
+public final class HospitalDataGenerator {
+
+    private static final String SALT = "OucWebDev123"; // 与 AuthService 保持一致
+
+    private static final String[] TIMESLOTS = {"AM1", "AM2", "AM3", "AM4", "PM1", "PM2", "PM3", "PM4"};
+
+    private static final String[] DEPARTMENTS = {
+            "心血管内科", "呼吸内科", "消化内科", "神经内科", "内分泌科", "肾内科", "血液科", "风湿免疫科",
+            "感染科", "普外科", "骨科", "泌尿外科", "神经外科", "心胸外科", "烧伤整形科", "妇科",
+            "产科", "儿科", "眼科", "耳鼻喉科", "口腔科", "皮肤科", "精神心理科", "肿瘤科",
+            "康复医学科", "中医科", "急诊科", "老年病科", "疼痛科", "营养科"};
+
+    private static final String[] DISEASES = {
+            "高血压", "冠心病", "心律失常", "心力衰竭", "慢性支气管炎", "支气管哮喘", "肺炎", "慢性阻塞性肺疾病",
+            "慢性胃炎", "消化性溃疡", "胃食管反流病", "脂肪肝", "偏头痛", "脑梗死", "帕金森病", "癫痫",
+            "糖尿病", "甲状腺功能亢进", "骨质疏松", "慢性肾炎", "肾结石", "贫血", "类风湿关节炎", "痛风",
+            "带状疱疹", "阑尾炎", "胆囊结石", "腰椎间盘突出", "颈椎病", "骨折", "前列腺增生", "白内障",
+            "青光眼", "鼻窦炎", "扁桃体炎", "龋齿", "湿疹", "荨麻疹", "焦虑症", "抑郁症"};
+
+    private static final String[] SURNAMES = {
+            "王", "李", "张", "刘", "陈", "杨", "黄", "赵", "吴", "周", "徐", "孙", "马", "朱", "胡", "郭",
+            "何", "林", "高", "罗", "郑", "梁", "谢", "宋", "唐", "许", "韩", "冯", "邓", "曹"};
+
+    private static final String[] GIVEN_NAMES = {
+            "伟", "芳", "娜", "敏", "静", "丽", "强", "磊", "军", "洋", "勇", "艳", "杰", "娟", "涛", "明",
+            "超", "秀英", "霞", "平", "刚", "桂英", "建华", "晓东", "志强", "海燕", "文博", "思远", "欣怡", "子涵"};
+
+    private static final String[] TITLES = {"主任医师", "副主任医师", "主治医师", "住院医师"};
+
+    private final Connection conn;
+    private final Random random;
+    private final String passwordHash = sha256Hex("123456" + SALT);
+
+    private final int departments;
+    private final int diseasesPerDepartment;
+    private final int doctorsPerDepartment;
+    private final int diseasesPerDoctor;
+    private final double scheduleDensity;
+    private final int patients;
+    private final int registrations;
+    private final int historyDays;
+
+    // 生成过程中的 ID 映射：下标为序号，值为数据库主键
+    private long[] departmentIds;
+    private long[] diseaseIds;
+    private long[] doctorIds;
+    private int[] doctorDepartment;
+    private long[][] doctorDiseases;
+    private int[][] doctorSlots; // 每位医生的出诊 (weekday - 1) * 8 + 时段下标
+    private long[] patientIds;
+
+    private HospitalDataGenerator(Connection conn, CommandLineArgs args) {
+        this.conn = conn;
+        this.random = new Random(args.getInt("seed", 42));
+        this.departments = args.getInt("departments", 30);
+        this.diseasesPerDepartment = args.getInt("diseases-per-department", 20);
+        this.doctorsPerDepartment = args.getInt("doctors-per-department", 40);
+        this.diseasesPerDoctor = Math.min(args.getInt("diseases-per-doctor", 4), diseasesPerDepartment);
+        this.scheduleDensity = args.getDouble("schedule-density", 0.4);
+        this.patients = args.getInt("patients", 200_000);
+        this.registrations = args.getInt("registrations", 2_000_000);
+        this.historyDays = args.getInt("history-days", 365);
+    }
+
+    public static void main(String[] argv) throws Exception {
+        CommandLineArgs args = new CommandLineArgs(argv);
+        String url = args.get("jdbc-url", "jdbc:postgresql://localhost:5432/registration_system");
+        try (Connection conn = DriverManager.getConnection(url,
+                args.get("username", "postgres"), args.get("password", "123456"))) {
+            if (args.getBoolean("init")) {
+                System.out.println("running db/init.sql ...");
+                BenchmarkDatabase.runInitScript(conn);
+            }
+            conn.setAutoCommit(false);
+            new HospitalDataGenerator(conn, args).generate();
+        }
+    }
+
+    private void generate() throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT 1 FROM app_user WHERE username IN ('lt_d1', 'lt_p1')")) {
+            if (rs.next()) {
+                throw new IllegalStateException("已存在 lt_ 前缀的生成数据，请加 --init 重建库后再生成");
+            }
+        }
+        long started = System.currentTimeMillis();
+        step("departments", this::departments);
+        step("diseases", this::diseases);
+        step("doctors", this::doctors);
+        step("doctor_disease", this::doctorDiseases);
+        step("schedules", this::schedules);
+        step("patients", this::patients);
+        step("registrations", this::registrations);
+        try (Statement st = conn.createStatement()) {
+            for (String table : new String[]{"department", "disease", "app_user", "doctor_profile", "doctor_disease",
+                    "doctor_department_schedule", "patient_profile", "patient_doctor_registration"}) {
+                st.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), (SELECT max(id) FROM " + table + "))");
+            }
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE");
+        }
+        System.out.printf("done in %.1f s; restart the application so it builds slot inventory for the new schedules%n",
+                (System.currentTimeMillis() - started) / 1000.0);
+    }
+
+    private interface Step {
+        long run() throws SQLException;
+    }
+
+    // 每张表单独提交，中途失败时已完成的表保留
+    private void step(String name, Step step) throws SQLException {
+        long started = System.currentTimeMillis();
+        long rows = step.run();
+        conn.commit();
+        System.out.printf("%-16s %,12d rows  %6d ms%n", name, rows, System.currentTimeMillis() - started);
+    }
+
+    // ============ 各表 ============
+
+    private long departments() throws SQLException {
+        departmentIds = new long[departments];
+        long id = nextId("department");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "department", "id", "department_name")) {
+            for (int i = 0; i < departments; i++) {
+                departmentIds[i] = id++;
+                copy.row().col(departmentIds[i]).col(numbered(DEPARTMENTS, i));
+            }
+            return copy.rows();
+        }
+    }
+
+    private long diseases() throws SQLException {
+        diseaseIds = new long[departments * diseasesPerDepartment];
+        long id = nextId("disease");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "disease", "id", "name", "code", "description", "department_id")) {
+            for (int i = 0; i < diseaseIds.length; i++) {
+                diseaseIds[i] = id++;
+                String name = numbered(DISEASES, i);
+                copy.row().col(diseaseIds[i]).col(name).col("LT-" + (i + 1)).col(name + "（生成数据）")
+                        .col(departmentIds[i / diseasesPerDepartment]);
+            }
+            return copy.rows();
+        }
+    }
+
+    private long doctors() throws SQLException {
+        int count = departments * doctorsPerDepartment;
+        doctorIds = new long[count];
+        doctorDepartment = new int[count];
+        long[] userIds = new long[count];
+        long userId = nextId("app_user");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "app_user", "id", "username", "password", "role")) {
+            for (int i = 0; i < count; i++) {
+                userIds[i] = userId++;
+                copy.row().col(userIds[i]).col("lt_d" + (i + 1)).col(passwordHash).col("DOCTOR");
+            }
+        }
+        long id = nextId("doctor_profile");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "doctor_profile",
+                "id", "user_id", "doctor_id", "name", "age", "gender", "title", "department_id")) {
+            for (int i = 0; i < count; i++) {
+                doctorIds[i] = id++;
+                doctorDepartment[i] = i / doctorsPerDepartment;
+                copy.row().col(doctorIds[i]).col(userIds[i]).col(String.format("L%06d", i + 1)).col(randomName())
+                        .col(28 + random.nextInt(35)).col(random.nextBoolean() ? "male" : "female")
+                        .col(TITLES[random.nextInt(TITLES.length)]).col(departmentIds[doctorDepartment[i]]);
+            }
+            return copy.rows();
+        }
+    }
+
+    // 每位医生诊疗本科室的若干疾病；按医生序号轮转保证每种疾病至少有一位医生
+    private long doctorDiseases() throws SQLException {
+        doctorDiseases = new long[doctorIds.length][];
+        long id = nextId("doctor_disease");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "doctor_disease", "id", "doctor_profile_id", "disease_id")) {
+            for (int i = 0; i < doctorIds.length; i++) {
+                int base = doctorDepartment[i] * diseasesPerDepartment;
+                int first = (i % doctorsPerDepartment) % diseasesPerDepartment;
+                int[] picked = random.ints(0, diseasesPerDepartment).filter(d -> d != first)
+                        .distinct().limit(diseasesPerDoctor - 1L).toArray();
+                doctorDiseases[i] = new long[picked.length + 1];
+                doctorDiseases[i][0] = diseaseIds[base + first];
+                for (int k = 0; k < picked.length; k++) {
+                    doctorDiseases[i][k + 1] = diseaseIds[base + picked[k]];
+                }
+                for (long diseaseId : doctorDiseases[i]) {
+                    copy.row().col(id++).col(doctorIds[i]).col(diseaseId);
+                }
+            }
+            return copy.rows();
+        }
+    }
+
+    private long schedules() throws SQLException {
+        doctorSlots = new int[doctorIds.length][];
+        long id = nextId("doctor_department_schedule");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "doctor_department_schedule",
+                "id", "doctor_profile_id", "department_id", "weekday", "timeslot", "max_patients_per_slot")) {
+            for (int i = 0; i < doctorIds.length; i++) {
+                int[] slots = random.ints(0, 5 * TIMESLOTS.length).distinct()
+                        .limit(Math.max(1, Math.round(5 * TIMESLOTS.length * scheduleDensity))).sorted().toArray();
+                doctorSlots[i] = slots;
+                for (int slot : slots) {
+                    copy.row().col(id++).col(doctorIds[i]).col(departmentIds[doctorDepartment[i]])
+                            .col(slot / TIMESLOTS.length + 1).col(TIMESLOTS[slot % TIMESLOTS.length])
+                            .col(10 + random.nextInt(21));
+                }
+            }
+            return copy.rows();
+        }
+    }
+
+    private long patients() throws SQLException {
+        patientIds = new long[patients];
+        long[] userIds = new long[patients];
+        long userId = nextId("app_user");
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "app_user", "id", "username", "password", "role", "created_at")) {
+            for (int i = 0; i < patients; i++) {
+                userIds[i] = userId++;
+                copy.row().col(userIds[i]).col("lt_p" + (i + 1)).col(passwordHash).col("PATIENT")
+                        .col(now.minusSeconds(random.nextInt(historyDays * 86_400 + 1)));
+            }
+        }
+        long id = nextId("patient_profile");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "patient_profile",
+                "id", "user_id", "id_card", "name", "phone_number", "age", "gender")) {
+            for (int i = 0; i < patients; i++) {
+                patientIds[i] = id++;
+                copy.row().col(patientIds[i]).col(userIds[i]).col(String.format("7%017d", i + 1)).col(randomName())
+                        .col(String.format("17%09d", i + 1)).col(1 + random.nextInt(90))
+                        .col(random.nextBoolean() ? "male" : "female");
+            }
+            return copy.rows();
+        }
+    }
+
+    /**
+     * 过去 historyDays 天内的历史挂号：医生按热度偏斜（少数医生承担大部分挂号），日期与出诊星期一致
+     */
+    private long registrations() throws SQLException {
+        LocalDate today = LocalDate.now();
+        long id = nextId("patient_doctor_registration");
+        try (PgCopyWriter copy = new PgCopyWriter(conn, "patient_doctor_registration",
+                "id", "patient_profile_id", "doctor_profile_id", "disease_id", "weekday", "timeslot",
+                "registration_time", "status", "visit_date")) {
+            for (int n = 0; n < registrations; n++) {
+                int doctor = (int) (doctorIds.length * Math.pow(random.nextDouble(), 2));
+                int slot = doctorSlots[doctor][random.nextInt(doctorSlots[doctor].length)];
+                int weekday = slot / TIMESLOTS.length + 1;
+                LocalDate visitDate = today.minusDays(1 + random.nextInt(historyDays));
+                visitDate = visitDate.minusDays((visitDate.getDayOfWeek().getValue() - weekday + 7) % 7);
+                LocalDateTime registeredAt = visitDate.atTime(8, 0)
+                        .minusSeconds(random.nextInt(7 * 86_400));
+                copy.row().col(id++).col(patientIds[random.nextInt(patientIds.length)]).col(doctorIds[doctor])
+                        .col(doctorDiseases[doctor][random.nextInt(doctorDiseases[doctor].length)])
+                        .col(weekday).col(TIMESLOTS[slot % TIMESLOTS.length]).col(registeredAt)
+                        .col(random.nextInt(100) < 88 ? "COMPLETED" : "CANCELLED").col(visitDate);
+            }
+            return copy.rows();
+        }
+    }
+
+    // ============ 辅助 ============
+
+    private long nextId(String table) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT coalesce(max(id), 0) + 1 FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // 名称池用完后加序号区分，如 “高血压（2）”
+    private static String numbered(String[] pool, int i) {
+        int round = i / pool.length;
+        return round == 0 ? pool[i] : pool[i % pool.length] + "（" + (round + 1) + "）";
+    }
+
+    private String randomName() {
+        return SURNAMES[random.nextInt(SURNAMES.length)] + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.hospital.ouc.registrationsystem.benchmarks.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 闭环压测驱动：固定数量的虚拟用户对运行中的实例循环回放患者挂号流程，
+ * 每个用户收到上一个响应（加上思考时间）后才发出下一个请求。
+ * <p>
+ * 一次流程：登录 → 科室列表 → 科室疾病 → 疾病排班表 → 任选有号时段挂号 → 按比例取消。
+ * 患者账号取自 {@link HospitalDataGenerator} 生成的 lt_p1…lt_pN。
+ * 结束后按接口输出吞吐量与 p50 / p99 / p999 延迟（HdrHistogram，预热期的样本不计入）。
+ * 闭环模型下服务变慢会同时降低发压速率（协调遗漏），尾延迟应结合吞吐一起看。
+ * <pre>
+ * --base-url=http://localhost:8080 --users=50 --duration=60s --warmup=10s
+ * --patients=200000            从 lt_p1…lt_pN 中随机选择登录账号
+ * --cancel-ratio=0.3           挂号成功后立即取消的比例（同时回收号源，长时间压测号源不会耗尽）
+ * --think-time=0ms             每个请求之间的停顿
+ * --seed=42
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final String[] ENDPOINTS = {"login", "departments", "diseases", "timetable", "register", "cancel"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http;
+    private final String baseUrl;
+    private final int patients;
+    private final double cancelRatio;
+    private final long thinkTimeMillis;
+
+    private final Map<String, Recorder> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+    private final LongAdder flows = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private LoadDriver(CommandLineArgs args) {
+        this.baseUrl = args.get("base-url", "http://localhost:8080").replaceAll("/+$", "");
+        this.patients = args.getInt("patients", 200_000);
+        this.cancelRatio = args.getDouble("cancel-ratio", 0.3);
+        this.thinkTimeMillis = args.getDuration("think-time", Duration.ZERO).toMillis();
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (String endpoint : ENDPOINTS) {
+            // 1 微秒 ~ 1 分钟，3 位有效数字
+            latencies.put(endpoint, new Recorder(TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        CommandLineArgs args = new CommandLineArgs(argv);
+        int users = args.getInt("users", 50);
+        Duration warmup = args.getDuration("warmup", Duration.ofSeconds(10));
+        Duration duration = args.getDuration("duration", Duration.ofSeconds(60));
+        long seed = args.getInt("seed", 42);
+        new LoadDriver(args).run(users, warmup, duration, seed);
+    }
+
+    private void run(int users, Duration warmup, Duration duration, long seed) throws InterruptedException {
+        System.out.printf("%d users against %s, warmup %ds, measure %ds%n",
+                users, baseUrl, warmup.toSeconds(), duration.toSeconds());
+        ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < users; i++) {
+            Random random = new Random(seed + i);
+            pool.execute(() -> {
+                while (running) {
+                    runFlow(random);
+                }
+            });
+        }
+
+        Thread.sleep(warmup.toMillis());
+        // 丢弃预热期样本
+        latencies.values().forEach(Recorder::getIntervalHistogram);
+        errors.values().forEach(LongAdder::reset);
+        flows.reset();
+        long measureStart = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        Map<String, Histogram> measured = new LinkedHashMap<>();
+        latencies.forEach((endpoint, recorder) -> measured.put(endpoint, recorder.getIntervalHistogram()));
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+        long completedFlows = flows.sum();
+
+        running = false;
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+        report(measured, seconds, completedFlows);
+    }
+
+    // ============ 患者流程 ============
+
+    private void runFlow(Random random) {
+        String username = "lt_p" + (1 + random.nextInt(patients));
+        JsonNode login = call("login", post("/api/auth/login",
+                Map.of("username", username, "password", "123456")));
+        if (login == null || !login.hasNonNull("patientId")) {
+            return;
+        }
+        long patientId = login.get("patientId").asLong();
+
+        JsonNode departments = call("departments", get("/api/schedule/departments"));
+        JsonNode department = pick(departments, random);
+        if (department == null) {
+            return;
+        }
+        JsonNode diseases = call("diseases", get("/api/schedule/department/" + department.get("id").asLong() + "/diseases"));
+        JsonNode disease = pick(diseases, random);
+        if (disease == null) {
+            return;
+        }
+        long diseaseId = disease.get("id").asLong();
+        JsonNode timetable = call("timetable", get("/api/schedule/disease/" + diseaseId + "/timetable"));
+        if (timetable == null) {
+            return;
+        }
+        List<JsonNode> open = new ArrayList<>();
+        for (JsonNode item : timetable) {
+            if (item.path("available").asBoolean(false)) {
+                open.add(item);
+            }
+        }
+        if (open.isEmpty()) {
+            flows.increment();
+            return;
+        }
+        JsonNode slot = open.get(random.nextInt(open.size()));
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("patientProfileId", patientId);
+        request.put("doctorProfileId", slot.get("doctorProfileId").asLong());
+        request.put("diseaseId", diseaseId);
+        request.put("weekday", slot.get("weekday").asInt());
+        request.put("timeslot", slot.get("timeslot").asText());
+        request.put("visitDate", slot.get("visitDate").asText());
+        JsonNode registration = call("register", post("/api/registration", request));
+        if (registration != null && random.nextDouble() < cancelRatio) {
+            call("cancel", HttpRequest.newBuilder(uri("/api/registration/" + registration.get("id").asLong()
+                    + "?patientProfileId=" + patientId)).DELETE());
+        }
+        flows.increment();
+    }
+
+    /**
+     * 发送请求并记录延迟；非 2xx 或网络错误计为该接口的错误并返回 null
+     */
+    private JsonNode call(String endpoint, HttpRequest.Builder request) {
+        if (!running) {
+            return null;
+        }
+        long started = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = http.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            latencies.get(endpoint).recordValue(Math.max(1, (System.nanoTime() - started) / 1000));
+            if (response.statusCode() / 100 != 2) {
+                errors.get(endpoint).increment();
+                return null;
+            }
+            byte[] body = response.body();
+            return body.length == 0 ? objectMapper.nullNode() : objectMapper.readTree(body);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception ex) {
+            latencies.get(endpoint).recordValue(Math.max(1, (System.nanoTime() - started) / 1000));
+            errors.get(endpoint).increment();
+            return null;
+        } finally {
+            thinkTime();
+        }
+    }
+
+    private void thinkTime() {
+        if (thinkTimeMillis > 0) {
+            try {
+                Thread.sleep(thinkTimeMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static JsonNode pick(JsonNode array, Random random) {
+        if (array == null || !array.isArray() || array.isEmpty()) {
+            return null;
+        }
+        return array.get(random.nextInt(array.size()));
+    }
+
+    // ============ 报告 ============
+
+    private void report(Map<String, Histogram> measured, double seconds, long completedFlows) {
+        System.out.printf("%n%-12s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "count", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        for (Map.Entry<String, Histogram> e : measured.entrySet()) {
+            Histogram h = e.getValue();
+            System.out.printf("%-12s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    e.getKey(), h.getTotalCount(), errors.get(e.getKey()).sum(), h.getTotalCount() / seconds,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0);
+        }
+        System.out.printf("%nflows: %d in %.1f s (%.1f flows/s)%n", completedFlows, seconds, completedFlows / seconds);
+    }
+}
@@ -0,0 +1,81 @@
+package com.hospital.ouc.registrationsystem.benchmarks.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * COPY ... FROM STDIN（text 格式）的逐行写入器：行在内存中攒满一批后整批发送，不生成中间文件。
+ * 用法：row() 开始一行，依次 col(...)，最后 close() 结束 COPY 并返回行数。
+ */
+final class PgCopyWriter implements AutoCloseable {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private final CopyIn copy;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 1024);
+    private boolean firstColumn = true;
+    private long rows;
+
+    PgCopyWriter(Connection conn, String table, String... columns) throws SQLException {
+        String sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN";
+        this.copy = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+    }
+
+    PgCopyWriter row() throws SQLException {
+        if (rows > 0) {
+            buffer.append('\n');
+            if (buffer.length() >= FLUSH_BYTES) {
+                flush();
+            }
+        }
+        rows++;
+        firstColumn = true;
+        return this;
+    }
+
+    PgCopyWriter col(Object value) {
+        if (!firstColumn) {
+            buffer.append('\t');
+        }
+        firstColumn = false;
+        if (value == null) {
+            buffer.append("\\N");
+            return this;
+        }
+        String s = value.toString();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+        return this;
+    }
+
+    private void flush() throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (rows > 0) {
+            buffer.append('\n');
+        }
+        flush();
+        copy.endCopy();
+    }
+}
@@ -0,0 +1,88 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.Department;
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorProfile;
+import com.hospital.ouc.registrationsystem.domain.entity.PatientDoctorRegistration;
+import com.hospital.ouc.registrationsystem.domain.entity.PatientProfile;
+import com.hospital.ouc.registrationsystem.domain.enums.Gender;
+import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.web.dto.DoctorDTO;
+import com.hospital.ouc.registrationsystem.web.dto.PatientRegistrationInfoDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到 DTO 的转换（convertToDoctorDTO / convertToInfoDTO）的单次耗时与分配量（配合 -prof gc）。
+ * 转换方法不访问依赖的仓库与服务，因此直接以 null 依赖构造服务、使用内存中的实体，无需 Spring 与数据库。
+ * 与被测服务位于同一包，以调用包级可见的转换方法。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    private PatientScheduleService scheduleService;
+    private PatientRegistrationService registrationService;
+    private DoctorProfile doctor;
+    private PatientDoctorRegistration registration;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduleService = new PatientScheduleService(null, null, null, null, null, null, null, null, null, null);
+        registrationService = new PatientRegistrationService(null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null);
+
+        Department department = Department.builder().id(1L).departmentName("消化内科").build();
+        Disease disease = Disease.builder().id(10L).name("慢性胃炎").code("K29.5").department(department).build();
+        doctor = DoctorProfile.builder()
+                .id(100L)
+                .doctorId("D0100")
+                .name("张医生")
+                .age(45)
+                .gender(Gender.female)
+                .title("主任医师")
+                .department(department)
+                .isActive(true)
+                .build();
+        PatientProfile patient = PatientProfile.builder().id(1000L).name("Bench 1").build();
+        registration = PatientDoctorRegistration.builder()
+                .id(10000L)
+                .patientProfile(patient)
+                .doctorProfile(doctor)
+                .disease(disease)
+                .weekday(3)
+                .timeslot(TimeSlot.AM2)
+                .visitDate(LocalDate.of(2025, 1, 8))
+                .registrationTime(LocalDateTime.of(2025, 1, 1, 9, 30))
+                .status(RegistrationStatus.PAID)
+                .build();
+    }
+
+    @Benchmark
+    public DoctorDTO doctorDTO() {
+        return scheduleService.convertToDoctorDTO(doctor);
+    }
+
+    @Benchmark
+    public PatientRegistrationInfoDTO registrationInfoDTO() {
+        return registrationService.convertToInfoDTO(registration);
+    }
+}
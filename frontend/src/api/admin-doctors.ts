@@ -46,6 +46,7 @@ export interface DoctorSearchParams {
   title?: string;
   departmentId?: number;
   deleted?: boolean;
+  keyword?: string; // 模糊检索，按相似度排序
   page?: number;
   size?: number;
   sort?: string;
@@ -62,6 +63,26 @@ export async function searchDoctors(params: DoctorSearchParams) {
   return data;
 }
 
+export interface CursorPage<T> {
+  content: T[];
+  size: number;
+  hasMore: boolean;
+  nextCursor?: string | null;
+  totalElements?: number | null; // 仅首页返回
+  countMode: 'none' | 'estimate' | 'exact';
+}
+
+export interface DoctorCursorParams extends Omit<DoctorSearchParams, 'page'> {
+  cursor?: string;
+  count?: 'none' | 'estimate' | 'exact';
+}
+
+// 游标分页：下一页传入上一页返回的 nextCursor，sort 仅支持 id / name
+export async function scrollDoctors(params: DoctorCursorParams) {
+  const { data } = await http.get<CursorPage<Doctor>>('/admin/doctors/cursor', { params });
+  return data;
+}
+
 export async function fetchDoctor(id: number) {
   const { data } = await http.get<Doctor>(`/admin/doctors/${id}`);
   return data;
@@ -0,0 +1,40 @@
+import http from './http';
+
+export type ExportFormat = 'csv' | 'ndjson';
+
+export interface RegistrationExportParams {
+  from?: string; // 就诊日期 yyyy-MM-dd（含）
+  to?: string;
+  status?: string;
+  doctorProfileId?: number;
+  format?: ExportFormat;
+}
+
+// 后端边查询边写出；这里以 Blob 接收后交给浏览器下载
+function saveBlob(data: Blob, filename: string) {
+  const url = URL.createObjectURL(data);
+  const a = document.createElement('a');
+  a.href = url;
+  a.download = filename;
+  a.click();
+  URL.revokeObjectURL(url);
+}
+
+export async function exportRegistrations(params: RegistrationExportParams = {}) {
+  const format = params.format ?? 'csv';
+  const { data } = await http.get<Blob>('/admin/export/registrations', {
+    params: { ...params, format },
+    responseType: 'blob',
+    timeout: 0,
+  });
+  saveBlob(data, `registrations.${format}`);
+}
+
+export async function exportPatients(includeInactive = false, format: ExportFormat = 'csv') {
+  const { data } = await http.get<Blob>('/admin/export/patients', {
+    params: { includeInactive, format },
+    responseType: 'blob',
+    timeout: 0,
+  });
+  saveBlob(data, `patients.${format}`);
+}
@@ -17,6 +17,7 @@ export interface PatientQuery {
   idCard?: string;
   phoneNumber?: string;
   gender?: 'male' | 'female';
+  keyword?: string; // 模糊检索，按相似度排序
   pageNum?: number;
   pageSize?: number;
 }
@@ -36,6 +37,7 @@ export async function fetchPatients(params: PatientQuery) {
   if (params.idCard && params.idCard.trim().length > 0) cleaned.idCard = params.idCard.trim();
   if (params.phoneNumber && params.phoneNumber.trim().length > 0) cleaned.phoneNumber = params.phoneNumber.trim();
   if (params.gender) cleaned.gender = params.gender;
+  if (params.keyword && params.keyword.trim().length > 0) cleaned.keyword = params.keyword.trim();
   cleaned.pageNum = params.pageNum ?? 1;
   cleaned.pageSize = params.pageSize ?? 10;
 
@@ -43,6 +45,39 @@ export async function fetchPatients(params: PatientQuery) {
   return data;
 }
 
+export interface CursorPage<T> {
+  content: T[];
+  size: number;
+  hasMore: boolean;
+  nextCursor?: string | null;
+  totalElements?: number | null; // 仅首页返回
+  countMode: 'none' | 'estimate' | 'exact';
+}
+
+export interface PatientCursorQuery extends Omit<PatientQuery, 'pageNum' | 'pageSize'> {
+  cursor?: string;
+  size?: number;
+  sort?: 'id,desc' | 'id,asc' | 'name,asc' | 'name,desc';
+  count?: 'none' | 'estimate' | 'exact';
+}
+
+// 游标分页：翻页代价与页码无关，下一页传入上一页返回的 nextCursor
+export async function scrollPatients(params: PatientCursorQuery) {
+  const cleaned: PatientCursorQuery = {};
+  if (params.name && params.name.trim().length > 0) cleaned.name = params.name.trim();
+  if (params.idCard && params.idCard.trim().length > 0) cleaned.idCard = params.idCard.trim();
+  if (params.phoneNumber && params.phoneNumber.trim().length > 0) cleaned.phoneNumber = params.phoneNumber.trim();
+  if (params.gender) cleaned.gender = params.gender;
+  if (params.keyword && params.keyword.trim().length > 0) cleaned.keyword = params.keyword.trim();
+  if (params.cursor) cleaned.cursor = params.cursor;
+  cleaned.size = params.size ?? 20;
+  if (params.sort) cleaned.sort = params.sort;
+  if (params.count) cleaned.count = params.count;
+
+  const { data } = await http.get<CursorPage<Patient>>('/admin/patients/cursor', { params: cleaned });
+  return data;
+}
+
 export async function createPatient(payload: Patient) {
   const { data } = await http.post<Patient>('/admin/patients', payload);
   return data;
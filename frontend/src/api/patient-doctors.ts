@@ -13,7 +13,13 @@ export interface DoctorForPatient {
   diseases?: Disease[];
 }
 
-export async function fetchDoctorsOverview(params?: { departmentId?: number; diseaseId?: number }) {
+export async function fetchDoctorsOverview(params?: {
+  departmentId?: number;
+  diseaseId?: number;
+  // 只看该星期/时段仍有余号的医生，timeslot 支持 AM、PM 或 AM1..PM4
+  weekday?: number;
+  timeslot?: string;
+}) {
   const { data } = await http.get<DoctorForPatient[]>('/schedule/doctors', { params });
   return data;
 }
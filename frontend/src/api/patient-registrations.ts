@@ -13,6 +13,7 @@ export interface PatientRegistrationInfo {
   departmentName?: string;
   weekday: number;
   timeslot: string;
+  visitDate?: string;
   status: string;
   registrationTime?: string;
 }
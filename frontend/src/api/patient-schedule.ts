@@ -38,6 +38,12 @@ export async function fetchDiseasesByDepartment(departmentId: number) {
   return data;
 }
 
+// 疾病输入联想：支持名称片段、疾病代码、全拼或拼音首字母
+export async function searchDiseases(q: string, limit = 10) {
+  const { data } = await http.get<Disease[]>('/schedule/diseases/search', { params: { q, limit } });
+  return data;
+}
+
 export async function fetchDiseaseTimetable(diseaseId: number, weekday?: number) {
   const { data } = await http.get<DiseaseTimetableItem[]>(`/schedule/disease/${diseaseId}/timetable`, {
     params: { weekday },
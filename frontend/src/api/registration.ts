@@ -6,6 +6,7 @@ export interface RegistrationPayload {
   diseaseId: number;
   weekday: number; // 1-5
   timeslot: string; // AM1..PM4
+  visitDate?: string; // yyyy-MM-dd，可选；不传则取最近的对应星期
 }
 
 export interface RegistrationResult {
@@ -15,10 +16,108 @@ export interface RegistrationResult {
   diseaseId: number;
   weekday: number;
   timeslot: string;
+  visitDate?: string;
   status: string;
 }
 
-export async function createRegistration(payload: RegistrationPayload) {
-  const { data } = await http.post<RegistrationResult>('/registration', payload);
+// idempotencyKey：同一次挂号的重试使用同一个键（如 crypto.randomUUID()），服务端不会重复挂号
+// 后端开启放号模式时返回排队凭证（202 / 429），此处轮询凭证直到出结果，调用方拿到的仍是挂号结果
+export async function createRegistration(payload: RegistrationPayload, idempotencyKey?: string) {
+  const res = await http.post<RegistrationResult | RegistrationTicket>('/registration', payload, {
+    headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : undefined,
+    validateStatus: (s) => (s >= 200 && s < 300) || s === 429,
+  });
+  if (res.status === 200 && !('ticketId' in res.data)) {
+    return res.data as RegistrationResult;
+  }
+  return awaitTicket(res.data as RegistrationTicket);
+}
+
+const TICKET_POLL_MS = 500;
+
+// 等待排队凭证完成：成功返回挂号结果；失败时按普通接口错误的形式抛出（error.response.data.message）
+async function awaitTicket(ticket: RegistrationTicket): Promise<RegistrationResult> {
+  let current = ticket;
+  while (current.status === 'QUEUED') {
+    await new Promise((resolve) => setTimeout(resolve, TICKET_POLL_MS));
+    current = await fetchRegistrationTicket(current.ticketId);
+  }
+  if (current.status === 'CONFIRMED' && current.registration) {
+    return current.registration;
+  }
+  const message = current.message || '挂号失败';
+  throw Object.assign(new Error(message), { response: { data: { message } } });
+}
+
+// 自动分配：只指定疾病（可选星期与 AM / PM 偏好），预约最早有号的医生时段
+export interface AutoRegistrationPayload {
+  patientProfileId: number;
+  diseaseId: number;
+  weekday?: number; // 1-5
+  timeslot?: string; // AM / PM 或 AM1..PM4
+}
+
+export async function autoRegister(payload: AutoRegistrationPayload) {
+  const { data } = await http.post<RegistrationResult>('/registration/auto', payload);
+  return data;
+}
+
+// 放号模式下的排队挂号凭证
+export interface RegistrationTicket {
+  ticketId: string;
+  status: 'QUEUED' | 'CONFIRMED' | 'REJECTED';
+  position?: number;
+  patientProfileId: number;
+  doctorProfileId: number;
+  visitDate?: string;
+  timeslot: string;
+  registration?: RegistrationResult;
+  message?: string;
+  createdAt: string;
+  completedAt?: string;
+}
+
+// 排队挂号：排队已满时后端返回 429，同样以凭证（status = REJECTED）返回
+export async function enqueueRegistration(payload: RegistrationPayload) {
+  const { data } = await http.post<RegistrationTicket>('/registration/queue', payload, {
+    validateStatus: (s) => s === 200 || s === 202 || s === 429,
+  });
+  return data;
+}
+
+export async function fetchRegistrationTicket(ticketId: string) {
+  const { data } = await http.get<RegistrationTicket>(`/registration/tickets/${ticketId}`);
+  return data;
+}
+
+// 候补：号源已满时加入，有人取消后自动递补（/ws 推送 waitlist_promoted）
+export interface WaitlistEntry {
+  id: number;
+  status: 'WAITING' | 'PROMOTED' | 'CANCELLED' | 'EXPIRED';
+  position?: number;
+  waitingCount?: number;
+  patientProfileId: number;
+  doctorProfileId: number;
+  doctorName?: string;
+  diseaseId: number;
+  weekday: number;
+  timeslot: string;
+  visitDate: string;
+  registrationId?: number;
+  createdAt?: string;
+  promotedAt?: string;
+}
+
+export async function joinWaitlist(payload: RegistrationPayload) {
+  const { data } = await http.post<WaitlistEntry>('/registration/waitlist', payload);
   return data;
 }
+
+export async function fetchWaitlist(patientProfileId: number) {
+  const { data } = await http.get<WaitlistEntry[]>(`/registration/waitlist/patient/${patientProfileId}`);
+  return data;
+}
+
+export async function leaveWaitlist(waitlistId: number, patientProfileId: number) {
+  await http.delete(`/registration/waitlist/${waitlistId}?patientProfileId=${patientProfileId}`);
+}
@@ -1,4 +1,4 @@
-import { createApp } from 'vue';
+import { createApp, watch } from 'vue';
 import { createPinia } from 'pinia';
 import ElementPlus from 'element-plus';
 import 'element-plus/dist/index.css';
@@ -7,6 +7,7 @@ import App from './App.vue';
 import router from './router';
 import { useAuthStore } from '@/stores/auth';
 import { useDoctorStore } from '@/stores/doctor';
+import type { LoginResult } from '@/api/auth';
 
 const app = createApp(App);
 
@@ -26,10 +27,33 @@ const backendPort = (location.port && location.port !== '5173') ? location.port
 const wsUrl = (location.protocol === 'https:' ? 'wss' : 'ws') + '://' + location.hostname + ':' + backendPort + '/ws';
 const socket = new WebSocket(wsUrl);
 
+// 后端按主题推送：医生订阅 doctor:{工号}，患者订阅 patient:{患者ID}
+function topicsOf(user: LoginResult | null): string[] {
+  if (!user) return [];
+  if (user.role === 'DOCTOR' && user.doctorId) return [`doctor:${user.doctorId}`];
+  if (user.role === 'PATIENT' && user.patientId != null) return [`patient:${user.patientId}`];
+  return [];
+}
+
+function sendSubscription(action: 'subscribe' | 'unsubscribe', topics: string[]) {
+  if (socket.readyState !== WebSocket.OPEN) return;
+  topics.forEach((topic) => socket.send(JSON.stringify({ action, topic })));
+}
+
 socket.addEventListener('open', () => {
   console.info('[ws] connected', wsUrl);
+  sendSubscription('subscribe', topicsOf(authStore.user));
 });
 
+// 登录 / 退出后切换订阅
+watch(
+  () => authStore.user,
+  (user, prev) => {
+    sendSubscription('unsubscribe', topicsOf(prev ?? null));
+    sendSubscription('subscribe', topicsOf(user));
+  },
+);
+
 socket.addEventListener('message', (event) => {
   try {
     const data = JSON.parse(event.data);
@@ -0,0 +1,14 @@
+package com.hospital.ouc.registrationsystem.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启用 Spring Cache。
+ * 缓存实现为 Caffeine，缓存名、容量与过期时间见 application.yml 中的 spring.cache；
+ * 开启 recordStats 后命中/未命中等统计由 Actuator 以 cache.gets、cache.puts、cache.evictions 指标暴露。
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,59 @@
+package com.hospital.ouc.registrationsystem.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate 二级缓存与查询缓存（JCache，由 Caffeine 实现）。
+ * 缓存的实体：Department、Disease、DoctorProfile、DoctorDisease；
+ * AppUser（账号状态、用户名、密码）有多处写入且需在各节点立即生效，不进入二级缓存；
+ * 各区域按 {@link SecondLevelCacheProperties} 创建，独立于 Spring Cache 的目录缓存。
+ * 命中率等统计由 hibernate-micrometer 以 hibernate.second.level.cache.* 指标暴露（需开启 generate_statistics）。
+ */
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    // 查询缓存依赖的表更新时间戳区域：不能早于查询结果过期，因此不设过期时间
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        for (Map.Entry<String, SecondLevelCacheProperties.Region> e : properties.getRegions().entrySet()) {
+            createRegion(cacheManager, e.getKey(), e.getValue());
+        }
+        if (cacheManager.getCache(UPDATE_TIMESTAMPS_REGION) == null) {
+            SecondLevelCacheProperties.Region timestamps = new SecondLevelCacheProperties.Region();
+            timestamps.setMaxSize(10_000);
+            createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, timestamps);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return props -> props.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, SecondLevelCacheProperties.Region region) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        config.setMaximumSize(OptionalLong.of(region.getMaxSize()));
+        if (region.getTtl() != null) {
+            config.setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()));
+        }
+        config.setStatisticsEnabled(true);
+        cacheManager.createCache(name, config);
+    }
+}
@@ -0,0 +1,32 @@
+package com.hospital.ouc.registrationsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate 二级缓存各区域的容量与过期时间，对应 application.yml 中的 registration.second-level-cache。
+ * 区域名与实体上 @Cache(region = ...) 及查询提示中的 org.hibernate.cacheRegion 一致。
+ */
+@Data
+@ConfigurationProperties(prefix = "registration.second-level-cache")
+public class SecondLevelCacheProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    public static class Region {
+        /**
+         * 最大条目数
+         */
+        private long maxSize = 1000;
+
+        /**
+         * 写入后过期时间；为空表示不过期
+         */
+        private Duration ttl;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hospital.ouc.registrationsystem.config;
+
+import com.hospital.ouc.registrationsystem.domain.service.SqlProfiler;
+import com.hospital.ouc.registrationsystem.web.SqlProfilingInterceptor;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * 按请求的 SQL 剖析（取代 show-sql 的全量 stdout 输出）：
+ * 以 datasource-proxy 包装数据源，把每条语句交给 {@link SqlProfiler}；拦截器为请求标记控制器方法。
+ * 默认只监听语句执行；registration.sql-profiler.count-rows=true 时再代理 ResultSet 并监听方法调用以统计 SELECT 行数。
+ * 关闭：registration.sql-profiler.enabled=false（数据源不再包装，无额外开销）。
+ */
+@Configuration
+@ConditionalOnProperty(name = "registration.sql-profiler.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilerConfig implements WebMvcConfigurer {
+
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfilerConfig(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    // BeanPostProcessor 需为 static，剖析器在包装数据源时才取出，避免其过早初始化
+    @Bean
+    static BeanPostProcessor sqlProfilingDataSource(ObjectProvider<SqlProfiler> sqlProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    SqlProfiler profiler = sqlProfiler.getObject();
+                    ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                            .name("sql-profiler")
+                            .listener(profiler);
+                    if (profiler.isCountRows()) {
+                        builder.methodListener(profiler).proxyResultSet();
+                    }
+                    return builder.build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlProfilingInterceptor(sqlProfiler));
+    }
+}
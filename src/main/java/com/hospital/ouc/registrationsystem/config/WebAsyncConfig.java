@@ -0,0 +1,30 @@
+package com.hospital.ouc.registrationsystem.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC 异步请求配置（目前用于数据导出的 StreamingResponseBody）。
+ * 响应体在独立的虚拟线程上写出，容器请求线程在控制器返回后即释放，长时间导出不会占用常规请求线程；
+ * 超时时间按导出的最长耗时设置，默认值（容器的 30 秒）会截断大文件。
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final long timeoutMillis;
+
+    public WebAsyncConfig(@Value("${registration.export.timeout-ms:3600000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads(true);
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+}
@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 科室表实体，对应数据库表 department。
@@ -13,6 +15,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.department")
 @Table(name = "department")
 public class Department {
     /**
@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 疾病实体，对应数据库表 disease。
@@ -13,6 +15,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.disease")
 @Table(name = "disease")
 public class Disease {
     /**
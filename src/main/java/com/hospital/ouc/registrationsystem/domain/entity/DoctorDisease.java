@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 医生-疾病关联实体，对应数据库表 doctor_disease。
@@ -13,6 +15,7 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.doctorDisease")
 @Table(name = "doctor_disease",
        uniqueConstraints = @UniqueConstraint(columnNames = {"doctor_profile_id", "disease_id"}))
 public class DoctorDisease {
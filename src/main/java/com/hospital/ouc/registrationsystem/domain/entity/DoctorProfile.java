@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.hospital.ouc.registrationsystem.domain.enums.Gender;
 
 /**
@@ -15,6 +17,7 @@ import com.hospital.ouc.registrationsystem.domain.enums.Gender;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.doctorProfile")
 @Table(name = "doctor_profile")
 public class DoctorProfile {
     /**
@@ -0,0 +1,80 @@
+package com.hospital.ouc.registrationsystem.domain.entity;
+
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * 号源库存实体，对应数据库表 doctor_slot_inventory。
+ * 按日历日期展开医生排班：每位医生、每个日期、每个时间槽一行，
+ * 由 doctor_department_schedule 滚动生成未来 N 周的数据。
+ * 对 (doctor_profile_id, slot_date, timeslot) 建立唯一约束。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(
+        name = "doctor_slot_inventory",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_inventory_doctor_date_timeslot", columnNames = {"doctor_profile_id", "slot_date", "timeslot"})
+        }
+)
+public class DoctorSlotInventory {
+    /**
+     * 主键ID（自增）
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 医生档案（非空），多对一关联 doctor_profile
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "doctor_profile_id", nullable = false)
+    private DoctorProfile doctorProfile;
+
+    /**
+     * 排班所属科室，多对一关联 department
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "department_id")
+    private Department department;
+
+    /**
+     * 就诊日期（非空）
+     */
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    /**
+     * 星期（非空），范围 1-5，与 slot_date 对应，便于按星期查询
+     */
+    @Column(nullable = false)
+    private Integer weekday;
+
+    /**
+     * 时间槽（非空），AM1..AM4、PM1..PM4
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 4)
+    private TimeSlot timeslot;
+
+    /**
+     * 该时段最大可挂号数，生成时取自排班的 max_patients_per_slot
+     */
+    @Column(name = "max_patients", nullable = false)
+    private Integer maxPatients;
+
+    /**
+     * 已占用号源数（计数器），由数据库默认值 0 初始化。
+     * 仅允许通过仓库中的条件 UPDATE 增减，实体保存时不写回，避免覆盖并发占号结果。
+     */
+    @Column(name = "booked_patients", insertable = false, updatable = false)
+    private Integer bookedPatients;
+}
@@ -5,6 +5,7 @@ import lombok.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
 import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
@@ -64,6 +65,19 @@ public class PatientDoctorRegistration {
     @Column(nullable = false, length = 4)
     private TimeSlot timeslot; // AM1..AM4, PM1..PM4
 
+    /**
+     * 就诊日期（可空：旧数据仅按星期挂号，没有具体日期）
+     */
+    @Column(name = "visit_date")
+    private LocalDate visitDate;
+
+    /**
+     * 占用的号源库存行（可空：旧数据未关联库存），多对一关联 doctor_slot_inventory
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "slot_inventory_id")
+    private DoctorSlotInventory slotInventory;
+
     /**
      * 挂号时间（非空，默认 NOW()），应用侧只读
      */
@@ -0,0 +1,45 @@
+package com.hospital.ouc.registrationsystem.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 挂号幂等键，对应数据库表 registration_idempotency。
+ * 客户端通过 Idempotency-Key 请求头提交；键与挂号记录在同一事务内写入，
+ * 重试时直接返回原挂号结果。超过保留期的键由定时任务清理。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "registration_idempotency")
+public class RegistrationIdempotency {
+    /**
+     * 客户端提交的幂等键（主键）
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    /**
+     * 提交该键的患者档案ID（非空），防止他人用同一个键读取结果
+     */
+    @Column(name = "patient_profile_id", nullable = false)
+    private Long patientProfileId;
+
+    /**
+     * 对应的挂号记录ID，与键在同一事务内写入
+     */
+    @Column(name = "registration_id")
+    private Long registrationId;
+
+    /**
+     * 创建时间，由数据库默认值 NOW() 生成
+     */
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,63 @@
+package com.hospital.ouc.registrationsystem.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 挂号事件发件箱，对应数据库表 registration_outbox。
+ * 挂号 / 取消在同一事务内写入一行，由后台中继批量读取并推送给订阅者；
+ * 事务回滚时事件随之消失，不会推送从未发生的变更。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "registration_outbox")
+public class RegistrationOutbox {
+    /**
+     * 主键ID（自增），同时决定中继的投递顺序
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 事件类型（非空），如 appointment_booked、appointment_cancelled
+     */
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    /**
+     * 关联的挂号记录ID（非空）
+     */
+    @Column(name = "registration_id", nullable = false)
+    private Long registrationId;
+
+    /**
+     * 推送主题（非空），多个主题以逗号分隔，如 doctor:00000001,patient:5
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String topics;
+
+    /**
+     * 事件内容（非空），JSON 文本
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    /**
+     * 写入时间，由数据库默认值 NOW() 生成
+     */
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 投递时间，为空表示尚未投递
+     */
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+}
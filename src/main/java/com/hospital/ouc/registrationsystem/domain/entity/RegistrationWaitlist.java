@@ -0,0 +1,82 @@
+package com.hospital.ouc.registrationsystem.domain.entity;
+
+import com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 候补记录实体，对应数据库表 registration_waitlist。
+ * 号源已满时患者加入对应号源行（医生 + 就诊日期 + 时间段）的候补队列，
+ * 有人取消挂号时由队首自动递补。同一患者在同一号源上只能有一条 WAITING 记录。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "registration_waitlist")
+public class RegistrationWaitlist {
+    /**
+     * 主键ID（自增），同时决定候补顺序
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 患者档案（非空），多对一关联 patient_profile
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "patient_profile_id", nullable = false)
+    private PatientProfile patientProfile;
+
+    /**
+     * 医生档案（非空），多对一关联 doctor_profile
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "doctor_profile_id", nullable = false)
+    private DoctorProfile doctorProfile;
+
+    /**
+     * 疾病（非空），递补挂号时使用
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "disease_id", nullable = false)
+    private Disease disease;
+
+    /**
+     * 候补的号源行（非空），多对一关联 doctor_slot_inventory
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "slot_inventory_id", nullable = false)
+    private DoctorSlotInventory slotInventory;
+
+    /**
+     * 候补状态（非空）
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WaitlistStatus status;
+
+    /**
+     * 递补成功后生成的挂号记录
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "registration_id")
+    private PatientDoctorRegistration registration;
+
+    /**
+     * 加入候补时间，由数据库默认值 NOW() 生成
+     */
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 递补时间
+     */
+    @Column(name = "promoted_at")
+    private LocalDateTime promotedAt;
+}
@@ -0,0 +1,23 @@
+package com.hospital.ouc.registrationsystem.domain.enums;
+
+/**
+ * 游标分页的总数统计方式。
+ * NONE：不统计；ESTIMATE：取查询计划的估算行数，不扫描数据；EXACT：执行 COUNT，代价随结果集增长。
+ */
+public enum CountMode {
+    NONE, ESTIMATE, EXACT;
+
+    /**
+     * 将String转换为CountMode枚举（兼容大小写），为空时默认估算
+     */
+    public static CountMode fromString(String mode) {
+        if (mode == null || mode.isBlank()) {
+            return ESTIMATE;
+        }
+        try {
+            return CountMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的统计方式：" + mode + "，仅支持none/estimate/exact");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.hospital.ouc.registrationsystem.domain.enums;
+
+/**
+ * 数据导出格式：CSV（UTF-8 带 BOM，便于 Excel 直接打开）或 NDJSON（每行一个 JSON 对象）。
+ */
+public enum ExportFormat {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 将String转换为ExportFormat枚举（兼容大小写），为空时默认 CSV
+     */
+    public static ExportFormat fromString(String format) {
+        if (format == null || format.isBlank()) {
+            return CSV;
+        }
+        try {
+            return ExportFormat.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的导出格式：" + format + "，仅支持csv/ndjson");
+        }
+    }
+}
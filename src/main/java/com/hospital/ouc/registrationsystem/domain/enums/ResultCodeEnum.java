@@ -10,6 +10,10 @@ public enum ResultCodeEnum {
     SCHEDULE_NOT_FOUND(404, "排班记录不存在"),
     DOCTOR_NOT_FOUND(404, "医生不存在"),
     DEPARTMENT_NOT_FOUND(404, "科室不存在"),
+    SLOT_FULL(409, "该时段号源已满"),
+    SLOT_NOT_SCHEDULED(409, "该医生在所选时段无排班"),
+    DISEASE_NOT_SUPPORTED(400, "该医生不支持此疾病"),
+    DUPLICATE_REGISTRATION(409, "您已预约该时段，请勿重复挂号"),
     SYSTEM_ERROR(500, "系统异常");
 
     private final Integer code;
@@ -1,12 +1,28 @@
 package com.hospital.ouc.registrationsystem.domain.enums;
 
+import java.time.LocalTime;
+
 /**
  * 时间槽枚举，对应数据库 time_slot。
- * 取值：AM1, AM2, AM3, AM4, PM1, PM2, PM3, PM4。
+ * 取值：AM1, AM2, AM3, AM4, PM1, PM2, PM3, PM4，每个时段 1 小时（上午 8:00 起，下午 14:00 起）。
  */
 public enum TimeSlot {
-    AM1, AM2, AM3, AM4,
-    PM1, PM2, PM3, PM4;
+    AM1(8), AM2(9), AM3(10), AM4(11),
+    PM1(14), PM2(15), PM3(16), PM4(17);
+
+    private final LocalTime start;
+
+    TimeSlot(int startHour) {
+        this.start = LocalTime.of(startHour, 0);
+    }
+
+    /**
+     * 时段开始时间
+     */
+    public LocalTime getStart() {
+        return start;
+    }
+
     /**
      * 将String转换为TimeSlot枚举（兼容大小写）
      */
@@ -0,0 +1,12 @@
+package com.hospital.ouc.registrationsystem.domain.enums;
+
+/**
+ * 候补状态枚举，用于 registration_waitlist.status 字段。
+ * WAITING：候补中；PROMOTED：已递补为正式挂号；CANCELLED：患者主动退出；EXPIRED：就诊日期已过仍未递补。
+ */
+public enum WaitlistStatus {
+    WAITING,
+    PROMOTED,
+    CANCELLED,
+    EXPIRED
+}
@@ -0,0 +1,19 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+/**
+ * 科室号源占用投影：统计窗口内某科室全部号源行的容量、已占号数与已满时段数。
+ * 由 {@link DoctorSlotInventoryRepository#summarizeByDepartment} 返回，供号源饱和度指标使用。
+ */
+public interface DepartmentSlotFillView {
+
+    Long getDepartmentId();
+
+    String getDepartmentName();
+
+    Long getMaxPatients();
+
+    Long getBookedPatients();
+
+    // 已满（已占号数达到容量）的号源行数
+    Long getSaturatedSlots();
+}
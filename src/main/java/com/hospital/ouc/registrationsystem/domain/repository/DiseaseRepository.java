@@ -2,13 +2,24 @@ package com.hospital.ouc.registrationsystem.domain.repository;
 
 import com.hospital.ouc.registrationsystem.domain.entity.Disease;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface DiseaseRepository extends JpaRepository<Disease, Long> {
     // 根据科室ID查找疾病
     List<Disease> findByDepartmentId(Long departmentId);
 
+    // 批量查询多个科室的疾病（同时取回所属科室），供科室列表一次性组装，避免逐科室查询
+    @Query("select d from Disease d join fetch d.department dep where dep.id in :departmentIds order by dep.id, d.id")
+    List<Disease> findByDepartmentIdIn(@Param("departmentIds") Collection<Long> departmentIds);
+
+    // 全部疾病（同时取回所属科室），用于构建内存检索索引
+    @Query("select d from Disease d join fetch d.department order by d.id")
+    List<Disease> findAllWithDepartment();
+
     // 根据疾病名称模糊查询
     List<Disease> findByNameContaining(String name);
 
@@ -2,8 +2,12 @@ package com.hospital.ouc.registrationsystem.domain.repository;
 
 import com.hospital.ouc.registrationsystem.domain.entity.DoctorDepartmentSchedule;
 import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +20,8 @@ public interface DoctorDepartmentScheduleRepository extends JpaRepository<Doctor
     // 根据医生ID查找排班
     List<DoctorDepartmentSchedule> findByDoctorProfileId(Long doctorId);
 
-    // 根据科室ID查找排班
+    // 根据科室ID查找排班；医生及其账号、科室随同一条查询取回（管理端直接序列化排班实体）
+    @EntityGraph(attributePaths = {"doctorProfile", "doctorProfile.user", "doctorProfile.department", "department"})
     List<DoctorDepartmentSchedule> findByDepartmentId(Long departmentId);
 
     // 根据医生ID和星期查找排班
@@ -37,6 +42,35 @@ public interface DoctorDepartmentScheduleRepository extends JpaRepository<Doctor
             TimeSlot timeslot
     );
 
+    /**
+     * 一次查询返回某疾病在 [fromDate, toDate] 内的全部可挂号时段：
+     * 能诊疗该疾病的医生 × 疾病所属科室的排班 × 对应日期的号源库存。
+     * doctorProfileId / weekday / timeslot 为空时不过滤，SQL 条数与医生数量无关。
+     */
+    @Query("select i.id as inventoryId, d.id as doctorProfileId, d.doctorId as doctorId, " +
+           "d.name as doctorName, d.title as doctorTitle, dep.departmentName as departmentName, " +
+           "s.weekday as weekday, s.timeslot as timeslot, i.slotDate as slotDate, " +
+           "coalesce(i.maxPatients, s.maxPatientsPerSlot, 2) as maxPatients, " +
+           "coalesce(i.bookedPatients, 0) as bookedPatients " +
+           "from DoctorDepartmentSchedule s " +
+           "join s.doctorProfile d " +
+           "join s.department dep " +
+           "left join DoctorSlotInventory i on i.doctorProfile = d and i.weekday = s.weekday " +
+           "and i.timeslot = s.timeslot and i.slotDate between :fromDate and :toDate " +
+           "where dep.id = :departmentId " +
+           "and d.id in (select dd.doctorProfile.id from DoctorDisease dd where dd.disease.id = :diseaseId) " +
+           "and (:doctorProfileId is null or d.id = :doctorProfileId) " +
+           "and (:weekday is null or s.weekday = :weekday) " +
+           "and (:timeslot is null or s.timeslot = :timeslot) " +
+           "order by s.weekday, s.timeslot, d.id")
+    List<SlotAvailabilityView> findSlotAvailability(@Param("diseaseId") Long diseaseId,
+                                                    @Param("departmentId") Long departmentId,
+                                                    @Param("doctorProfileId") Long doctorProfileId,
+                                                    @Param("weekday") Integer weekday,
+                                                    @Param("timeslot") TimeSlot timeslot,
+                                                    @Param("fromDate") LocalDate fromDate,
+                                                    @Param("toDate") LocalDate toDate);
+
     void deleteByDepartmentIdAndDoctorProfileId(Long departmentId, Long doctorProfileId);
     void deleteByDepartmentId(Long departmentId);
 }
@@ -1,20 +1,41 @@
 package com.hospital.ouc.registrationsystem.domain.repository;
 
 import com.hospital.ouc.registrationsystem.domain.entity.DoctorDisease;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface DoctorDiseaseRepository extends JpaRepository<DoctorDisease, Long> {
-    // 根据疾病ID找可以治疗该疾病的医生
+    // 根据疾病ID找可以治疗该疾病的医生（医生及其账号、科室随同一条查询取回）
+    @EntityGraph(attributePaths = {"doctorProfile", "doctorProfile.user", "doctorProfile.department", "disease"})
     List<DoctorDisease> findByDiseaseId(Long diseaseId);
 
     // 根据医生档案ID找其可治疗的疾病
     List<DoctorDisease> findByDoctorProfileId(Long doctorProfileId);
 
+    // 批量查询一批医生的疾病关联（含疾病与所属科室），用于列表页一次性组装
+    @Query("select dd.doctorProfile.id as doctorProfileId, d.id as diseaseId, d.name as diseaseName, " +
+           "d.code as diseaseCode, d.description as diseaseDescription, " +
+           "dep.id as departmentId, dep.departmentName as departmentName " +
+           "from DoctorDisease dd join dd.disease d join d.department dep " +
+           "where dd.doctorProfile.id in :doctorProfileIds " +
+           "order by dd.id")
+    List<DoctorDiseaseView> findViewsByDoctorProfileIdIn(@Param("doctorProfileIds") Collection<Long> doctorProfileIds);
+
     // 删除某个医生的全部疾病关联（用于 admin 侧重建关联）
     void deleteByDoctorProfileId(Long doctorProfileId);
 
-    // 检查医生是否能够治疗某种疾病
+    // 检查医生是否能够治疗某种疾病（挂号校验失败时调用；查询缓存，doctor_disease 变更时自动失效）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.doctorDisease")
+    })
     boolean existsByDoctorProfileIdAndDiseaseId(Long doctorProfileId, Long diseaseId);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+/**
+ * 医生-疾病关联投影：一行即一条关联，附带疾病与其所属科室的展示字段。
+ * 由 {@link DoctorDiseaseRepository#findViewsByDoctorProfileIdIn} 按一批医生一次取回，
+ * 不实例化 DoctorDisease / DoctorProfile 实体，从而不会触发其 EAGER 关联的逐行加载。
+ */
+public interface DoctorDiseaseView {
+
+    Long getDoctorProfileId();
+
+    Long getDiseaseId();
+
+    String getDiseaseName();
+
+    String getDiseaseCode();
+
+    String getDiseaseDescription();
+
+    Long getDepartmentId();
+
+    String getDepartmentName();
+}
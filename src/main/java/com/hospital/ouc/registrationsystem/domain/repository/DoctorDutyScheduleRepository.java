@@ -20,17 +20,18 @@ public interface DoctorDutyScheduleRepository extends JpaRepository<DoctorDutySc
     // 根据科室ID批量删除
     void deleteByDepartmentId(Long departmentId);
 
-    // 使用 JOIN FETCH 预先加载关联实体，避免在序列化时触发懒加载异常或返回空
-    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile")
+    // 使用 JOIN FETCH 预先加载关联实体，避免在序列化时触发懒加载异常或返回空；
+    // 医生的账号（非懒加载）一并取回，否则每位值班医生各多一条查询
+    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile dp LEFT JOIN FETCH dp.user")
     List<DoctorDutySchedule> findAllWithJoins();
 
-    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile WHERE d.department.id = :deptId")
+    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile dp LEFT JOIN FETCH dp.user WHERE d.department.id = :deptId")
     List<DoctorDutySchedule> findByDepartmentIdWithJoins(@Param("deptId") Long deptId);
 
-    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile WHERE d.doctorProfile.id = :doctorId AND (d.weekendType = 6 OR d.weekendType = 7)")
+    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile dp LEFT JOIN FETCH dp.user WHERE d.doctorProfile.id = :doctorId AND (d.weekendType = 6 OR d.weekendType = 7)")
     List<DoctorDutySchedule> findByDoctorProfileIdWithJoins(@Param("doctorId") Long doctorId);
 
-    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile "
+    @Query("SELECT d FROM DoctorDutySchedule d LEFT JOIN FETCH d.department LEFT JOIN FETCH d.doctorProfile dp LEFT JOIN FETCH dp.user "
             + "WHERE (:deptId IS NULL OR d.department.id = :deptId) "
             + "AND (:weekendType IS NULL OR d.weekendType = :weekendType) "
             + "AND (:dutyTimeslot IS NULL OR d.dutyTimeslot = :dutyTimeslot)")
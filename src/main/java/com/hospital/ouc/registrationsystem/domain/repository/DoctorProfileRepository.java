@@ -1,6 +1,10 @@
 package com.hospital.ouc.registrationsystem.domain.repository;
 
 import com.hospital.ouc.registrationsystem.domain.entity.DoctorProfile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
@@ -18,9 +22,15 @@ public interface DoctorProfileRepository extends JpaRepository<DoctorProfile, Lo
      */
     Optional<DoctorProfile> findByDoctorId(String doctorId);
 
-    // 查找所有医生（不区分 is_active 状态）—— admin 场景
+    // 查找所有医生（不区分 is_active 状态）—— admin 场景；账号与科室随同一条查询取回
+    @EntityGraph(attributePaths = {"user", "department"})
     List<DoctorProfile> findAll();
 
+    // admin 分页检索；账号与科室随分页查询一并取回，避免逐行加载
+    @Override
+    @EntityGraph(attributePaths = {"user", "department"})
+    Page<DoctorProfile> findAll(Specification<DoctorProfile> spec, Pageable pageable);
+
     // 按 isActive 查询医生
     List<DoctorProfile> findByIsActive(boolean isActive);
 
@@ -28,9 +38,11 @@ public interface DoctorProfileRepository extends JpaRepository<DoctorProfile, Lo
     List<DoctorProfile> findByDepartmentId(Long departmentId);
 
     // 查找所有有效的医生
+    @EntityGraph(attributePaths = {"user", "department"})
     List<DoctorProfile> findByIsActiveTrue();
 
     // 根据科室ID查找有效的医生
+    @EntityGraph(attributePaths = {"user", "department"})
     List<DoctorProfile> findByDepartmentIdAndIsActiveTrue(Long departmentId);
 
     // 根据科室ID和激活状态查找医生（兼容旧逻辑）
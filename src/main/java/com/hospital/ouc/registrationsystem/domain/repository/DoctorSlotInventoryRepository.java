@@ -0,0 +1,148 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorSlotInventory;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DoctorSlotInventoryRepository extends JpaRepository<DoctorSlotInventory, Long> {
+
+    // 根据医生、日期、时间段定位唯一的号源行
+    Optional<DoctorSlotInventory> findByDoctorProfileIdAndSlotDateAndTimeslot(Long doctorProfileId,
+                                                                              LocalDate slotDate,
+                                                                              TimeSlot timeslot);
+
+    // 可用性索引构建：日期区间内的全部号源行
+    List<DoctorSlotInventory> findBySlotDateBetween(LocalDate fromDate, LocalDate toDate);
+
+    // 可用性索引增量刷新：某医生日期区间内的号源行
+    List<DoctorSlotInventory> findByDoctorProfileIdAndSlotDateBetween(Long doctorProfileId,
+                                                                      LocalDate fromDate,
+                                                                      LocalDate toDate);
+
+    /**
+     * 按全部排班为 [fromDate, toDate] 生成号源行，已存在的行保持不变（用于每日滚动补齐窗口）。
+     * 原生写语句通过 native.spaces 提示声明受影响的表，Hibernate 只失效与该表相关的缓存，而不是清空全部二级缓存区域。
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "doctor_slot_inventory"))
+    @Modifying
+    @Query(value = "INSERT INTO doctor_slot_inventory (doctor_profile_id, department_id, slot_date, weekday, timeslot, max_patients) " +
+            "SELECT s.doctor_profile_id, s.department_id, CAST(d AS DATE), s.weekday, s.timeslot, COALESCE(s.max_patients_per_slot, 2) " +
+            "FROM doctor_department_schedule s " +
+            "JOIN generate_series(CAST(:fromDate AS DATE), CAST(:toDate AS DATE), INTERVAL '1 day') AS d " +
+            "ON EXTRACT(ISODOW FROM d) = s.weekday " +
+            "ON CONFLICT (doctor_profile_id, slot_date, timeslot) DO NOTHING",
+            nativeQuery = true)
+    int generateAll(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    /**
+     * 按单条排班为 [fromDate, toDate] 生成号源行；已存在的行同步最新的科室与最大挂号数（用于排班新增/修改）。
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "doctor_slot_inventory"))
+    @Modifying
+    @Query(value = "INSERT INTO doctor_slot_inventory (doctor_profile_id, department_id, slot_date, weekday, timeslot, max_patients) " +
+            "SELECT s.doctor_profile_id, s.department_id, CAST(d AS DATE), s.weekday, s.timeslot, COALESCE(s.max_patients_per_slot, 2) " +
+            "FROM doctor_department_schedule s " +
+            "JOIN generate_series(CAST(:fromDate AS DATE), CAST(:toDate AS DATE), INTERVAL '1 day') AS d " +
+            "ON EXTRACT(ISODOW FROM d) = s.weekday " +
+            "WHERE s.id = :scheduleId " +
+            "ON CONFLICT (doctor_profile_id, slot_date, timeslot) " +
+            "DO UPDATE SET department_id = EXCLUDED.department_id, max_patients = EXCLUDED.max_patients",
+            nativeQuery = true)
+    int generateForSchedule(@Param("scheduleId") Long scheduleId,
+                            @Param("fromDate") LocalDate fromDate,
+                            @Param("toDate") LocalDate toDate);
+
+    /**
+     * 原子占号：容量校验与计数递增在同一条条件 UPDATE 中完成，
+     * 返回 1 表示占号成功，返回 0 表示号源已满。
+     */
+    @Modifying
+    @Query("update DoctorSlotInventory i set i.bookedPatients = i.bookedPatients + 1 " +
+           "where i.id = :id and i.bookedPatients < i.maxPatients")
+    int tryReserve(@Param("id") Long id);
+
+    /**
+     * 释放号源（取消挂号时调用），计数不会减到 0 以下。
+     */
+    @Modifying
+    @Query("update DoctorSlotInventory i set i.bookedPatients = i.bookedPatients - 1 " +
+           "where i.id = :id and i.bookedPatients > 0")
+    int release(@Param("id") Long id);
+
+    // 排班撤销/变更：删除 fromDate 起未被任何挂号（含已取消的）或候补记录引用的号源行
+    @Modifying
+    @Query("delete from DoctorSlotInventory i " +
+           "where i.doctorProfile.id = :doctorProfileId and i.weekday = :weekday and i.timeslot = :timeslot " +
+           "and i.slotDate >= :fromDate and i.bookedPatients = 0 " +
+           "and not exists (select r.id from PatientDoctorRegistration r where r.slotInventory = i) " +
+           "and not exists (select w.id from RegistrationWaitlist w where w.slotInventory = i)")
+    int deleteUnreferencedSlots(@Param("doctorProfileId") Long doctorProfileId,
+                                @Param("weekday") Integer weekday,
+                                @Param("timeslot") TimeSlot timeslot,
+                                @Param("fromDate") LocalDate fromDate);
+
+    // 排班撤销/变更：仍被引用而保留的号源行关闭剩余容量（最大挂号数置为已占号数），不再放号
+    @Modifying
+    @Query("update DoctorSlotInventory i set i.maxPatients = i.bookedPatients " +
+           "where i.doctorProfile.id = :doctorProfileId and i.weekday = :weekday and i.timeslot = :timeslot " +
+           "and i.slotDate >= :fromDate and i.maxPatients > i.bookedPatients")
+    int closeRetainedSlots(@Param("doctorProfileId") Long doctorProfileId,
+                           @Param("weekday") Integer weekday,
+                           @Param("timeslot") TimeSlot timeslot,
+                           @Param("fromDate") LocalDate fromDate);
+
+    // 科室排班批量删除：删除 fromDate 起未被任何挂号或候补记录引用的号源行
+    @Modifying
+    @Query("delete from DoctorSlotInventory i " +
+           "where i.department.id = :departmentId and i.slotDate >= :fromDate and i.bookedPatients = 0 " +
+           "and not exists (select r.id from PatientDoctorRegistration r where r.slotInventory = i) " +
+           "and not exists (select w.id from RegistrationWaitlist w where w.slotInventory = i)")
+    int deleteUnreferencedSlotsByDepartment(@Param("departmentId") Long departmentId,
+                                            @Param("fromDate") LocalDate fromDate);
+
+    // 科室排班批量删除：保留的号源行关闭剩余容量
+    @Modifying
+    @Query("update DoctorSlotInventory i set i.maxPatients = i.bookedPatients " +
+           "where i.department.id = :departmentId and i.slotDate >= :fromDate and i.maxPatients > i.bookedPatients")
+    int closeRetainedSlotsByDepartment(@Param("departmentId") Long departmentId,
+                                       @Param("fromDate") LocalDate fromDate);
+
+    /**
+     * 按科室汇总 [fromDate, toDate] 内的号源容量、已占号数与已满时段数（号源饱和度指标）
+     */
+    @Query(value = "SELECT dep.id AS departmentId, dep.department_name AS departmentName, " +
+            "SUM(i.max_patients) AS maxPatients, SUM(i.booked_patients) AS bookedPatients, " +
+            "COUNT(*) FILTER (WHERE i.booked_patients >= i.max_patients) AS saturatedSlots " +
+            "FROM doctor_slot_inventory i JOIN department dep ON dep.id = i.department_id " +
+            "WHERE i.slot_date BETWEEN :fromDate AND :toDate " +
+            "GROUP BY dep.id, dep.department_name",
+            nativeQuery = true)
+    List<DepartmentSlotFillView> summarizeByDepartment(@Param("fromDate") LocalDate fromDate,
+                                                       @Param("toDate") LocalDate toDate);
+
+    /**
+     * [fromDate, toDate] 内已占号数最多的 limit 位医生（热门医生指标）
+     */
+    @Query(value = "SELECT d.doctor_id AS doctorId, d.name AS doctorName, dep.department_name AS departmentName, " +
+            "SUM(i.max_patients) AS maxPatients, SUM(i.booked_patients) AS bookedPatients " +
+            "FROM doctor_slot_inventory i JOIN doctor_profile d ON d.id = i.doctor_profile_id " +
+            "LEFT JOIN department dep ON dep.id = i.department_id " +
+            "WHERE i.slot_date BETWEEN :fromDate AND :toDate " +
+            "GROUP BY d.id, d.doctor_id, d.name, dep.department_name " +
+            "HAVING SUM(i.booked_patients) > 0 " +
+            "ORDER BY SUM(i.booked_patients) DESC, d.id LIMIT :limit",
+            nativeQuery = true)
+    List<DoctorSlotLoadView> findBusiestDoctors(@Param("fromDate") LocalDate fromDate,
+                                                @Param("toDate") LocalDate toDate,
+                                                @Param("limit") int limit);
+}
@@ -0,0 +1,18 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+/**
+ * 医生号源占用投影：统计窗口内某医生的总容量与已占号数。
+ * 由 {@link DoctorSlotInventoryRepository#findBusiestDoctors} 返回，供热门医生指标使用。
+ */
+public interface DoctorSlotLoadView {
+
+    String getDoctorId();
+
+    String getDoctorName();
+
+    String getDepartmentName();
+
+    Long getMaxPatients();
+
+    Long getBookedPatients();
+}
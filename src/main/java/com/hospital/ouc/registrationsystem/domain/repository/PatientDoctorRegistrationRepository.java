@@ -1,29 +1,48 @@
 package com.hospital.ouc.registrationsystem.domain.repository;
 
 import com.hospital.ouc.registrationsystem.domain.entity.PatientDoctorRegistration;
+import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface PatientDoctorRegistrationRepository extends JpaRepository<PatientDoctorRegistration, Long> {
 
+    // 医生某日的挂号：按就诊日期过滤，兼容未记录日期的旧数据；患者档案随同一条查询取回，避免逐个患者加载
+    @EntityGraph(attributePaths = {"patientProfile", "patientProfile.user", "doctorProfile", "doctorProfile.user",
+            "doctorProfile.department", "disease", "disease.department"})
     @Query("select r from PatientDoctorRegistration r " +
            "join r.doctorProfile d " +
-           "where d.doctorId = :doctorId and r.weekday = :weekday")
+           "where d.doctorId = :doctorId and r.weekday = :weekday " +
+           "and (r.visitDate is null or r.visitDate = :visitDate)")
     List<PatientDoctorRegistration> findByDoctorIdAndWeekday(@Param("doctorId") String doctorId,
-                                                             @Param("weekday") Integer weekday);
+                                                             @Param("weekday") Integer weekday,
+                                                             @Param("visitDate") LocalDate visitDate);
 
-    long countByDoctorProfileIdAndWeekdayAndTimeslotAndStatusIn(Long doctorProfileId,
-                                                                Integer weekday,
-                                                                com.hospital.ouc.registrationsystem.domain.enums.TimeSlot timeslot,
-                                                                java.util.Collection<com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus> statuses);
-
-    // 新增：根据患者档案ID查询挂号记录
+    // 新增：根据患者档案ID查询挂号记录；医生、疾病及科室随同一条查询取回
+    @EntityGraph(attributePaths = {"patientProfile", "patientProfile.user", "doctorProfile", "doctorProfile.user",
+            "doctorProfile.department", "disease", "disease.department"})
     List<PatientDoctorRegistration> findByPatientProfileId(Long patientProfileId);
 
     // 新增：根据 id 且属于患者的记录（用于取消时校验归属）
     Optional<PatientDoctorRegistration> findByIdAndPatientProfileId(Long id, Long patientProfileId);
+
+    // 患者在某号源行上是否已有未取消的挂号（加入候补前校验）
+    boolean existsByPatientProfileIdAndSlotInventoryIdAndStatusNot(Long patientProfileId,
+                                                                   Long slotInventoryId,
+                                                                   RegistrationStatus status);
+
+    // 条件取消：仅当记录尚未取消时更新状态，返回受影响行数，保证并发取消只释放一次号源
+    @Modifying
+    @Query("update PatientDoctorRegistration r " +
+           "set r.status = com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus.CANCELLED " +
+           "where r.id = :id " +
+           "and r.status <> com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus.CANCELLED")
+    int cancelIfActive(@Param("id") Long id);
 }
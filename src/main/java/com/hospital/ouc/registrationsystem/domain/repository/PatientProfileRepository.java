@@ -1,16 +1,16 @@
 package com.hospital.ouc.registrationsystem.domain.repository;
 
 import com.hospital.ouc.registrationsystem.domain.entity.PatientProfile;
-import com.hospital.ouc.registrationsystem.domain.enums.Gender;
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.domain.Pageable;
 
 import java.util.Optional;
 
-public interface PatientProfileRepository extends JpaRepository<PatientProfile, Long> {
+public interface PatientProfileRepository extends JpaRepository<PatientProfile, Long>, JpaSpecificationExecutor<PatientProfile> {
     //根据身份证号码查询
     Optional<PatientProfile> findByIdCard(String idCard);
     //根据手机号查询
@@ -21,17 +21,8 @@ public interface PatientProfileRepository extends JpaRepository<PatientProfile,
     // 根据用户ID查询患者档案
     Optional<PatientProfile> findByUserId(Long userId);
 
-    // 多条件分页查询
-    @Query("SELECT p FROM PatientProfile p WHERE " +
-            "(:#{#name} IS NULL OR p.name LIKE :#{#name}%) AND " +
-            "(:#{#idCard} IS NULL OR p.idCard = :#{#idCard}) AND " +
-            "(:#{#phoneNumber} IS NULL OR p.phoneNumber = :#{#phoneNumber}) AND " +
-            "(:#{#gender} IS NULL OR p.gender = :#{#gender}) AND " +
-            "p.isActive = true")
-    Page<PatientProfile> findByCondition(
-            @Param("name") String name,
-            @Param("idCard") String idCard,
-            @Param("phoneNumber") String phoneNumber,
-            @Param("gender") Gender gender,
-            Pageable pageable);
+    // 多条件分页查询（条件见 PatientProfileSpecification）；账号随分页查询一并取回，避免逐行加载
+    @Override
+    @EntityGraph(attributePaths = {"user"})
+    Page<PatientProfile> findAll(Specification<PatientProfile> spec, Pageable pageable);
 }
@@ -0,0 +1,37 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+import com.hospital.ouc.registrationsystem.domain.entity.RegistrationIdempotency;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface RegistrationIdempotencyRepository extends JpaRepository<RegistrationIdempotency, String> {
+
+    /**
+     * 占用幂等键，返回 1 表示本次请求首次使用该键。
+     * 同一个键的并发请求会在主键上等待先到的事务结束：先到者提交则返回 0，回滚则本次占用成功。
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "registration_idempotency"))
+    @Modifying
+    @Query(value = "INSERT INTO registration_idempotency (idempotency_key, patient_profile_id) " +
+            "VALUES (:key, :patientProfileId) " +
+            "ON CONFLICT (idempotency_key) DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("key") String key, @Param("patientProfileId") Long patientProfileId);
+
+    // 记录幂等键对应的挂号结果
+    @Modifying
+    @Query("update RegistrationIdempotency k set k.registrationId = :registrationId where k.idempotencyKey = :key")
+    int complete(@Param("key") String key, @Param("registrationId") Long registrationId);
+
+    // 清理超过保留期的幂等键
+    @Modifying
+    @Query("delete from RegistrationIdempotency k where k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,35 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+import com.hospital.ouc.registrationsystem.domain.entity.RegistrationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface RegistrationOutboxRepository extends JpaRepository<RegistrationOutbox, Long> {
+
+    /**
+     * 认领一批待投递事件：行锁持有到事务结束，SKIP LOCKED 使多个节点并行认领互不重叠的批次。
+     */
+    @Query(value = "SELECT * FROM registration_outbox " +
+            "WHERE published_at IS NULL " +
+            "ORDER BY id " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<RegistrationOutbox> claimBatch(@Param("batchSize") int batchSize);
+
+    // 标记整批已投递
+    @Modifying
+    @Query("update RegistrationOutbox o set o.publishedAt = :publishedAt where o.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    // 清理已投递且超过保留期的事件
+    @Modifying
+    @Query("delete from RegistrationOutbox o where o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
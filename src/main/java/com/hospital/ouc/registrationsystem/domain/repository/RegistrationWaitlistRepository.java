@@ -0,0 +1,90 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+import com.hospital.ouc.registrationsystem.domain.entity.RegistrationWaitlist;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface RegistrationWaitlistRepository extends JpaRepository<RegistrationWaitlist, Long> {
+
+    /**
+     * 锁定某号源行的候补队首：走 (slot_inventory_id, id) WHERE status = 'WAITING' 的部分索引，只读一行；
+     * SKIP LOCKED 使并发的递补互不等待、不会递补同一个人。
+     */
+    @Query(value = "SELECT * FROM registration_waitlist " +
+            "WHERE slot_inventory_id = :slotInventoryId AND status = 'WAITING' " +
+            "ORDER BY id " +
+            "LIMIT 1 " +
+            "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<RegistrationWaitlist> lockHead(@Param("slotInventoryId") Long slotInventoryId);
+
+    // 某患者在某号源上的候补记录
+    Optional<RegistrationWaitlist> findByPatientProfileIdAndSlotInventoryIdAndStatus(Long patientProfileId,
+                                                                                      Long slotInventoryId,
+                                                                                      WaitlistStatus status);
+
+    // 根据 id 且属于患者的记录（用于退出候补时校验归属）
+    Optional<RegistrationWaitlist> findByIdAndPatientProfileId(Long id, Long patientProfileId);
+
+    // 患者的候补记录，最近的在前
+    List<RegistrationWaitlist> findByPatientProfileIdOrderByIdDesc(Long patientProfileId);
+
+    // 排在某条候补记录之前的人数
+    @Query("select count(w) from RegistrationWaitlist w " +
+           "where w.slotInventory.id = :slotInventoryId " +
+           "and w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.WAITING " +
+           "and w.id < :id")
+    long countAhead(@Param("slotInventoryId") Long slotInventoryId, @Param("id") Long id);
+
+    // 各号源行的候补人数：[slotInventoryId, count]，用于重建内存镜像
+    @Query("select w.slotInventory.id, count(w) from RegistrationWaitlist w " +
+           "where w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.WAITING " +
+           "group by w.slotInventory.id")
+    List<Object[]> countWaitingBySlot();
+
+    // 有候补且仍有空余号源的号源行（如管理员调大了号源数，或递补时被并发挂号抢占后又有人取消）
+    @Query(value = "SELECT DISTINCT w.slot_inventory_id FROM registration_waitlist w " +
+            "JOIN doctor_slot_inventory i ON i.id = w.slot_inventory_id " +
+            "WHERE w.status = 'WAITING' AND i.booked_patients < i.max_patients AND i.slot_date >= :today",
+            nativeQuery = true)
+    List<Long> findPromotableSlots(@Param("today") LocalDate today);
+
+    // 就诊日期已过的候补记录置为过期
+    @Modifying
+    @Query("update RegistrationWaitlist w " +
+           "set w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.EXPIRED " +
+           "where w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.WAITING " +
+           "and w.slotInventory.id in (select i.id from DoctorSlotInventory i where i.slotDate < :today)")
+    int expireBefore(@Param("today") LocalDate today);
+
+    // 排班撤销/变更：该医生该星期该时段 fromDate 起号源行上的候补置为过期
+    @Modifying
+    @Query("update RegistrationWaitlist w " +
+           "set w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.EXPIRED " +
+           "where w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.WAITING " +
+           "and w.slotInventory.id in (select i.id from DoctorSlotInventory i " +
+           "where i.doctorProfile.id = :doctorProfileId and i.weekday = :weekday and i.timeslot = :timeslot " +
+           "and i.slotDate >= :fromDate)")
+    int expireForSchedule(@Param("doctorProfileId") Long doctorProfileId,
+                          @Param("weekday") Integer weekday,
+                          @Param("timeslot") TimeSlot timeslot,
+                          @Param("fromDate") LocalDate fromDate);
+
+    // 科室排班批量删除：该科室 fromDate 起号源行上的候补置为过期
+    @Modifying
+    @Query("update RegistrationWaitlist w " +
+           "set w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.EXPIRED " +
+           "where w.status = com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus.WAITING " +
+           "and w.slotInventory.id in (select i.id from DoctorSlotInventory i " +
+           "where i.department.id = :departmentId and i.slotDate >= :fromDate)")
+    int expireForDepartment(@Param("departmentId") Long departmentId,
+                            @Param("fromDate") LocalDate fromDate);
+}
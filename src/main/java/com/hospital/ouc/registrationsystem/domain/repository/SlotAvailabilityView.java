@@ -0,0 +1,36 @@
+package com.hospital.ouc.registrationsystem.domain.repository;
+
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+
+import java.time.LocalDate;
+
+/**
+ * 号源可用性投影：一条排班 + 对应日期号源库存的汇总视图。
+ * 由 {@link DoctorDepartmentScheduleRepository#findSlotAvailability} 一次查询返回，
+ * 供疾病排班表与挂号校验共用。
+ */
+public interface SlotAvailabilityView {
+
+    // 号源库存行ID；窗口内尚未生成库存时为空
+    Long getInventoryId();
+
+    Long getDoctorProfileId();
+
+    String getDoctorId();
+
+    String getDoctorName();
+
+    String getDoctorTitle();
+
+    String getDepartmentName();
+
+    Integer getWeekday();
+
+    TimeSlot getTimeslot();
+
+    LocalDate getSlotDate();
+
+    Integer getMaxPatients();
+
+    Integer getBookedPatients();
+}
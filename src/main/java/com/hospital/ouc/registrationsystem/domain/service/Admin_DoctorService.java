@@ -1,16 +1,21 @@
 package com.hospital.ouc.registrationsystem.domain.service;
 
 import com.hospital.ouc.registrationsystem.domain.entity.*;
+import com.hospital.ouc.registrationsystem.domain.enums.CountMode;
 import com.hospital.ouc.registrationsystem.domain.enums.Gender;
 import com.hospital.ouc.registrationsystem.domain.enums.Role;
 import com.hospital.ouc.registrationsystem.domain.repository.*;
+import com.hospital.ouc.registrationsystem.web.dto.CursorPageDTO;
+import com.hospital.ouc.registrationsystem.web.dto.DiseaseDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorUpdateDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorSearchCriteria;
 import com.hospital.ouc.registrationsystem.domain.specification.DoctorProfileSpecification;
+import com.hospital.ouc.registrationsystem.domain.specification.KeysetSpecification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.jpa.domain.Specification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +34,12 @@ public class Admin_DoctorService {
     private final DepartmentRepository departmentRepository;
     private final DiseaseRepository diseaseRepository;
     private final DoctorDiseaseRepository doctorDiseaseRepository;
+    private final CatalogCache catalogCache;
+    private final DoctorAssociationLoader associationLoader;
+    private final PlannerRowEstimator rowEstimator;
+
+    // 游标分页单页上限
+    private static final int MAX_SCROLL_SIZE = 200;
 
     // 固定盐值，与系统保持一致
     private static final String SALT = "OucWebDev123";
@@ -35,9 +47,7 @@ public class Admin_DoctorService {
     // 获取所有医生（包括已软删除的）
     public List<DoctorDTO> getAllDoctors() {
         // 改为使用findAll()查询所有医生，不再过滤isActive=true的记录
-        return doctorProfileRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(doctorProfileRepository.findAll());
     }
 
     // 根据ID获取医生
@@ -91,6 +101,8 @@ public class Admin_DoctorService {
         if (doctorDTO.getDiseaseIds() != null && !doctorDTO.getDiseaseIds().isEmpty()) {
             saveDoctorDiseases(doctorProfile.getId(), doctorDTO.getDiseaseIds());
         }
+        catalogCache.evictDepartmentDoctors(department.getId());
+        catalogCache.evictDiseaseDoctors(doctorDTO.getDiseaseIds());
 
         return convertToDTO(doctorProfile);
     }
@@ -102,6 +114,9 @@ public class Admin_DoctorService {
         DoctorProfile doctorProfile = doctorProfileRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("医生不存在"));
         AppUser appUser = doctorProfile.getUser();
+        // 记录变更前的科室与疾病，用于目录缓存失效
+        Long oldDepartmentId = doctorProfile.getDepartment() != null ? doctorProfile.getDepartment().getId() : null;
+        List<Long> oldDiseaseIds = findDiseaseIds(id);
 
         // 更新用户表信息
         if (updateDTO.getUsername() != null) {
@@ -170,6 +185,14 @@ public class Admin_DoctorService {
             saveDoctorDiseases(id, updateDTO.getDiseaseIds());
         }
 
+        // 医生出现在原/新科室及原/新疾病的医生列表中
+        catalogCache.evictDepartmentDoctors(oldDepartmentId);
+        if (doctorProfile.getDepartment() != null) {
+            catalogCache.evictDepartmentDoctors(doctorProfile.getDepartment().getId());
+        }
+        catalogCache.evictDiseaseDoctors(oldDiseaseIds);
+        catalogCache.evictDiseaseDoctors(updateDTO.getDiseaseIds());
+
         return convertToDTO(doctorProfile);
     }
 
@@ -187,6 +210,17 @@ public class Admin_DoctorService {
         AppUser appUser = doctorProfile.getUser();
         appUser.setIsActive(false);
         appUserRepository.save(appUser);
+
+        if (doctorProfile.getDepartment() != null) {
+            catalogCache.evictDepartmentDoctors(doctorProfile.getDepartment().getId());
+        }
+        catalogCache.evictDiseaseDoctors(findDiseaseIds(id));
+    }
+
+    private List<Long> findDiseaseIds(Long doctorProfileId) {
+        return associationLoader.loadDiseases(doctorProfileId).stream()
+                .map(DiseaseDTO::getId)
+                .collect(Collectors.toList());
     }
 
     // 保存医生与疾病的关联关系
@@ -210,6 +244,20 @@ public class Admin_DoctorService {
 
     // 转换实体到DTO
     private DoctorDTO convertToDTO(DoctorProfile doctorProfile) {
+        return convertToDTOs(List.of(doctorProfile)).get(0);
+    }
+
+    // 批量转换：整页医生的疾病关联由一条查询取回
+    private List<DoctorDTO> convertToDTOs(List<DoctorProfile> doctorProfiles) {
+        Map<Long, List<DiseaseDTO>> diseasesByDoctor = associationLoader.loadDiseases(
+                doctorProfiles.stream().map(DoctorProfile::getId).collect(Collectors.toList()));
+        return doctorProfiles.stream()
+                .map(doctorProfile -> convertToDTO(doctorProfile,
+                        diseasesByDoctor.getOrDefault(doctorProfile.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private DoctorDTO convertToDTO(DoctorProfile doctorProfile, List<DiseaseDTO> diseases) {
         DoctorDTO dto = new DoctorDTO();
         dto.setId(doctorProfile.getId());
         dto.setUsername(doctorProfile.getUser().getUsername());
@@ -227,10 +275,7 @@ public class Admin_DoctorService {
         dto.setActive(doctorProfile.getIsActive());
 
         // 设置关联的疾病ID
-        List<Long> diseaseIds = doctorDiseaseRepository.findByDoctorProfileId(doctorProfile.getId()).stream()
-                .map(dd -> dd.getDisease().getId())
-                .collect(Collectors.toList());
-        dto.setDiseaseIds(diseaseIds);
+        dto.setDiseaseIds(diseases.stream().map(DiseaseDTO::getId).collect(Collectors.toList()));
 
         return dto;
     }
@@ -255,7 +300,39 @@ public class Admin_DoctorService {
         // 构建 Specification
         var spec = DoctorProfileSpecification.build(criteria);
         var page = doctorProfileRepository.findAll(spec, pageable);
-        List<DoctorDTO> dtoList = page.getContent().stream().map(this::convertToDTO).collect(Collectors.toList());
+        List<DoctorDTO> dtoList = convertToDTOs(page.getContent());
         return new PageImpl<>(dtoList, pageable, page.getTotalElements());
     }
+
+    // 游标分页检索：从上一页最后一行之后按索引顺序读取，不做 OFFSET，总数只在首页按 count 计算
+    public CursorPageDTO<DoctorDTO> scrollDoctors(DoctorSearchCriteria criteria, String cursor, int size, String sort, String count) {
+        KeysetSpecification.Order order = KeysetSpecification.Order.parse(sort);
+        KeysetSpecification.Cursor after = KeysetSpecification.Cursor.decode(cursor, order);
+        CountMode countMode = CountMode.fromString(count);
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        Specification<DoctorProfile> filter = DoctorProfileSpecification.build(criteria);
+        // 多取一行用于判断是否还有下一页；账号与科室随同一条查询取回
+        List<DoctorProfile> rows = doctorProfileRepository.findBy(
+                filter.and(KeysetSpecification.after(order, after)),
+                q -> q.sortBy(order.toSort()).limit(limit + 1).project("user", "department").all());
+        boolean hasMore = rows.size() > limit;
+        List<DoctorProfile> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            DoctorProfile last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new KeysetSpecification.Cursor(last.getId(), last.getName()).encode(order);
+        }
+
+        Long total = null;
+        if (after == null) {
+            if (countMode == CountMode.EXACT) {
+                total = doctorProfileRepository.count(filter);
+            } else if (countMode == CountMode.ESTIMATE) {
+                total = rowEstimator.estimate(DoctorProfile.class, filter);
+            }
+        }
+        return CursorPageDTO.of(convertToDTOs(pageRows), hasMore, nextCursor, total, countMode.name().toLowerCase());
+    }
 }
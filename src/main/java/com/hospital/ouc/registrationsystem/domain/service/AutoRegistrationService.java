@@ -0,0 +1,110 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.enums.ResultCodeEnum;
+import com.hospital.ouc.registrationsystem.domain.repository.DiseaseRepository;
+import com.hospital.ouc.registrationsystem.domain.repository.PatientProfileRepository;
+import com.hospital.ouc.registrationsystem.web.dto.AutoRegistrationRequestDTO;
+import com.hospital.ouc.registrationsystem.web.dto.DoctorDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 自动分配挂号：给定疾病（及可选的星期 / 上下午偏好），为患者预约最早有余号的医生时段。
+ * <p>
+ * 候选医生取自目录缓存（可诊疗该疾病的有效医生），候选时段由 {@link DoctorAvailabilityIndex} 位运算得到，
+ * 查找过程不访问数据库；随后按顺序调用 {@link PatientRegistrationService#registerCandidate} 占号，
+ * 每次占号是一个独立事务中的条件 UPDATE，仅在被并发抢占（号源已满）或索引滞后导致排班校验不通过时尝试下一个候选，
+ * 其余异常（重复挂号、患者不存在、数据库错误等）直接抛出。
+ * 本方法自身不开启事务，避免某次占号失败把整个请求标记为回滚。
+ * 耗时与被拒指标按整个请求记录一次（operation=auto_register），逐个候选的尝试不计入。
+ */
+@Service
+public class AutoRegistrationService {
+
+    /**
+     * 换下一个候选即可继续的拒绝原因
+     */
+    private static final Set<ResultCodeEnum> RETRYABLE = EnumSet.of(
+            ResultCodeEnum.SLOT_FULL, ResultCodeEnum.SLOT_NOT_SCHEDULED, ResultCodeEnum.DISEASE_NOT_SUPPORTED);
+
+    private final PatientRegistrationService registrationService;
+    private final PatientScheduleService patientScheduleService;
+    private final DoctorAvailabilityIndex availabilityIndex;
+    private final PatientProfileRepository patientProfileRepository;
+    private final DiseaseRepository diseaseRepository;
+    private final RegistrationMetrics metrics;
+
+    /**
+     * 最多尝试的候选数，可通过 registration.auto.max-attempts 配置
+     */
+    private final int maxAttempts;
+
+    public AutoRegistrationService(PatientRegistrationService registrationService,
+                                   PatientScheduleService patientScheduleService,
+                                   DoctorAvailabilityIndex availabilityIndex,
+                                   PatientProfileRepository patientProfileRepository,
+                                   DiseaseRepository diseaseRepository,
+                                   RegistrationMetrics metrics,
+                                   @Value("${registration.auto.max-attempts:5}") int maxAttempts) {
+        this.registrationService = registrationService;
+        this.patientScheduleService = patientScheduleService;
+        this.availabilityIndex = availabilityIndex;
+        this.patientProfileRepository = patientProfileRepository;
+        this.diseaseRepository = diseaseRepository;
+        this.metrics = metrics;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public RegistrationResponseDTO autoRegister(AutoRegistrationRequestDTO req) {
+        return metrics.timeRegistration("auto_register", () -> doAutoRegister(req));
+    }
+
+    private RegistrationResponseDTO doAutoRegister(AutoRegistrationRequestDTO req) {
+        if (req.getPatientProfileId() == null || req.getDiseaseId() == null) {
+            throw new RuntimeException("患者、疾病不能为空");
+        }
+        if (!patientProfileRepository.existsById(req.getPatientProfileId())) {
+            throw new RuntimeException("患者不存在");
+        }
+        Disease disease = diseaseRepository.findById(req.getDiseaseId())
+                .orElseThrow(() -> new RuntimeException("疾病不存在"));
+        long mask;
+        try {
+            mask = DoctorAvailabilityIndex.mask(req.getWeekday(), req.getTimeslot());
+        } catch (IllegalArgumentException ex) {
+            throw new RuntimeException(ex.getMessage());
+        }
+
+        List<Long> doctorIds = patientScheduleService.getDoctorsByDisease(req.getDiseaseId()).stream()
+                .map(DoctorDTO::getId)
+                .toList();
+        List<DoctorAvailabilityIndex.Candidate> candidates = availabilityIndex.earliestFree(
+                doctorIds, disease.getDepartment().getId(), mask, maxAttempts);
+
+        for (DoctorAvailabilityIndex.Candidate c : candidates) {
+            RegistrationRequestDTO attempt = new RegistrationRequestDTO();
+            attempt.setPatientProfileId(req.getPatientProfileId());
+            attempt.setDiseaseId(req.getDiseaseId());
+            attempt.setDoctorProfileId(c.doctorProfileId());
+            attempt.setWeekday(c.visitDate().getDayOfWeek().getValue());
+            attempt.setVisitDate(c.visitDate());
+            attempt.setTimeslot(c.timeslot().name());
+            try {
+                return registrationService.registerCandidate(attempt);
+            } catch (BusinessException ex) {
+                // 已被并发抢占，或索引尚未同步的排班 / 诊疗关系变更：尝试下一个候选
+                if (!RETRYABLE.contains(ex.getResultCode())) {
+                    throw ex;
+                }
+            }
+        }
+        throw new BusinessException(ResultCodeEnum.SLOT_FULL, "近一周内暂无可预约的号源，可加入候补");
+    }
+}
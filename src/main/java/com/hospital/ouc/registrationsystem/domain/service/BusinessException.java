@@ -11,9 +11,21 @@ public class BusinessException extends RuntimeException {
 
     private Integer code;
 
+    /**
+     * 由结果码构造时记录对应枚举，便于调用方区分具体的业务拒绝原因
+     */
+    private ResultCodeEnum resultCode;
+
     public BusinessException(ResultCodeEnum codeEnum) {
         super(codeEnum.getMsg());
         this.code = codeEnum.getCode();
+        this.resultCode = codeEnum;
+    }
+
+    public BusinessException(ResultCodeEnum codeEnum, String msg) {
+        super(msg);
+        this.code = codeEnum.getCode();
+        this.resultCode = codeEnum;
     }
 
     public BusinessException(Integer code, String msg) {
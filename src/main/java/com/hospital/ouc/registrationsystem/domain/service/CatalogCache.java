@@ -0,0 +1,130 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hospital.ouc.registrationsystem.domain.entity.Department;
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDisease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorProfile;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 患者端目录缓存（科室 / 疾病 / 医生列表）的缓存名与失效入口。
+ * 读取侧在 {@link PatientScheduleService} 上以 @Cacheable 声明；
+ * 写入侧由 DepartmentService、DiseaseService、Admin_DoctorService 按受影响的键精确失效，
+ * 失效在事务提交后执行，避免并发读取在提交前把旧数据重新装回缓存；
+ * 失效经 {@link ClusterEventBus} 发布，其他节点的本地缓存同步失效。
+ * <p>
+ * Hibernate 二级缓存同样是节点本地的：本节点的实体变更由 Hibernate 自动失效，
+ * 其他节点则在收到目录失效事件时清空对应的实体区域（目录变更很少，按区域整体清空即可）。
+ */
+@Component
+public class CatalogCache {
+
+    /** 全部科室，单键 */
+    public static final String DEPARTMENTS = "catalog.departments";
+    /** 科室下的疾病，键为科室ID */
+    public static final String DEPARTMENT_DISEASES = "catalog.departmentDiseases";
+    /** 可诊疗某疾病的医生，键为疾病ID */
+    public static final String DISEASE_DOCTORS = "catalog.diseaseDoctors";
+    /** 科室下的医生，键为科室ID */
+    public static final String DEPARTMENT_DOCTORS = "catalog.departmentDoctors";
+
+    public static final String ALL_KEY = "all";
+
+    private final CacheManager cacheManager;
+    private final ClusterEventBus eventBus;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CatalogCache(CacheManager cacheManager, ClusterEventBus eventBus, EntityManagerFactory entityManagerFactory) {
+        this.cacheManager = cacheManager;
+        this.eventBus = eventBus;
+        this.entityManagerFactory = entityManagerFactory;
+        eventBus.on(ClusterEventBus.CACHE_EVICT, this::applyEvict);
+        eventBus.on(ClusterEventBus.CACHE_CLEAR, data -> applyClear(data.path("cache").asText()));
+        // 监听连接中断期间可能漏掉失效通知，重连后清空全部目录缓存
+        eventBus.onResync(() -> List.of(DEPARTMENTS, DEPARTMENT_DISEASES, DISEASE_DOCTORS, DEPARTMENT_DOCTORS)
+                .forEach(this::applyClear));
+    }
+
+    public void evictDepartments() {
+        evict(DEPARTMENTS, ALL_KEY);
+    }
+
+    public void evictDepartmentDiseases(Long departmentId) {
+        evict(DEPARTMENT_DISEASES, departmentId);
+    }
+
+    public void evictDepartmentDoctors(Long departmentId) {
+        evict(DEPARTMENT_DOCTORS, departmentId);
+    }
+
+    public void evictDiseaseDoctors(Collection<Long> diseaseIds) {
+        if (diseaseIds == null) {
+            return;
+        }
+        for (Long diseaseId : diseaseIds) {
+            evict(DISEASE_DOCTORS, diseaseId);
+        }
+    }
+
+    public void evictDiseaseDoctors(Long diseaseId) {
+        evict(DISEASE_DOCTORS, diseaseId);
+    }
+
+    /**
+     * 清空某个缓存的全部条目（仅用于无法精确定位键的变更，如科室改名影响任意疾病的医生列表）
+     */
+    public void clear(String cacheName) {
+        eventBus.publish(ClusterEventBus.CACHE_CLEAR, Map.of("cache", cacheName));
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        eventBus.publish(ClusterEventBus.CACHE_EVICT, Map.of("cache", cacheName, "key", key));
+    }
+
+    // 键为科室/疾病ID（数字）或 ALL_KEY（字符串），按 JSON 类型还原
+    private void applyEvict(JsonNode data) {
+        String cacheName = data.path("cache").asText();
+        Cache cache = cacheManager.getCache(cacheName);
+        JsonNode key = data.path("key");
+        if (cache != null) {
+            cache.evict(key.isNumber() ? (Object) key.asLong() : key.asText());
+        }
+        evictEntityRegions(cacheName);
+    }
+
+    private void applyClear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+        evictEntityRegions(cacheName);
+    }
+
+    // 目录缓存 -> 其数据来源的二级缓存实体区域
+    private void evictEntityRegions(String cacheName) {
+        jakarta.persistence.Cache secondLevel = entityManagerFactory.getCache();
+        switch (cacheName) {
+            case DEPARTMENTS -> secondLevel.evict(Department.class);
+            case DEPARTMENT_DISEASES -> secondLevel.evict(Disease.class);
+            case DISEASE_DOCTORS, DEPARTMENT_DOCTORS -> {
+                secondLevel.evict(DoctorProfile.class);
+                secondLevel.evict(DoctorDisease.class);
+                entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("query.doctorDisease");
+            }
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 跨节点事件总线：基于 PostgreSQL LISTEN/NOTIFY，无需额外中间件。
+ * <p>
+ * 挂号、取消、排班与目录变更通过 {@link #publish} 发布一次：
+ *  - 本节点在事务提交后直接执行对应处理器；
+ *  - 同时在当前事务内执行 pg_notify，数据库在提交时才投递（回滚则不投递），
+ *    其他节点由专用的监听连接收到后执行同一处理器，自身发出的通知按节点ID跳过。
+ * 同类事件批量产生时（如发件箱一批投递）用 {@link #publishAll}，多条事件合并进尽量少的通知，收到后逐条分发。
+ * 处理器由缓存、可用性索引、WebSocket 推送等组件在构造时通过 {@link #on} 注册。
+ * <p>
+ * 监听连接断开后会自动重连；重连期间可能漏掉通知，因此重连成功后执行 {@link #onResync} 注册的全量同步。
+ * 由 registration.cluster.enabled 开启；关闭时只在本节点执行。
+ */
+@Component
+public class ClusterEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterEventBus.class);
+
+    public static final String CHANNEL = "registration_events";
+
+    /** 挂号成功：doctorProfileId, visitDate, timeslot */
+    public static final String SLOT_BOOKED = "slot.booked";
+    /** 取消挂号释放号源：doctorProfileId, visitDate, timeslot */
+    public static final String SLOT_RELEASED = "slot.released";
+    /** 某医生排班变更：doctorProfileId */
+    public static final String DOCTOR_SCHEDULE_CHANGED = "doctor.schedule.changed";
+    /** 批量排班变更，需全量重建可用性索引 */
+    public static final String AVAILABILITY_REBUILD = "availability.rebuild";
+    /** 候补人数变化：slotInventoryId, delta */
+    public static final String WAITLIST_CHANGED = "waitlist.changed";
+    /** 缓存失效：cache, key */
+    public static final String CACHE_EVICT = "cache.evict";
+    /** 缓存清空：cache */
+    public static final String CACHE_CLEAR = "cache.clear";
+    /** WebSocket 推送：topics, message, coalesceKey */
+    public static final String WS_PUBLISH = "ws.publish";
+
+    // NOTIFY 负载上限为 8000 字节，留出余量
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, List<Consumer<JsonNode>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncHandlers = new CopyOnWriteArrayList<>();
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long pollMillis;
+    private final long reconnectMillis;
+
+    private volatile boolean running;
+    private volatile Thread listener;
+    private volatile Connection listenConnection;
+
+    public ClusterEventBus(JdbcTemplate jdbcTemplate,
+                           @Value("${registration.cluster.enabled:false}") boolean enabled,
+                           @Value("${registration.cluster.node-id:}") String nodeId,
+                           @Value("${spring.datasource.url}") String url,
+                           @Value("${spring.datasource.username:}") String username,
+                           @Value("${spring.datasource.password:}") String password,
+                           @Value("${registration.cluster.poll-ms:10000}") long pollMillis,
+                           @Value("${registration.cluster.reconnect-ms:5000}") long reconnectMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollMillis = pollMillis;
+        this.reconnectMillis = reconnectMillis;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 注册某类事件的处理器；本节点与其他节点的同类事件都会调用它
+     */
+    public void on(String type, Consumer<JsonNode> handler) {
+        handlers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * 注册监听连接重连后的全量同步动作（如重建索引、清空缓存）
+     */
+    public void onResync(Runnable action) {
+        resyncHandlers.add(action);
+    }
+
+    /**
+     * 发布事件：本节点提交后执行，其他节点经 NOTIFY 执行。
+     * 必须在写入所在的事务内调用，通知才会与写入一同提交或回滚。
+     */
+    public void publish(String type, Map<String, Object> data) {
+        JsonNode node = objectMapper.valueToTree(data);
+        AfterCommit.run(() -> dispatch(type, node));
+        if (!enabled) {
+            return;
+        }
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("origin", nodeId);
+        envelope.put("type", type);
+        envelope.set("data", node);
+        String payload = envelope.toString();
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            log.warn("cluster event {} too large for NOTIFY ({} chars), applied on this node only", type, payload.length());
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+
+    /**
+     * 批量发布同类事件：本节点提交后逐条执行；其他节点的通知按 NOTIFY 负载上限分组，
+     * 每组一次 pg_notify（data 为数组，收到后逐条分发），避免每条事件一次数据库往返。
+     * 与 {@link #publish} 一样须在写入所在的事务内调用。
+     */
+    public void publishAll(String type, List<Map<String, Object>> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<JsonNode> nodes = new ArrayList<>(items.size());
+        for (Map<String, Object> data : items) {
+            nodes.add(objectMapper.valueToTree(data));
+        }
+        AfterCommit.run(() -> nodes.forEach(node -> dispatch(type, node)));
+        if (!enabled) {
+            return;
+        }
+        ObjectNode envelope = batchEnvelope(type);
+        int baseBytes = utf8Length(envelope.toString());
+        int bytes = baseBytes;
+        for (JsonNode node : nodes) {
+            int itemBytes = utf8Length(node.toString());
+            if (baseBytes + itemBytes > MAX_PAYLOAD_BYTES) {
+                log.warn("cluster event {} too large for NOTIFY ({} bytes), applied on this node only", type, itemBytes);
+                continue;
+            }
+            ArrayNode batch = (ArrayNode) envelope.get("batch");
+            int added = itemBytes + (batch.isEmpty() ? 0 : 1);
+            if (bytes + added > MAX_PAYLOAD_BYTES) {
+                jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, envelope.toString());
+                envelope = batchEnvelope(type);
+                batch = (ArrayNode) envelope.get("batch");
+                bytes = baseBytes;
+                added = itemBytes;
+            }
+            batch.add(node);
+            bytes += added;
+        }
+        if (!envelope.get("batch").isEmpty()) {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, envelope.toString());
+        }
+    }
+
+    private ObjectNode batchEnvelope(String type) {
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("origin", nodeId);
+        envelope.put("type", type);
+        envelope.putArray("batch");
+        return envelope;
+    }
+
+    private static int utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = Thread.ofVirtual().name("cluster-event-listener").start(this::listenLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread t = listener;
+        if (t != null) {
+            t.interrupt();
+        }
+        closeQuietly(listenConnection);
+    }
+
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                listenConnection = conn;
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                log.info("cluster event bus listening on channel {} as node {}", CHANNEL, nodeId);
+                if (reconnect) {
+                    resync();
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        // 空闲时探测连接，及时发现静默断开
+                        if (!conn.isValid(5)) {
+                            throw new SQLException("listen connection is no longer valid");
+                        }
+                        continue;
+                    }
+                    for (PGNotification n : notifications) {
+                        receive(n.getParameter());
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("cluster event listener disconnected, retrying in {} ms: {}", reconnectMillis, ex.getMessage());
+            } finally {
+                listenConnection = null;
+            }
+            reconnect = true;
+            try {
+                Thread.sleep(reconnectMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            JsonNode envelope = objectMapper.readTree(payload);
+            if (nodeId.equals(envelope.path("origin").asText())) {
+                return; // 本节点的事件已在提交后执行
+            }
+            String type = envelope.path("type").asText();
+            if (envelope.has("batch")) {
+                for (JsonNode data : envelope.path("batch")) {
+                    dispatch(type, data);
+                }
+            } else {
+                dispatch(type, envelope.path("data"));
+            }
+        } catch (Exception ex) {
+            log.warn("failed to apply cluster event: {}", ex.getMessage());
+        }
+    }
+
+    private void dispatch(String type, JsonNode data) {
+        List<Consumer<JsonNode>> list = handlers.get(type);
+        if (list == null) {
+            return;
+        }
+        for (Consumer<JsonNode> handler : list) {
+            try {
+                handler.accept(data);
+            } catch (RuntimeException ex) {
+                log.warn("cluster event handler for {} failed: {}", type, ex.getMessage());
+            }
+        }
+    }
+
+    private void resync() {
+        for (Runnable action : resyncHandlers) {
+            try {
+                action.run();
+            } catch (RuntimeException ex) {
+                log.warn("cluster resync failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException ex) {
+            // ignore close errors
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.ouc.registrationsystem.domain.enums.ExportFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 挂号与患者数据的流式导出。
+ * 以 JDBC 游标读取（只读事务内设置 fetchSize，PostgreSQL 驱动按批取行），每取到一行立即写入输出流，
+ * 不构造实体、不在内存中聚合结果集，导出 1 千行与 1 千万行占用的堆内存相同。
+ * 每个导出在整个过程中占用一个数据库连接，因此以许可数限制同时进行的导出个数。
+ */
+@Service
+public class DataExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(DataExportService.class);
+
+    private static final String REGISTRATION_SQL =
+            "SELECT r.id AS registration_id, r.status, r.visit_date, r.weekday, r.timeslot, r.registration_time, " +
+            "r.patient_profile_id, p.name AS patient_name, p.phone_number AS patient_phone, " +
+            "r.doctor_profile_id, d.doctor_id, d.name AS doctor_name, dep.department_name, " +
+            "r.disease_id, dis.name AS disease_name " +
+            "FROM patient_doctor_registration r " +
+            "LEFT JOIN patient_profile p ON p.id = r.patient_profile_id " +
+            "LEFT JOIN doctor_profile d ON d.id = r.doctor_profile_id " +
+            "LEFT JOIN department dep ON dep.id = d.department_id " +
+            "LEFT JOIN disease dis ON dis.id = r.disease_id " +
+            "WHERE TRUE";
+
+    private static final String PATIENT_SQL =
+            "SELECT p.id AS patient_profile_id, u.username, p.name, p.gender, p.age, " +
+            "p.phone_number, p.id_card, p.is_active " +
+            "FROM patient_profile p JOIN app_user u ON u.id = p.user_id " +
+            "WHERE TRUE";
+
+    // 每写出这么多行刷新一次，客户端能持续收到数据
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore permits;
+
+    public DataExportService(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${registration.export.fetch-size:1000}") int fetchSize,
+                             @Value("${registration.export.max-concurrent:2}") int maxConcurrent) {
+        // 专用实例：设置 fetchSize，不影响共享 JdbcTemplate 的其他查询
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL 驱动只在关闭自动提交时才按 fetchSize 分批读取，因此导出放在只读事务中执行
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 导出许可，导出结束（成功、失败或客户端断开）后必须关闭
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * 申请导出许可；已达到并发上限时立即失败，不排队等待
+     */
+    public Permit reserve() {
+        if (!permits.tryAcquire()) {
+            throw new BusinessException("当前导出任务过多，请稍后再试");
+        }
+        return permits::release;
+    }
+
+    /**
+     * 导出挂号记录（按挂号ID顺序）；from / to 为就诊日期范围（含），status、doctorProfileId 可选
+     */
+    public void exportRegistrations(LocalDate from, LocalDate to, String status, Long doctorProfileId,
+                                    ExportFormat format, OutputStream out) {
+        StringBuilder sql = new StringBuilder(REGISTRATION_SQL);
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND r.visit_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND r.visit_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (status != null && !status.isBlank()) {
+            sql.append(" AND r.status = ?");
+            args.add(status.trim().toUpperCase());
+        }
+        if (doctorProfileId != null) {
+            sql.append(" AND r.doctor_profile_id = ?");
+            args.add(doctorProfileId);
+        }
+        sql.append(" ORDER BY r.id");
+        stream("registrations", sql.toString(), args, format, out);
+    }
+
+    /**
+     * 导出患者档案（按档案ID顺序）；默认仅未删除患者
+     */
+    public void exportPatients(boolean includeInactive, ExportFormat format, OutputStream out) {
+        String sql = PATIENT_SQL + (includeInactive ? "" : " AND p.is_active") + " ORDER BY p.id";
+        stream("patients", sql, List.of(), format, out);
+    }
+
+    private void stream(String name, String sql, List<Object> args, ExportFormat format, OutputStream out) {
+        long started = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == ExportFormat.NDJSON ? new NdjsonRowWriter(writer) : new CsvRowWriter(writer);
+        long[] rows = new long[1];
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> jdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> {
+                try {
+                    // 即使没有数据行也先写出表头
+                    rowWriter.begin(rs.getMetaData());
+                    while (rs.next()) {
+                        rowWriter.write(rs);
+                        if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                            writer.flush();
+                        }
+                    }
+                    return null;
+                } catch (IOException ex) {
+                    // 客户端断开：中止查询，事务回滚并归还连接
+                    throw new UncheckedIOException(ex);
+                }
+            }, args.toArray()));
+            writer.flush();
+            log.info("exported {} {} rows as {} in {} ms", rows[0], name, format, System.currentTimeMillis() - started);
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("export of {} aborted after {} rows: {}", name, rows[0], ex.getMessage());
+        }
+    }
+
+    // ============ 行输出 ============
+
+    private interface RowWriter {
+        void begin(ResultSetMetaData meta) throws SQLException, IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * CSV：首行为列名；含逗号、引号、换行的字段加引号，以 = + - @ 开头的文本加前导单引号，防止表格软件按公式执行
+     */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private int columns;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(ResultSetMetaData meta) throws SQLException, IOException {
+            columns = meta.getColumnCount();
+            writer.write('\uFEFF'); // BOM，Excel 据此按 UTF-8 识别中文
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writer.write(meta.getColumnLabel(i));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i);
+                if (value != null) {
+                    writer.write(escape(value instanceof String s ? s : format(value), value instanceof String));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(String s, boolean text) {
+            if (text && !s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0) {
+                s = "'" + s;
+            }
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                return '"' + s.replace("\"", "\"\"") + '"';
+            }
+            return s;
+        }
+    }
+
+    /**
+     * NDJSON：每行一个 JSON 对象，键为列名，数字与布尔值保留原类型
+     */
+    private final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private String[] labels;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(ResultSetMetaData meta) throws SQLException {
+            labels = new String[meta.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = meta.getColumnLabel(i + 1);
+            }
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            // 每行单独创建生成器：关闭时不关闭底层输出流
+            JsonGenerator gen = objectMapper.getFactory().createGenerator(writer);
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartObject();
+            for (int i = 0; i < labels.length; i++) {
+                Object value = rs.getObject(i + 1);
+                gen.writeFieldName(labels[i]);
+                if (value == null) {
+                    gen.writeNull();
+                } else if (value instanceof Boolean b) {
+                    gen.writeBoolean(b);
+                } else if (value instanceof Integer n) {
+                    gen.writeNumber(n);
+                } else if (value instanceof Long n) {
+                    gen.writeNumber(n);
+                } else if (value instanceof String s) {
+                    gen.writeString(s);
+                } else {
+                    gen.writeString(format(value));
+                }
+            }
+            gen.writeEndObject();
+            gen.close();
+            writer.write('\n');
+        }
+    }
+
+    // 日期时间按 ISO-8601 输出（与接口中的 LocalDate / LocalDateTime 一致）
+    private static String format(Object value) {
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime().toString();
+        }
+        if (value instanceof Date d) {
+            return d.toLocalDate().toString();
+        }
+        return value.toString();
+    }
+}
@@ -10,7 +10,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,11 +21,10 @@ public class DepartmentService {
 
     private final DepartmentRepository departmentRepository;
     private final DiseaseRepository diseaseRepository;
+    private final CatalogCache catalogCache;
 
     public List<DepartmentDTO> getAllDepartments() {
-        return departmentRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(departmentRepository.findAll());
     }
 
     public DepartmentDTO getDepartmentById(Long id) {
@@ -58,6 +59,8 @@ public class DepartmentService {
             }).collect(Collectors.toList());
             diseaseRepository.saveAll(toSave);
         }
+        catalogCache.evictDepartments();
+        catalogCache.evictDepartmentDiseases(saved.getId());
 
         // 返回包含疾病列表的 DTO
         return convertToDTO(departmentRepository.findById(saved.getId()).orElse(saved));
@@ -74,14 +77,25 @@ public class DepartmentService {
             throw new IllegalArgumentException("科室名称已存在: " + dto.getDepartmentName());
         }
 
+        boolean renamed = !department.getDepartmentName().equals(dto.getDepartmentName());
         department.setDepartmentName(dto.getDepartmentName());
         Department updated = departmentRepository.save(department);
 
+        // 目录缓存失效：科室名出现在科室、疾病、医生列表中
+        catalogCache.evictDepartments();
+        catalogCache.evictDepartmentDiseases(id);
+        catalogCache.evictDepartmentDoctors(id);
+        if (renamed) {
+            // 本科室医生可能出现在任意疾病的医生列表中，无法按键定位
+            catalogCache.clear(CatalogCache.DISEASE_DOCTORS);
+        }
+
         // 可选：如果前端提供 diseases，则更新该科室的疾病集合（简单策略：删除旧的再插入新的）
         if (dto.getDiseases() != null) {
             // 先删除该科室所有疾病
             List<Disease> existing = diseaseRepository.findByDepartmentId(id);
             if (!existing.isEmpty()) {
+                catalogCache.evictDiseaseDoctors(existing.stream().map(Disease::getId).collect(Collectors.toList()));
                 diseaseRepository.deleteAll(existing);
                 diseaseRepository.flush();
             }
@@ -110,27 +124,46 @@ public class DepartmentService {
         }
 
         departmentRepository.deleteById(id);
+        catalogCache.evictDepartments();
+        catalogCache.evictDepartmentDiseases(id);
+        catalogCache.evictDepartmentDoctors(id);
     }
 
     private DepartmentDTO convertToDTO(Department department) {
-        DepartmentDTO dto = new DepartmentDTO();
-        dto.setId(department.getId());
-        dto.setDepartmentName(department.getDepartmentName());
-
-        // 填充该科室的疾病列表
-        List<Disease> diseases = diseaseRepository.findByDepartmentId(department.getId());
-        List<DiseaseDTO> diseaseDTOs = diseases.stream().map(d -> {
-            DiseaseDTO dd = new DiseaseDTO();
-            dd.setId(d.getId());
-            dd.setName(d.getName());
-            dd.setCode(d.getCode());
-            dd.setDescription(d.getDescription());
-            dd.setDepartmentId(d.getDepartment().getId());
-            dd.setDepartmentName(d.getDepartment().getDepartmentName());
-            return dd;
+        return convertToDTOs(List.of(department)).get(0);
+    }
+
+    /**
+     * 批量转换：所有科室的疾病由一条查询取回后在内存中按科室分组，
+     * SQL 条数与科室数量无关。
+     */
+    private List<DepartmentDTO> convertToDTOs(List<Department> departments) {
+        if (departments.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> departmentIds = departments.stream().map(Department::getId).collect(Collectors.toList());
+        Map<Long, List<DiseaseDTO>> diseasesByDepartment = diseaseRepository.findByDepartmentIdIn(departmentIds).stream()
+                .collect(Collectors.groupingBy(d -> d.getDepartment().getId(),
+                        Collectors.mapping(this::convertToDiseaseDTO, Collectors.toList())));
+
+        return departments.stream().map(department -> {
+            DepartmentDTO dto = new DepartmentDTO();
+            dto.setId(department.getId());
+            dto.setDepartmentName(department.getDepartmentName());
+            // 填充该科室的疾病列表
+            dto.setDiseases(diseasesByDepartment.getOrDefault(department.getId(), new ArrayList<>()));
+            return dto;
         }).collect(Collectors.toList());
-        dto.setDiseases(diseaseDTOs);
+    }
 
-        return dto;
+    private DiseaseDTO convertToDiseaseDTO(Disease d) {
+        DiseaseDTO dd = new DiseaseDTO();
+        dd.setId(d.getId());
+        dd.setName(d.getName());
+        dd.setCode(d.getCode());
+        dd.setDescription(d.getDescription());
+        dd.setDepartmentId(d.getDepartment().getId());
+        dd.setDepartmentName(d.getDepartment().getDepartmentName());
+        return dd;
     }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.repository.DiseaseRepository;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 疾病检索的内存索引（患者输入联想）。
+ * 以字典树（trie）索引每个疾病的：名称的所有后缀（输入名称中任意连续片段即可命中）、疾病代码前缀、
+ * 全拼（从每个音节起的后缀，如 “weiyan” 命中“慢性胃炎”）与拼音首字母（如 “mxwy”、“wy”）。
+ * 查询只沿输入字符走到对应节点并对命中的少量疾病排序，不访问数据库。
+ * <p>
+ * 启动时从 disease 表全量构建；疾病与科室的写操作会失效目录缓存（{@link CatalogCache}），
+ * 索引监听同一失效事件并在后台整体重建，因此集群内所有节点都会同步更新。
+ * 重建期间查询继续使用旧索引，新索引构建完成后整体替换。
+ */
+@Component
+public class DiseaseSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DiseaseSearchIndex.class);
+
+    // 多音字的读音组合上限，避免长名称组合爆炸
+    private static final int MAX_PINYIN_VARIANTS = 4;
+
+    private static final HanyuPinyinOutputFormat PINYIN_FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        PINYIN_FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        PINYIN_FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        PINYIN_FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    /**
+     * 检索结果：疾病及所属科室
+     */
+    public record Entry(Long id, String name, String code, Long departmentId, String departmentName) {
+    }
+
+    /**
+     * 已建索引的疾病：名称、代码与拼音均已规范化，用于排序
+     */
+    private record Doc(Entry entry, String name, String code, List<String> pinyins, List<String> initials) {
+    }
+
+    /**
+     * 字典树节点；entries 为经过该节点的疾病下标（升序、去重），构建完成后只读
+     */
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        int[] entries = new int[2];
+        int size;
+
+        void add(int doc) {
+            // 同一疾病的各个键连续插入，只需与末尾比较即可去重
+            if (size > 0 && entries[size - 1] == doc) {
+                return;
+            }
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = doc;
+        }
+
+        void trim() {
+            entries = Arrays.copyOf(entries, size);
+            for (Node child : children.values()) {
+                child.trim();
+            }
+        }
+    }
+
+    private record Snapshot(Node root, List<Doc> docs) {
+    }
+
+    private final DiseaseRepository diseaseRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(new Node(), List.of());
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("disease-index-rebuild").factory());
+
+    public DiseaseSearchIndex(DiseaseRepository diseaseRepository, ClusterEventBus eventBus) {
+        this.diseaseRepository = diseaseRepository;
+        eventBus.on(ClusterEventBus.CACHE_EVICT, data -> onCatalogChanged(data.path("cache").asText()));
+        eventBus.on(ClusterEventBus.CACHE_CLEAR, data -> onCatalogChanged(data.path("cache").asText()));
+        eventBus.onResync(this::requestRebuild);
+    }
+
+    // 疾病增删改失效科室疾病列表，科室改名/删除失效科室列表，二者都影响索引内容
+    private void onCatalogChanged(String cacheName) {
+        if (CatalogCache.DEPARTMENT_DISEASES.equals(cacheName) || CatalogCache.DEPARTMENTS.equals(cacheName)) {
+            requestRebuild();
+        }
+    }
+
+    /**
+     * 请求后台重建；一次事务内的多次失效只触发一次重建
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    /**
+     * 从 disease 表全量构建并整体替换索引；失败时保留旧索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Disease> diseases = diseaseRepository.findAllWithDepartment();
+            Node root = new Node();
+            List<Doc> docs = new ArrayList<>(diseases.size());
+            for (Disease disease : diseases) {
+                Doc doc = toDoc(disease);
+                int index = docs.size();
+                docs.add(doc);
+                for (String key : keysOf(doc)) {
+                    insert(root, key, index);
+                }
+            }
+            root.trim();
+            snapshot = new Snapshot(root, List.copyOf(docs));
+        } catch (RuntimeException ex) {
+            log.warn("failed to rebuild disease search index, keeping previous one: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 按名称片段、代码前缀、全拼或拼音首字母检索疾病，最多返回 limit 条。
+     * 排序：名称/代码完全一致 > 名称/代码前缀 > 拼音前缀 > 其余片段命中；同级按名称长度、ID。
+     */
+    public List<Entry> search(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Snapshot s = snapshot;
+        Node node = s.root();
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null || node.size == 0) {
+            return List.of();
+        }
+        List<Doc> hits = new ArrayList<>(node.size);
+        for (int i = 0; i < node.size; i++) {
+            hits.add(s.docs().get(node.entries[i]));
+        }
+        hits.sort(Comparator.<Doc>comparingInt(d -> rank(d, key))
+                .thenComparingInt(d -> d.name().length())
+                .thenComparing(d -> d.entry().id()));
+        return hits.stream().limit(limit).map(Doc::entry).toList();
+    }
+
+    public int size() {
+        return snapshot.docs().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    // ============ 构建辅助 ============
+
+    private static Doc toDoc(Disease disease) {
+        String name = normalize(disease.getName());
+        String code = normalize(disease.getCode());
+        List<String> pinyins = new ArrayList<>();
+        List<String> initials = new ArrayList<>();
+        for (List<String> syllables : pinyinVariants(name)) {
+            StringBuilder full = new StringBuilder();
+            StringBuilder first = new StringBuilder();
+            for (String syllable : syllables) {
+                full.append(syllable);
+                first.append(syllable.charAt(0));
+            }
+            pinyins.add(full.toString());
+            initials.add(first.toString());
+        }
+        Entry entry = new Entry(disease.getId(), disease.getName(), disease.getCode(),
+                disease.getDepartment().getId(), disease.getDepartment().getDepartmentName());
+        return new Doc(entry, name, code, pinyins, initials);
+    }
+
+    private static Set<String> keysOf(Doc doc) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < doc.name().length(); i++) {
+            keys.add(doc.name().substring(i));
+        }
+        if (!doc.code().isEmpty()) {
+            keys.add(doc.code());
+        }
+        for (List<String> syllables : pinyinVariants(doc.name())) {
+            // 从每个音节开始的全拼后缀与首字母后缀
+            StringBuilder full = new StringBuilder();
+            StringBuilder first = new StringBuilder();
+            for (int i = syllables.size() - 1; i >= 0; i--) {
+                full.insert(0, syllables.get(i));
+                first.insert(0, syllables.get(i).charAt(0));
+                keys.add(full.toString());
+                keys.add(first.toString());
+            }
+        }
+        return keys;
+    }
+
+    private static void insert(Node root, String key, int doc) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            node.add(doc);
+        }
+    }
+
+    /**
+     * 名称的拼音音节序列；汉字取各个读音（多音字组合不超过上限），其他字符原样作为一个“音节”
+     */
+    private static List<List<String>> pinyinVariants(String name) {
+        List<List<String>> variants = new ArrayList<>();
+        variants.add(new ArrayList<>());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            List<String> readings = readings(c);
+            List<List<String>> next = new ArrayList<>();
+            for (List<String> prefix : variants) {
+                for (String reading : readings) {
+                    if (next.size() >= MAX_PINYIN_VARIANTS) {
+                        break;
+                    }
+                    List<String> extended = new ArrayList<>(prefix);
+                    extended.add(reading);
+                    next.add(extended);
+                }
+            }
+            variants = next;
+        }
+        return variants;
+    }
+
+    private static List<String> readings(char c) {
+        if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+            try {
+                String[] pinyins = PinyinHelper.toHanyuPinyinStringArray(c, PINYIN_FORMAT);
+                if (pinyins != null && pinyins.length > 0) {
+                    return new ArrayList<>(new LinkedHashSet<>(Arrays.asList(pinyins)));
+                }
+            } catch (BadHanyuPinyinOutputFormatCombination ex) {
+                // 输出格式为固定配置，不会发生
+            }
+        }
+        return List.of(String.valueOf(c));
+    }
+
+    private static int rank(Doc doc, String key) {
+        if (doc.name().equals(key) || doc.code().equals(key)) {
+            return 0;
+        }
+        if (doc.name().startsWith(key) || (!doc.code().isEmpty() && doc.code().startsWith(key))) {
+            return 1;
+        }
+        for (int i = 0; i < doc.pinyins().size(); i++) {
+            if (doc.pinyins().get(i).startsWith(key) || doc.initials().get(i).startsWith(key)) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    // 小写并去掉空白，输入 “man xing” 与 “manxing” 等价
+    private static String normalize(String s) {
+        if (s == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
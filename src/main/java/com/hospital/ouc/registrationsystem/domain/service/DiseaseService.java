@@ -18,9 +18,10 @@ public class DiseaseService {
 
     private final DiseaseRepository diseaseRepository;
     private final DepartmentRepository departmentRepository;
+    private final CatalogCache catalogCache;
 
     public List<DiseaseDTO> getAllDiseases() {
-        return diseaseRepository.findAll().stream()
+        return diseaseRepository.findAllWithDepartment().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -56,6 +57,7 @@ public class DiseaseService {
                 .build();
 
         Disease saved = diseaseRepository.save(disease);
+        catalogCache.evictDepartmentDiseases(department.getId());
         return convertToDTO(saved);
     }
 
@@ -63,6 +65,7 @@ public class DiseaseService {
     public DiseaseDTO updateDisease(Long id, DiseaseDTO dto) {
         Disease disease = diseaseRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("疾病不存在: " + id));
+        Long oldDepartmentId = disease.getDepartment().getId();
 
         // 仅在DTO中存在code且与原有值不同时才校验并更新
         if (dto.getCode() != null && !dto.getCode().equals(disease.getCode())) {
@@ -90,13 +93,19 @@ public class DiseaseService {
         }
 
         Disease updated = diseaseRepository.save(disease);
+        // 原科室与新科室（可能相同）的疾病列表均失效
+        catalogCache.evictDepartmentDiseases(oldDepartmentId);
+        catalogCache.evictDepartmentDiseases(updated.getDepartment().getId());
         return convertToDTO(updated);
     }
 
     @Transactional
     public void deleteDisease(Long id) {
         // 可以根据实际业务添加关联检查，如是否有医生关联该疾病等
+        diseaseRepository.findById(id)
+                .ifPresent(d -> catalogCache.evictDepartmentDiseases(d.getDepartment().getId()));
         diseaseRepository.deleteById(id);
+        catalogCache.evictDiseaseDoctors(id);
     }
 
     private DiseaseDTO convertToDTO(Disease disease) {
@@ -0,0 +1,57 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorDiseaseRepository;
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorDiseaseView;
+import com.hospital.ouc.registrationsystem.web.dto.DiseaseDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 医生关联数据批量加载器：一次查询取回一批医生的“疾病 + 所属科室”，
+ * 供管理端医生列表、患者端医生总览、医生个人信息等处共用，
+ * 一页医生的组装 SQL 条数与医生数量无关。
+ */
+@Component
+public class DoctorAssociationLoader {
+
+    private final DoctorDiseaseRepository doctorDiseaseRepository;
+
+    public DoctorAssociationLoader(DoctorDiseaseRepository doctorDiseaseRepository) {
+        this.doctorDiseaseRepository = doctorDiseaseRepository;
+    }
+
+    /**
+     * 按医生档案ID分组返回其可诊疗的疾病；没有关联的医生不在结果中。
+     */
+    public Map<Long, List<DiseaseDTO>> loadDiseases(Collection<Long> doctorProfileIds) {
+        if (doctorProfileIds == null || doctorProfileIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return doctorDiseaseRepository.findViewsByDoctorProfileIdIn(doctorProfileIds).stream()
+                .collect(Collectors.groupingBy(DoctorDiseaseView::getDoctorProfileId,
+                        Collectors.mapping(this::toDiseaseDTO, Collectors.toList())));
+    }
+
+    /**
+     * 单个医生的疾病列表
+     */
+    public List<DiseaseDTO> loadDiseases(Long doctorProfileId) {
+        return loadDiseases(List.of(doctorProfileId)).getOrDefault(doctorProfileId, List.of());
+    }
+
+    private DiseaseDTO toDiseaseDTO(DoctorDiseaseView v) {
+        DiseaseDTO dto = new DiseaseDTO();
+        dto.setId(v.getDiseaseId());
+        dto.setName(v.getDiseaseName());
+        dto.setCode(v.getDiseaseCode());
+        dto.setDescription(v.getDiseaseDescription());
+        dto.setDepartmentId(v.getDepartmentId());
+        dto.setDepartmentName(v.getDepartmentName());
+        return dto;
+    }
+}
@@ -0,0 +1,366 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorSlotInventory;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorSlotInventoryRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 医生号源可用性内存索引。
+ * 一周 5 个工作日 × 8 个时间段共 40 位，恰好放进一个 long：
+ * 第 (weekday - 1) * 8 + timeslot.ordinal() 位表示对应时段。
+ * 每位医生维护两个掩码：scheduled（有排班）与 free（仍有余号），以及各时段排班所属的科室，
+ * 数据来自今天起 7 天内的号源库存，即每个星期最近一次的就诊日期。
+ * “周二上午谁有号”这类查询只需位运算，不访问数据库。
+ * 增量更新经 {@link ClusterEventBus} 的 slot.* / doctor.* 事件在所有节点上同步执行。
+ * 全量重建期间到达的增量无法判断是否已包含在快照中：取消（-1）在新快照上重放，挂号（+1）不重放，
+ * 偏差只会让某时段显示为“有号”，占号时由条件 UPDATE 兜底，并在下一次重建时纠正。
+ */
+@Component
+public class DoctorAvailabilityIndex {
+
+    public static final int SLOTS_PER_DAY = TimeSlot.values().length;
+    public static final long ALL_SLOTS = (1L << (5 * SLOTS_PER_DAY)) - 1;
+    private static final long DAY_MASK = (1L << SLOTS_PER_DAY) - 1;
+    private static final long AM_MASK = 0x0FL; // AM1..AM4
+    private static final long PM_MASK = 0xF0L; // PM1..PM4
+
+    private final DoctorSlotInventoryRepository inventoryRepository;
+
+    private final Map<Long, DoctorWeek> weeks = new ConcurrentHashMap<>();
+
+    /**
+     * 增量与重建切换互斥；重建之间也互斥（重连同步、科室删除、每日滚动可能同时触发）
+     */
+    private final Object applyLock = new Object();
+    private final Object reloadLock = new Object();
+
+    /**
+     * 重建查询期间收到的增量；为 null 表示当前不在重建
+     */
+    private List<Delta> pendingDuringReload;
+
+    private record Delta(Long doctorProfileId, LocalDate visitDate, TimeSlot slot, int delta) {
+    }
+
+    /**
+     * 索引对应窗口的起始日期（含），窗口长度 7 天
+     */
+    private volatile LocalDate windowStart = LocalDate.now();
+
+    public DoctorAvailabilityIndex(DoctorSlotInventoryRepository inventoryRepository, ClusterEventBus eventBus) {
+        this.inventoryRepository = inventoryRepository;
+        eventBus.on(ClusterEventBus.SLOT_BOOKED, data -> adjust(data, 1));
+        eventBus.on(ClusterEventBus.SLOT_RELEASED, data -> adjust(data, -1));
+        eventBus.on(ClusterEventBus.DOCTOR_SCHEDULE_CHANGED, data -> reloadDoctor(data.path("doctorProfileId").asLong()));
+        eventBus.on(ClusterEventBus.AVAILABILITY_REBUILD, data -> rebuild());
+        eventBus.onResync(this::rebuild);
+    }
+
+    /**
+     * 号源事件负载（挂号、取消共用）
+     */
+    public static Map<String, Object> slotEvent(Long doctorProfileId, LocalDate visitDate, TimeSlot slot) {
+        return Map.of("doctorProfileId", doctorProfileId, "visitDate", visitDate.toString(), "timeslot", slot.name());
+    }
+
+    /**
+     * 单个时段的号源状态
+     */
+    public record SlotState(int booked, int max) {
+        public boolean available() {
+            return booked < max;
+        }
+    }
+
+    /**
+     * 某位医生一周的索引快照（不可变，更新时整体替换）
+     */
+    private record DoctorWeek(long scheduled, long free, int[] booked, int[] max, long[] department) {
+
+        static DoctorWeek empty() {
+            int n = 5 * SLOTS_PER_DAY;
+            return new DoctorWeek(0L, 0L, new int[n], new int[n], new long[n]);
+        }
+
+        DoctorWeek with(int bit, int bookedCount, int maxCount) {
+            return with(bit, bookedCount, maxCount, department[bit]);
+        }
+
+        DoctorWeek with(int bit, int bookedCount, int maxCount, long departmentId) {
+            int[] b = booked.clone();
+            int[] m = max.clone();
+            long[] d = department.clone();
+            b[bit] = bookedCount;
+            m[bit] = maxCount;
+            d[bit] = departmentId;
+            long flag = 1L << bit;
+            long f = bookedCount < maxCount ? (free | flag) : (free & ~flag);
+            return new DoctorWeek(scheduled | flag, f, b, m, d);
+        }
+    }
+
+    // ============ 位运算辅助 ============
+
+    public static int bit(int weekday, TimeSlot slot) {
+        return (weekday - 1) * SLOTS_PER_DAY + slot.ordinal();
+    }
+
+    /**
+     * 构造查询掩码：weekday 为空表示周一到周五；
+     * timeslot 为空表示全天，支持 AM / PM 表示半天，或 AM1..PM4 表示具体时段。
+     */
+    public static long mask(Integer weekday, String timeslot) {
+        long daySlots;
+        if (timeslot == null || timeslot.isBlank()) {
+            daySlots = DAY_MASK;
+        } else if ("AM".equalsIgnoreCase(timeslot.trim())) {
+            daySlots = AM_MASK;
+        } else if ("PM".equalsIgnoreCase(timeslot.trim())) {
+            daySlots = PM_MASK;
+        } else {
+            daySlots = 1L << TimeSlot.fromString(timeslot).ordinal();
+        }
+        if (weekday == null) {
+            long m = 0L;
+            for (int d = 0; d < 5; d++) {
+                m |= daySlots << (d * SLOTS_PER_DAY);
+            }
+            return m;
+        }
+        if (weekday < 1 || weekday > 5) {
+            throw new IllegalArgumentException("星期只能是1-5（周一到周五）");
+        }
+        return daySlots << ((weekday - 1) * SLOTS_PER_DAY);
+    }
+
+    // ============ 查询 ============
+
+    public long scheduledMask(Long doctorProfileId) {
+        DoctorWeek w = weeks.get(doctorProfileId);
+        return w == null ? 0L : w.scheduled();
+    }
+
+    public long freeMask(Long doctorProfileId) {
+        DoctorWeek w = weeks.get(doctorProfileId);
+        return w == null ? 0L : w.free();
+    }
+
+    public boolean hasFreeSlot(Long doctorProfileId, long mask) {
+        return (freeMask(doctorProfileId) & mask) != 0;
+    }
+
+    /**
+     * 某医生某时段（最近一次对应日期）的号源状态，无排班时返回 null。
+     */
+    public SlotState slotState(Long doctorProfileId, int weekday, TimeSlot slot) {
+        DoctorWeek w = weeks.get(doctorProfileId);
+        if (w == null || weekday < 1 || weekday > 5) {
+            return null;
+        }
+        int bit = bit(weekday, slot);
+        if ((w.scheduled() & (1L << bit)) == 0) {
+            return null;
+        }
+        return new SlotState(w.booked()[bit], w.max()[bit]);
+    }
+
+    /**
+     * 候选号源：医生 + 就诊日期 + 时间段，以及该时段剩余号数
+     */
+    public record Candidate(Long doctorProfileId, LocalDate visitDate, TimeSlot timeslot, int remaining) {
+    }
+
+    /**
+     * 在给定医生中查找最早的有余号时段：按日期、时间段先后排列，同一时段内剩余号数多的医生在前。
+     * 只保留排班属于 departmentId 科室的时段，并跳过今天已开始的时段。
+     * 只做位运算与数组读取，不访问数据库；最多返回 limit 个候选，供调用方依次尝试占号。
+     */
+    public List<Candidate> earliestFree(Collection<Long> doctorProfileIds, long departmentId, long mask, int limit) {
+        List<Candidate> result = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        LocalDate from = windowStart;
+        for (int d = 0; d < 7 && result.size() < limit; d++) {
+            LocalDate date = from.plusDays(d);
+            int weekday = date.getDayOfWeek().getValue();
+            if (weekday > 5 || date.isBefore(today)) {
+                continue;
+            }
+            long dayMask = mask & (DAY_MASK << ((weekday - 1) * SLOTS_PER_DAY));
+            if (dayMask == 0) {
+                continue;
+            }
+            for (TimeSlot slot : TimeSlot.values()) {
+                int bit = bit(weekday, slot);
+                if ((dayMask & (1L << bit)) == 0
+                        || (date.equals(today) && !slot.getStart().isAfter(now.toLocalTime()))) {
+                    continue;
+                }
+                List<Candidate> atSlot = new ArrayList<>();
+                for (Long doctorProfileId : doctorProfileIds) {
+                    DoctorWeek w = weeks.get(doctorProfileId);
+                    if (w != null && (w.free() & (1L << bit)) != 0 && w.department()[bit] == departmentId) {
+                        atSlot.add(new Candidate(doctorProfileId, date, slot, w.max()[bit] - w.booked()[bit]));
+                    }
+                }
+                atSlot.sort(Comparator.comparingInt(Candidate::remaining).reversed());
+                for (Candidate c : atSlot) {
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                    result.add(c);
+                }
+            }
+        }
+        return result;
+    }
+
+    public LocalDate getWindowStart() {
+        return windowStart;
+    }
+
+    // ============ 构建与增量更新 ============
+
+    /**
+     * 根据今天起 7 天内的号源库存全量重建索引。
+     */
+    public void rebuild() {
+        synchronized (reloadLock) {
+            startBuffering();
+            try {
+                LocalDate from = LocalDate.now();
+                List<DoctorSlotInventory> rows = inventoryRepository.findBySlotDateBetween(from, from.plusDays(6));
+                Map<Long, DoctorWeek> fresh = new HashMap<>();
+                for (DoctorSlotInventory row : rows) {
+                    Long doctorId = row.getDoctorProfile().getId();
+                    DoctorWeek w = fresh.getOrDefault(doctorId, DoctorWeek.empty());
+                    fresh.put(doctorId, w.with(bit(row.getWeekday(), row.getTimeslot()),
+                            row.getBookedPatients(), row.getMaxPatients(), departmentOf(row)));
+                }
+                synchronized (applyLock) {
+                    windowStart = from;
+                    // 先写入再移除，读者在切换过程中不会看到医生短暂消失
+                    weeks.putAll(fresh);
+                    weeks.keySet().retainAll(fresh.keySet());
+                    replayReleases(null);
+                }
+            } finally {
+                stopBuffering();
+            }
+        }
+    }
+
+    /**
+     * 重新加载单个医生的索引（排班变更后调用）。
+     */
+    public void reloadDoctor(Long doctorProfileId) {
+        synchronized (reloadLock) {
+            startBuffering();
+            try {
+                LocalDate from = windowStart;
+                List<DoctorSlotInventory> rows = inventoryRepository
+                        .findByDoctorProfileIdAndSlotDateBetween(doctorProfileId, from, from.plusDays(6));
+                DoctorWeek w = DoctorWeek.empty();
+                for (DoctorSlotInventory row : rows) {
+                    w = w.with(bit(row.getWeekday(), row.getTimeslot()),
+                            row.getBookedPatients(), row.getMaxPatients(), departmentOf(row));
+                }
+                synchronized (applyLock) {
+                    if (w.scheduled() == 0) {
+                        weeks.remove(doctorProfileId);
+                    } else {
+                        weeks.put(doctorProfileId, w);
+                    }
+                    replayReleases(doctorProfileId);
+                }
+            } finally {
+                stopBuffering();
+            }
+        }
+    }
+
+    private void startBuffering() {
+        synchronized (applyLock) {
+            pendingDuringReload = new ArrayList<>();
+        }
+    }
+
+    private void stopBuffering() {
+        synchronized (applyLock) {
+            pendingDuringReload = null;
+        }
+    }
+
+    // 在新快照上重放查询期间的取消；doctorProfileId 为 null 表示全部医生。须持有 applyLock
+    private void replayReleases(Long doctorProfileId) {
+        for (Delta d : pendingDuringReload) {
+            if (d.delta() < 0 && (doctorProfileId == null || doctorProfileId.equals(d.doctorProfileId()))) {
+                applyDelta(d.doctorProfileId(), d.visitDate(), d.slot(), d.delta());
+            }
+        }
+    }
+
+    // 号源行的科室可能为空（历史数据），以 0 表示，不会匹配任何科室
+    private static long departmentOf(DoctorSlotInventory row) {
+        return row.getDepartment() == null ? 0L : row.getDepartment().getId();
+    }
+
+    /**
+     * 挂号成功：对应时段已占用数 +1。
+     */
+    public void onBooked(Long doctorProfileId, LocalDate visitDate, TimeSlot slot) {
+        adjust(doctorProfileId, visitDate, slot, 1);
+    }
+
+    /**
+     * 取消挂号：对应时段已占用数 -1。
+     */
+    public void onReleased(Long doctorProfileId, LocalDate visitDate, TimeSlot slot) {
+        adjust(doctorProfileId, visitDate, slot, -1);
+    }
+
+    private void adjust(JsonNode data, int delta) {
+        adjust(data.path("doctorProfileId").asLong(), LocalDate.parse(data.path("visitDate").asText()),
+                TimeSlot.valueOf(data.path("timeslot").asText()), delta);
+    }
+
+    private void adjust(Long doctorProfileId, LocalDate visitDate, TimeSlot slot, int delta) {
+        synchronized (applyLock) {
+            applyDelta(doctorProfileId, visitDate, slot, delta);
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(new Delta(doctorProfileId, visitDate, slot, delta));
+            }
+        }
+    }
+
+    private void applyDelta(Long doctorProfileId, LocalDate visitDate, TimeSlot slot, int delta) {
+        LocalDate from = windowStart;
+        if (visitDate == null || visitDate.isBefore(from) || !visitDate.isBefore(from.plusDays(7))) {
+            return; // 不在索引窗口内的日期不影响索引
+        }
+        int weekday = visitDate.getDayOfWeek().getValue();
+        if (weekday > 5) {
+            return;
+        }
+        int bit = bit(weekday, slot);
+        weeks.computeIfPresent(doctorProfileId, (id, w) -> {
+            if ((w.scheduled() & (1L << bit)) == 0) {
+                return w;
+            }
+            int booked = Math.max(0, w.booked()[bit] + delta);
+            return w.with(bit, booked, w.max()[bit]);
+        });
+    }
+}
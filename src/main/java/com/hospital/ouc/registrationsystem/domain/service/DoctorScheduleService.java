@@ -18,18 +18,22 @@ public class DoctorScheduleService {
 
     private final PatientDoctorRegistrationRepository registrationRepository;
     private final DoctorDepartmentScheduleRepository scheduleRepository;
+    private final SlotInventoryService slotInventoryService;
 
     public DoctorScheduleService(PatientDoctorRegistrationRepository registrationRepository,
-                                 DoctorDepartmentScheduleRepository scheduleRepository) {
+                                 DoctorDepartmentScheduleRepository scheduleRepository,
+                                 SlotInventoryService slotInventoryService) {
         this.registrationRepository = registrationRepository;
         this.scheduleRepository = scheduleRepository;
+        this.slotInventoryService = slotInventoryService;
     }
 
     /**
      * 根据医生工号查询当天排班，工号由登录返回的 doctorId 自动传入。
      */
     public List<DoctorDayScheduleItem> getDaySchedule(String doctorId, Integer weekday) {
-        List<PatientDoctorRegistration> regs = registrationRepository.findByDoctorIdAndWeekday(doctorId, weekday);
+        List<PatientDoctorRegistration> regs = registrationRepository.findByDoctorIdAndWeekday(
+                doctorId, weekday, slotInventoryService.nextDateOf(weekday));
         return regs.stream().map(r -> {
             PatientProfile p = r.getPatientProfile();
             DoctorDayScheduleItem item = new DoctorDayScheduleItem();
@@ -1,5 +1,6 @@
 package com.hospital.ouc.registrationsystem.domain.service;
 
+import com.hospital.ouc.registrationsystem.web.dto.CursorPageDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientQueryDTO;
 import org.springframework.data.domain.Page;
@@ -15,6 +16,11 @@ public interface PatientManagementService {
      */
     Page<PatientDTO> queryPatients(PatientQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询患者：cursor 为空表示首页，sort 支持 id / name，count 为总数统计方式（none/estimate/exact）
+     */
+    CursorPageDTO<PatientDTO> scrollPatients(PatientQueryDTO queryDTO, String cursor, int size, String sort, String count);
+
     /**
      * 根据ID查询患者
      */
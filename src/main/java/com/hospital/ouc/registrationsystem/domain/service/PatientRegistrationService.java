@@ -2,16 +2,24 @@ package com.hospital.ouc.registrationsystem.domain.service;
 
 import com.hospital.ouc.registrationsystem.domain.entity.*;
 import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
+import com.hospital.ouc.registrationsystem.domain.enums.ResultCodeEnum;
 import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus;
 import com.hospital.ouc.registrationsystem.domain.repository.*;
 import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
 import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientRegistrationInfoDTO;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.hospital.ouc.registrationsystem.web.ws.SimpleWebSocketHandler;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,30 +29,93 @@ public class PatientRegistrationService {
     private final DoctorProfileRepository doctorProfileRepository;
     private final DiseaseRepository diseaseRepository;
     private final DoctorDepartmentScheduleRepository scheduleRepository;
+    private final DoctorSlotInventoryRepository inventoryRepository;
+    private final SlotInventoryService slotInventoryService;
     private final DoctorDiseaseRepository doctorDiseaseRepository;
     private final PatientDoctorRegistrationRepository registrationRepository;
-    private final SimpleWebSocketHandler webSocketHandler;
-
-    private static final int DEFAULT_MAX_PER_SLOT = 2;
+    private final ClusterEventBus eventBus;
+    private final RegistrationOutboxService outboxService;
+    private final RegistrationWaitlistRepository waitlistRepository;
+    private final WaitlistMirror waitlistMirror;
+    private final RegistrationIdempotencyStore idempotencyStore;
+    private final RegistrationMetrics metrics;
 
     public PatientRegistrationService(PatientProfileRepository patientProfileRepository,
                                       DoctorProfileRepository doctorProfileRepository,
                                       DiseaseRepository diseaseRepository,
                                       DoctorDepartmentScheduleRepository scheduleRepository,
+                                      DoctorSlotInventoryRepository inventoryRepository,
+                                      SlotInventoryService slotInventoryService,
                                       DoctorDiseaseRepository doctorDiseaseRepository,
                                       PatientDoctorRegistrationRepository registrationRepository,
-                                      SimpleWebSocketHandler webSocketHandler) {
+                                      ClusterEventBus eventBus,
+                                      RegistrationOutboxService outboxService,
+                                      RegistrationWaitlistRepository waitlistRepository,
+                                      WaitlistMirror waitlistMirror,
+                                      RegistrationIdempotencyStore idempotencyStore,
+                                      RegistrationMetrics metrics) {
         this.patientProfileRepository = patientProfileRepository;
         this.doctorProfileRepository = doctorProfileRepository;
         this.diseaseRepository = diseaseRepository;
         this.scheduleRepository = scheduleRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.slotInventoryService = slotInventoryService;
         this.doctorDiseaseRepository = doctorDiseaseRepository;
         this.registrationRepository = registrationRepository;
-        this.webSocketHandler = webSocketHandler;
+        this.eventBus = eventBus;
+        this.outboxService = outboxService;
+        this.waitlistRepository = waitlistRepository;
+        this.waitlistMirror = waitlistMirror;
+        this.idempotencyStore = idempotencyStore;
+        this.metrics = metrics;
     }
 
     @Transactional
     public RegistrationResponseDTO register(RegistrationRequestDTO req) {
+        return register(req, null);
+    }
+
+    /**
+     * 带幂等键的挂号：同一个键的重试直接返回首次的挂号结果，不再执行校验与占号。
+     * 键先于占号在本事务内写入，同一个键的并发请求在键上排队，先到者提交后，后到者读取其结果。
+     * 挂号失败（事务回滚）时键随之回滚，客户端可用同一个键重试。
+     */
+    @Transactional
+    public RegistrationResponseDTO register(RegistrationRequestDTO req, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            RegistrationResponseDTO previous = idempotencyStore.find(idempotencyKey, req.getPatientProfileId());
+            if (previous != null) {
+                return previous;
+            }
+            if (!idempotencyStore.claim(idempotencyKey, req.getPatientProfileId())) {
+                Long registrationId = idempotencyStore.findRegistrationId(idempotencyKey, req.getPatientProfileId());
+                if (registrationId == null) {
+                    throw new RuntimeException("该请求正在处理中，请稍后重试");
+                }
+                RegistrationResponseDTO resp = registrationRepository.findById(registrationId)
+                        .map(this::convertToResponseDTO)
+                        .orElseThrow(() -> new RuntimeException("挂号记录不存在"));
+                idempotencyStore.remember(idempotencyKey, req.getPatientProfileId(), resp);
+                return resp;
+            }
+        }
+        RegistrationResponseDTO resp = metrics.timeRegistration("register", () -> doRegister(req));
+        if (idempotencyKey != null) {
+            idempotencyStore.complete(idempotencyKey, req.getPatientProfileId(), resp);
+        }
+        return resp;
+    }
+
+    /**
+     * 自动分配挂号的单次占号尝试：校验与占号同 {@link #register}，但不计入挂号耗时与被拒指标，
+     * 由 {@link AutoRegistrationService} 按整个请求统计。
+     */
+    @Transactional
+    public RegistrationResponseDTO registerCandidate(RegistrationRequestDTO req) {
+        return doRegister(req);
+    }
+
+    private RegistrationResponseDTO doRegister(RegistrationRequestDTO req) {
         PatientProfile patient = patientProfileRepository.findById(req.getPatientProfileId())
                 .orElseThrow(() -> new RuntimeException("患者不存在"));
         DoctorProfile doctor = doctorProfileRepository.findById(req.getDoctorProfileId())
@@ -52,52 +123,68 @@ public class PatientRegistrationService {
         Disease disease = diseaseRepository.findById(req.getDiseaseId())
                 .orElseThrow(() -> new RuntimeException("疾病不存在"));
 
-        // 校验医生是否能诊疗该疾病
-        if (!doctorDiseaseRepository.existsByDoctorProfileIdAndDiseaseId(doctor.getId(), disease.getId())) {
-            throw new RuntimeException("该医生不支持此疾病");
-        }
-
-        // 校验排班是否匹配
         TimeSlot slot = TimeSlot.valueOf(req.getTimeslot());
-        List<DoctorDepartmentSchedule> schedules = scheduleRepository.findByDoctorProfileIdAndWeekday(doctor.getId(), req.getWeekday());
-        DoctorDepartmentSchedule targetSchedule = schedules.stream()
-                .filter(s -> s.getTimeslot() == slot)
-                .findFirst()
-                .orElse(null);
-        if (targetSchedule == null) {
-            throw new RuntimeException("该医生在所选时段无排班");
-        }
+        LocalDate visitDate = slotInventoryService.resolveVisitDate(req.getWeekday(), req.getVisitDate());
+        int weekday = visitDate.getDayOfWeek().getValue();
+        SlotAvailabilityView target = resolveSlot(doctor, disease, slot, visitDate);
 
-        int max = targetSchedule.getMaxPatientsPerSlot() != null ? targetSchedule.getMaxPatientsPerSlot() : DEFAULT_MAX_PER_SLOT;
-        long current = registrationRepository.countByDoctorProfileIdAndWeekdayAndTimeslotAndStatusIn(
-                doctor.getId(),
-                req.getWeekday(),
-                slot,
-                List.of(RegistrationStatus.PAID, RegistrationStatus.PENDING, RegistrationStatus.COMPLETED)
-        );
-        if (current >= max) {
-            throw new RuntimeException("该时段号源已满");
+        // 原子占号：容量校验与扣减由一条条件 UPDATE 完成，避免“先查后插”在并发下超卖
+        if (inventoryRepository.tryReserve(target.getInventoryId()) == 0) {
+            throw new BusinessException(ResultCodeEnum.SLOT_FULL);
         }
 
         PatientDoctorRegistration registration = PatientDoctorRegistration.builder()
                 .patientProfile(patient)
                 .doctorProfile(doctor)
                 .disease(disease)
-                .weekday(req.getWeekday())
+                .weekday(weekday)
                 .timeslot(slot)
+                .visitDate(visitDate)
+                .slotInventory(inventoryRepository.getReferenceById(target.getInventoryId()))
                 .status(RegistrationStatus.PAID) // 直接设为已支付/已确认
                 .build();
-        PatientDoctorRegistration saved = registrationRepository.save(registration);
+        PatientDoctorRegistration saved;
+        try {
+            saved = registrationRepository.save(registration);
+        } catch (DataIntegrityViolationException ex) {
+            // 唯一索引 (patient_profile_id, slot_inventory_id) WHERE status <> 'CANCELLED'：同一患者同一号源只能有一条有效挂号
+            throw new BusinessException(ResultCodeEnum.DUPLICATE_REGISTRATION);
+        }
+        // 事务提交后同步各节点的可用性索引
+        eventBus.publish(ClusterEventBus.SLOT_BOOKED, DoctorAvailabilityIndex.slotEvent(doctor.getId(), visitDate, slot));
 
-        RegistrationResponseDTO resp = new RegistrationResponseDTO();
-        resp.setId(saved.getId());
-        resp.setPatientProfileId(patient.getId());
-        resp.setDoctorProfileId(doctor.getId());
-        resp.setDiseaseId(disease.getId());
-        resp.setWeekday(saved.getWeekday());
-        resp.setTimeslot(saved.getTimeslot().name());
-        resp.setStatus(saved.getStatus().name());
-        return resp;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("doctorId", doctor.getDoctorId());
+        payload.put("appointmentId", saved.getId());
+        payload.put("patientId", patient.getId());
+        payload.put("visitDate", visitDate.toString());
+        payload.put("timeslot", slot.name());
+        outboxService.append(RegistrationOutboxService.APPOINTMENT_BOOKED, saved.getId(), topicsOf(saved), payload);
+
+        return convertToResponseDTO(saved);
+    }
+
+    /**
+     * 校验诊疗关系与排班：与疾病排班表共用同一条可用性查询，
+     * 一次取回“医生能诊疗该疾病 + 在疾病所属科室有该时段排班 + 对应日期号源行”。
+     * 挂号与加入候补共用。
+     */
+    public SlotAvailabilityView resolveSlot(DoctorProfile doctor, Disease disease, TimeSlot slot, LocalDate visitDate) {
+        int weekday = visitDate.getDayOfWeek().getValue();
+        SlotAvailabilityView target = scheduleRepository.findSlotAvailability(
+                        disease.getId(), disease.getDepartment().getId(), doctor.getId(), weekday, slot, visitDate, visitDate)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> {
+                    if (doctorDiseaseRepository.existsByDoctorProfileIdAndDiseaseId(doctor.getId(), disease.getId())) {
+                        return new BusinessException(ResultCodeEnum.SLOT_NOT_SCHEDULED);
+                    }
+                    return new BusinessException(ResultCodeEnum.DISEASE_NOT_SUPPORTED);
+                });
+        if (target.getInventoryId() == null) {
+            throw new BusinessException(ResultCodeEnum.SLOT_NOT_SCHEDULED);
+        }
+        return target;
     }
 
     // 新增：获取指定患者的挂号记录列表
@@ -110,6 +197,10 @@ public class PatientRegistrationService {
     // 新增：取消挂号（仅允许患者本人取消，将状态设置为 CANCELLED）
     @Transactional
     public void cancelRegistration(Long registrationId, Long patientProfileId) {
+        metrics.time("cancel", () -> doCancel(registrationId, patientProfileId));
+    }
+
+    private void doCancel(Long registrationId, Long patientProfileId) {
         PatientDoctorRegistration reg = registrationRepository.findByIdAndPatientProfileId(registrationId, patientProfileId)
                 .orElseThrow(() -> new RuntimeException("挂号记录不存在或不属于当前患者"));
 
@@ -117,24 +208,101 @@ public class PatientRegistrationService {
             return; // 已取消，幂等
         }
 
-        reg.setStatus(RegistrationStatus.CANCELLED);
-        registrationRepository.save(reg);
-        // 广播取消事件给所有已连接的客户端（医生端会监听并处理）
-        try {
-            var payload = new java.util.HashMap<String, Object>();
-            payload.put("type", "appointment_cancelled");
-            payload.put("doctorId", reg.getDoctorProfile().getDoctorId());
-            payload.put("appointmentId", reg.getId());
-            payload.put("patientId", reg.getPatientProfile().getId());
-            payload.put("canceledAt", java.time.LocalDateTime.now().toString());
-            String msg = new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(payload);
-            webSocketHandler.broadcast(msg);
-        } catch (Exception ex) {
-            // ignore websocket broadcast errors
+        // 条件更新状态：并发重复取消时只有一个请求能成功，从而只释放一次号源
+        if (registrationRepository.cancelIfActive(reg.getId()) == 0) {
+            return;
+        }
+        if (reg.getSlotInventory() != null) {
+            Long inventoryId = reg.getSlotInventory().getId();
+            inventoryRepository.release(inventoryId);
+            eventBus.publish(ClusterEventBus.SLOT_RELEASED, DoctorAvailabilityIndex.slotEvent(
+                    reg.getDoctorProfile().getId(), reg.getVisitDate(), reg.getTimeslot()));
+            // 释放出的号源在同一事务内由候补队首递补；绝大多数号源没有候补，先查内存镜像跳过候补表查询
+            if (waitlistMirror.mayHaveWaiters(inventoryId)) {
+                promoteWaitlistHead(inventoryId);
+            }
         }
+        // 取消事件写入发件箱，与状态变更一同提交，由中继推送给该医生、该患者以及所属科室的订阅者
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("doctorId", reg.getDoctorProfile().getDoctorId());
+        payload.put("appointmentId", reg.getId());
+        payload.put("patientId", reg.getPatientProfile().getId());
+        payload.put("canceledAt", LocalDateTime.now().toString());
+        outboxService.append(RegistrationOutboxService.APPOINTMENT_CANCELLED, reg.getId(), topicsOf(reg), payload);
+    }
+
+    /**
+     * 候补递补：锁定该号源行的候补队首，占号并生成挂号记录，通过发件箱通知该患者。
+     * 号源已被并发挂号抢占或已停止放号时，候补保持原状。返回是否递补成功。
+     */
+    @Transactional
+    public boolean promoteWaitlistHead(Long inventoryId) {
+        RegistrationWaitlist head = waitlistRepository.lockHead(inventoryId).orElse(null);
+        // 候补期间已自行挂到该号源的患者不再递补，顺延到下一位
+        while (head != null && registrationRepository.existsByPatientProfileIdAndSlotInventoryIdAndStatusNot(
+                head.getPatientProfile().getId(), inventoryId, RegistrationStatus.CANCELLED)) {
+            head.setStatus(WaitlistStatus.CANCELLED);
+            waitlistMirror.changed(inventoryId, -1);
+            head = waitlistRepository.lockHead(inventoryId).orElse(null);
+        }
+        if (head == null || inventoryRepository.tryReserve(inventoryId) == 0) {
+            return false;
+        }
+        DoctorSlotInventory inventory = head.getSlotInventory();
+        PatientDoctorRegistration saved = registrationRepository.save(PatientDoctorRegistration.builder()
+                .patientProfile(head.getPatientProfile())
+                .doctorProfile(head.getDoctorProfile())
+                .disease(head.getDisease())
+                .weekday(inventory.getWeekday())
+                .timeslot(inventory.getTimeslot())
+                .visitDate(inventory.getSlotDate())
+                .slotInventory(inventory)
+                .status(RegistrationStatus.PAID)
+                .build());
+        head.setStatus(WaitlistStatus.PROMOTED);
+        head.setRegistration(saved);
+        head.setPromotedAt(LocalDateTime.now());
+        waitlistMirror.changed(inventoryId, -1);
+        eventBus.publish(ClusterEventBus.SLOT_BOOKED, DoctorAvailabilityIndex.slotEvent(
+                saved.getDoctorProfile().getId(), saved.getVisitDate(), saved.getTimeslot()));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("waitlistId", head.getId());
+        payload.put("doctorId", saved.getDoctorProfile().getDoctorId());
+        payload.put("appointmentId", saved.getId());
+        payload.put("patientId", saved.getPatientProfile().getId());
+        payload.put("visitDate", saved.getVisitDate().toString());
+        payload.put("timeslot", saved.getTimeslot().name());
+        outboxService.append(RegistrationOutboxService.WAITLIST_PROMOTED, saved.getId(), topicsOf(saved), payload);
+        return true;
+    }
+
+    // 挂号事件的推送主题：医生、患者、疾病所属科室
+    private static List<String> topicsOf(PatientDoctorRegistration reg) {
+        List<String> topics = new ArrayList<>();
+        topics.add(SimpleWebSocketHandler.doctorTopic(reg.getDoctorProfile().getDoctorId()));
+        topics.add(SimpleWebSocketHandler.patientTopic(reg.getPatientProfile().getId()));
+        if (reg.getDisease() != null && reg.getDisease().getDepartment() != null) {
+            topics.add(SimpleWebSocketHandler.departmentTopic(reg.getDisease().getDepartment().getId()));
+        }
+        return topics;
+    }
+
+    private RegistrationResponseDTO convertToResponseDTO(PatientDoctorRegistration reg) {
+        RegistrationResponseDTO resp = new RegistrationResponseDTO();
+        resp.setId(reg.getId());
+        resp.setPatientProfileId(reg.getPatientProfile().getId());
+        resp.setDoctorProfileId(reg.getDoctorProfile().getId());
+        resp.setDiseaseId(reg.getDisease().getId());
+        resp.setWeekday(reg.getWeekday());
+        resp.setTimeslot(reg.getTimeslot().name());
+        resp.setVisitDate(reg.getVisitDate());
+        resp.setStatus(reg.getStatus().name());
+        return resp;
     }
 
-    private PatientRegistrationInfoDTO convertToInfoDTO(PatientDoctorRegistration reg) {
+    // 包级可见：供 benchmarks 模块的基准测试直接调用
+    PatientRegistrationInfoDTO convertToInfoDTO(PatientDoctorRegistration reg) {
         PatientRegistrationInfoDTO dto = new PatientRegistrationInfoDTO();
         dto.setId(reg.getId());
         dto.setPatientProfileId(reg.getPatientProfile().getId());
@@ -152,6 +320,7 @@ public class PatientRegistrationService {
 
         dto.setWeekday(reg.getWeekday());
         dto.setTimeslot(reg.getTimeslot() != null ? reg.getTimeslot().name() : null);
+        dto.setVisitDate(reg.getVisitDate());
         dto.setStatus(reg.getStatus() != null ? reg.getStatus().name() : null);
         dto.setRegistrationTime(reg.getRegistrationTime());
         return dto;
@@ -4,11 +4,14 @@ import com.hospital.ouc.registrationsystem.domain.entity.*;
 import com.hospital.ouc.registrationsystem.domain.repository.*;
 import com.hospital.ouc.registrationsystem.web.dto.*;
 import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
-import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,9 +23,11 @@ public class PatientScheduleService {
     private final DoctorProfileRepository doctorProfileRepository;
     private final DoctorDiseaseRepository doctorDiseaseRepository;
     private final DoctorDepartmentScheduleRepository scheduleRepository;
-    private final PatientDoctorRegistrationRepository registrationRepository;
-
-    private static final int DEFAULT_MAX_PER_SLOT = 2; // 默认每时段可挂号数量，可后续做配置
+    private final SlotInventoryService slotInventoryService;
+    private final DoctorAvailabilityIndex availabilityIndex;
+    private final DoctorAssociationLoader associationLoader;
+    private final DiseaseSearchIndex diseaseSearchIndex;
+    private final RegistrationMetrics metrics;
 
     public PatientScheduleService(
             DepartmentRepository departmentRepository,
@@ -30,30 +35,57 @@ public class PatientScheduleService {
             DoctorProfileRepository doctorProfileRepository,
             DoctorDiseaseRepository doctorDiseaseRepository,
             DoctorDepartmentScheduleRepository scheduleRepository,
-            PatientDoctorRegistrationRepository registrationRepository) {
+            SlotInventoryService slotInventoryService,
+            DoctorAvailabilityIndex availabilityIndex,
+            DoctorAssociationLoader associationLoader,
+            DiseaseSearchIndex diseaseSearchIndex,
+            RegistrationMetrics metrics) {
         this.departmentRepository = departmentRepository;
         this.diseaseRepository = diseaseRepository;
         this.doctorProfileRepository = doctorProfileRepository;
         this.doctorDiseaseRepository = doctorDiseaseRepository;
         this.scheduleRepository = scheduleRepository;
-        this.registrationRepository = registrationRepository;
+        this.slotInventoryService = slotInventoryService;
+        this.availabilityIndex = availabilityIndex;
+        this.associationLoader = associationLoader;
+        this.diseaseSearchIndex = diseaseSearchIndex;
+        this.metrics = metrics;
     }
 
-    // 获取所有科室
+    // 获取所有科室（目录缓存，由科室管理写操作失效）
+    @Cacheable(cacheNames = CatalogCache.DEPARTMENTS, key = "'" + CatalogCache.ALL_KEY + "'")
     public List<DepartmentDTO> getAllDepartments() {
         return departmentRepository.findAll().stream()
                 .map(this::convertToDepartmentDTO)
                 .collect(Collectors.toList());
     }
 
-    // 根据科室ID获取该科室负责的疾病
+    // 根据科室ID获取该科室负责的疾病（目录缓存）
+    @Cacheable(cacheNames = CatalogCache.DEPARTMENT_DISEASES, key = "#departmentId")
     public List<DiseaseDTO> getDiseasesByDepartment(Long departmentId) {
         return diseaseRepository.findByDepartmentId(departmentId).stream()
                 .map(this::convertToDiseaseDTO)
                 .collect(Collectors.toList());
     }
 
-    // 根据疾病ID获取可以治疗该疾病的医生
+    // 疾病输入联想：按名称片段、代码或拼音检索，只读内存索引，不开启事务、不占用数据库连接
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<DiseaseDTO> searchDiseases(String query, int limit) {
+        return diseaseSearchIndex.search(query, Math.max(1, Math.min(limit, 50))).stream()
+                .map(e -> {
+                    DiseaseDTO dto = new DiseaseDTO();
+                    dto.setId(e.id());
+                    dto.setName(e.name());
+                    dto.setCode(e.code());
+                    dto.setDepartmentId(e.departmentId());
+                    dto.setDepartmentName(e.departmentName());
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // 根据疾病ID获取可以治疗该疾病的医生（目录缓存）
+    @Cacheable(cacheNames = CatalogCache.DISEASE_DOCTORS, key = "#diseaseId")
     public List<DoctorDTO> getDoctorsByDisease(Long diseaseId) {
         List<DoctorDisease> doctorDiseases = doctorDiseaseRepository.findByDiseaseId(diseaseId);
 
@@ -66,55 +98,38 @@ public class PatientScheduleService {
 
     /**
      * 获取某疾病对应医生在本周的排班（timeslot × weekday 交集）。
+     * 排班、医生、科室与号源库存由一条聚合查询取回，SQL 条数不随医生数量增长。
      */
     public List<DiseaseTimetableItemDTO> getDiseaseTimetable(Long diseaseId, Integer weekday) {
+        return metrics.time("timetable", () -> loadDiseaseTimetable(diseaseId, weekday));
+    }
+
+    private List<DiseaseTimetableItemDTO> loadDiseaseTimetable(Long diseaseId, Integer weekday) {
         Disease disease = diseaseRepository.findById(diseaseId)
                 .orElseThrow(() -> new RuntimeException("疾病不存在"));
 
-        // 能诊疗该疾病的医生
-        List<Long> doctorIds = doctorDiseaseRepository.findByDiseaseId(diseaseId).stream()
-                .map(dd -> dd.getDoctorProfile().getId())
-                .collect(Collectors.toList());
-        if (doctorIds.isEmpty()) {
-            return List.of();
-        }
-
-        // 排班查询：若传 weekday 则仅查该天
-        List<DoctorDepartmentSchedule> schedules;
-        if (weekday != null) {
-            schedules = scheduleRepository.findByDoctorProfileIdInAndWeekday(doctorIds, weekday);
-        } else {
-            schedules = scheduleRepository.findByDoctorProfileIdIn(doctorIds);
-        }
-
-        // 只保留科室匹配当前疾病科室的排班
-        Long deptId = disease.getDepartment().getId();
-        schedules = schedules.stream()
-                .filter(s -> s.getDepartment() != null && deptId.equals(s.getDepartment().getId()))
-                .collect(Collectors.toList());
+        // 未来 7 天内每个星期恰好对应一个日期，即各星期最近一次的就诊日期
+        LocalDate from = LocalDate.now();
+        List<SlotAvailabilityView> slots = scheduleRepository.findSlotAvailability(
+                diseaseId, disease.getDepartment().getId(), null, weekday, null, from, from.plusDays(6));
 
-        return schedules.stream()
-                .map(s -> {
-                    DoctorProfile doc = s.getDoctorProfile();
-                    int max = s.getMaxPatientsPerSlot() != null ? s.getMaxPatientsPerSlot() : DEFAULT_MAX_PER_SLOT;
-                    long current = registrationRepository.countByDoctorProfileIdAndWeekdayAndTimeslotAndStatusIn(
-                            doc.getId(),
-                            s.getWeekday(),
-                            s.getTimeslot(),
-                            java.util.List.of(RegistrationStatus.PAID, RegistrationStatus.PENDING, RegistrationStatus.COMPLETED)
-                    );
+        return slots.stream()
+                .map(v -> {
+                    int max = v.getMaxPatients();
+                    int current = v.getBookedPatients();
                     DiseaseTimetableItemDTO dto = new DiseaseTimetableItemDTO();
-                    dto.setDoctorProfileId(doc.getId());
-                    dto.setDoctorId(doc.getDoctorId());
-                    dto.setDoctorName(doc.getName());
-                    dto.setDoctorTitle(doc.getTitle());
-                    dto.setDepartmentName(s.getDepartment() == null ? null : s.getDepartment().getDepartmentName());
-                    dto.setWeekday(s.getWeekday());
-                    dto.setTimeslot(s.getTimeslot().name());
-                    dto.setTimeDescription(getTimeDescription(s.getTimeslot()));
-                    dto.setCurrentPatients((int) current);
+                    dto.setDoctorProfileId(v.getDoctorProfileId());
+                    dto.setDoctorId(v.getDoctorId());
+                    dto.setDoctorName(v.getDoctorName());
+                    dto.setDoctorTitle(v.getDoctorTitle());
+                    dto.setDepartmentName(v.getDepartmentName());
+                    dto.setWeekday(v.getWeekday());
+                    dto.setVisitDate(v.getSlotDate() != null ? v.getSlotDate() : slotInventoryService.nextDateOf(v.getWeekday()));
+                    dto.setTimeslot(v.getTimeslot().name());
+                    dto.setTimeDescription(getTimeDescription(v.getTimeslot()));
+                    dto.setCurrentPatients(current);
                     dto.setMaxPatients(max);
-                    dto.setAvailable(current < max);
+                    dto.setAvailable(v.getInventoryId() != null && current < max);
                     return dto;
                 })
                 .collect(Collectors.toList());
@@ -171,7 +186,8 @@ public class PatientScheduleService {
         return groupedSchedules;
     }
 
-    // 根据科室ID直接获取该科室的医生
+    // 根据科室ID直接获取该科室的医生（目录缓存）
+    @Cacheable(cacheNames = CatalogCache.DEPARTMENT_DOCTORS, key = "#departmentId")
     public List<DoctorDTO> getDoctorsByDepartment(Long departmentId) {
         return doctorProfileRepository.findByDepartmentIdAndIsActiveTrue(departmentId).stream()
                 .map(this::convertToDoctorDTO)
@@ -180,9 +196,11 @@ public class PatientScheduleService {
 
     /**
      * 新增：供患者前端查看医院医生信息。
-     * 可选过滤：departmentId（按科室），diseaseId（只返回能治疗此病的医生）
+     * 可选过滤：departmentId（按科室），diseaseId（只返回能治疗此病的医生），
+     * weekday/timeslot（只返回该时段仍有余号的医生，timeslot 支持 AM、PM 或具体时段）
      */
-    public List<DoctorForPatientDTO> getDoctorsOverview(Long departmentId, Long diseaseId) {
+    public List<DoctorForPatientDTO> getDoctorsOverview(Long departmentId, Long diseaseId,
+                                                        Integer weekday, String timeslot) {
         List<DoctorProfile> doctors;
         if (diseaseId != null) {
             // 找到能治疗该疾病的医生档案（只返回激活的医生）
@@ -204,7 +222,12 @@ public class PatientScheduleService {
             doctors = doctorProfileRepository.findByIsActiveTrue();
         }
 
-        // 为每个 doctor 查找其可治疗的疾病
+        // 先按可用性索引过滤，再一次性批量取回这些医生可治疗的疾病
+        Predicate<Long> hasFreeSlot = availabilityFilter(weekday, timeslot);
+        doctors = doctors.stream().filter(doc -> hasFreeSlot.test(doc.getId())).collect(Collectors.toList());
+        Map<Long, List<DiseaseDTO>> diseasesByDoctor = associationLoader.loadDiseases(
+                doctors.stream().map(DoctorProfile::getId).collect(Collectors.toList()));
+
         return doctors.stream().map(doc -> {
             DoctorForPatientDTO dto = new DoctorForPatientDTO();
             dto.setId(doc.getId());
@@ -218,18 +241,34 @@ public class PatientScheduleService {
                 dto.setDepartmentName(doc.getDepartment().getDepartmentName());
             }
 
-            List<DoctorDisease> doctorDiseases = doctorDiseaseRepository.findByDoctorProfileId(doc.getId());
-            List<DiseaseDTO> diseaseDTOs = doctorDiseases.stream()
-                    .map(dd -> {
-                        Disease d = dd.getDisease();
-                        return convertToDiseaseDTO(d);
-                    })
-                    .collect(Collectors.toList());
-            dto.setDiseases(diseaseDTOs);
+            dto.setDiseases(diseasesByDoctor.getOrDefault(doc.getId(), List.of()));
             return dto;
         }).collect(Collectors.toList());
     }
 
+    /**
+     * 在（缓存的）医生列表上按可用性索引过滤：只保留 weekday/timeslot 对应时段仍有余号的医生。
+     * 余号随挂号实时变化，因此不进入目录缓存，而是在读取缓存后单独过滤。
+     */
+    public List<DoctorDTO> filterByFreeSlot(List<DoctorDTO> doctors, Integer weekday, String timeslot) {
+        Predicate<Long> hasFreeSlot = availabilityFilter(weekday, timeslot);
+        return doctors.stream()
+                .filter(doctor -> hasFreeSlot.test(doctor.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 基于可用性索引的医生过滤条件（参数为医生档案ID）：未指定星期与时段时不过滤，
+     * 否则以位运算判断医生在对应时段是否仍有余号，不访问数据库。
+     */
+    private Predicate<Long> availabilityFilter(Integer weekday, String timeslot) {
+        if (weekday == null && (timeslot == null || timeslot.isBlank())) {
+            return doctorProfileId -> true;
+        }
+        long mask = DoctorAvailabilityIndex.mask(weekday, timeslot);
+        return doctorProfileId -> availabilityIndex.hasFreeSlot(doctorProfileId, mask);
+    }
+
     // 转换方法
     private DepartmentDTO convertToDepartmentDTO(Department department) {
         DepartmentDTO dto = new DepartmentDTO();
@@ -249,7 +288,8 @@ public class PatientScheduleService {
         return dto;
     }
 
-    private DoctorDTO convertToDoctorDTO(DoctorProfile doctor) {
+    // 包级可见：供 benchmarks 模块的基准测试直接调用
+    DoctorDTO convertToDoctorDTO(DoctorProfile doctor) {
         DoctorDTO dto = new DoctorDTO();
         dto.setId(doctor.getId());
         dto.setDoctorId(doctor.getDoctorId());
@@ -273,10 +313,21 @@ public class PatientScheduleService {
         dto.setTimeslot(schedule.getTimeslot());
         dto.setTimeDescription(getTimeDescription(schedule.getTimeslot()));
 
-        // 这里可以根据实际业务统计已挂号人数
-        // 目前先简单设置为0，实际项目中需要查询挂号记录表
-        dto.setCurrentPatients(0);
-        dto.setAvailable(dto.getCurrentPatients() < dto.getMaxPatients());
+        // 已挂号人数取自可用性索引（各星期最近一次就诊日期的号源库存）
+        DoctorAvailabilityIndex.SlotState state = availabilityIndex.slotState(
+                schedule.getDoctorProfile().getId(), schedule.getWeekday(), schedule.getTimeslot());
+        if (state != null) {
+            dto.setCurrentPatients(state.booked());
+            dto.setMaxPatients(state.max());
+            dto.setAvailable(state.available());
+        } else {
+            // 索引中尚无号源行（如刚新增、尚未生成库存），按排班容量展示但不可预约
+            dto.setCurrentPatients(0);
+            if (schedule.getMaxPatientsPerSlot() != null) {
+                dto.setMaxPatients(schedule.getMaxPatientsPerSlot());
+            }
+            dto.setAvailable(false);
+        }
 
         return dto;
     }
@@ -0,0 +1,60 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 基于 PostgreSQL 查询计划的行数估算：对查询执行 EXPLAIN（不实际执行），读取顶层计划的 Plan Rows。
+ * 估算来自 ANALYZE 收集的统计信息，代价与表大小无关，用于游标分页的近似总数。
+ * 查询条件直接取自分页查询所用的 Specification，由 Hibernate 生成 SQL，筛选条件不会与分页查询不一致。
+ */
+@Component
+public class PlannerRowEstimator {
+
+    private static final String EXPLAIN = "EXPLAIN (FORMAT JSON) ";
+
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public PlannerRowEstimator(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * 估算满足 spec 的 entityClass 行数。
+     * 在独立会话中以 statement inspector 给生成的 SQL 加上 EXPLAIN 前缀，绑定参数照常传入；
+     * 查询只选一列文本（id 转为字符串），EXPLAIN 返回的计划 JSON 恰好也是一行一列文本，按列位置读取。
+     */
+    public <T> long estimate(Class<T> entityClass, Specification<T> spec) {
+        StatementInspector explain = sql -> EXPLAIN + sql;
+        try (Session session = sessionFactory.withOptions().statementInspector(explain).openSession()) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<String> query = cb.createQuery(String.class);
+            Root<T> root = query.from(entityClass);
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            query.select(root.get("id").as(String.class));
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            // Specification 可能追加按相关度排序，排序不影响行数估算
+            query.orderBy(List.of());
+            String plan = session.createQuery(query).getSingleResult();
+            JsonNode json = objectMapper.readTree(plan);
+            return Math.max(0L, json.path(0).path("Plan").path("Plan Rows").asLong());
+        } catch (Exception ex) {
+            throw new IllegalStateException("无法估算查询行数：" + ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.ouc.registrationsystem.domain.enums.ResultCodeEnum;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationTicketDTO;
+import com.hospital.ouc.registrationsystem.web.ws.SimpleWebSocketHandler;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 放号（抢号）模式的排队准入：热门号源在固定时间放出时，挂号请求先进入按号源划分的有界内存队列，
+ * 每个号源只有一个工作线程按到达顺序逐个调用 {@link PatientRegistrationService#register}，
+ * 调用方立即拿到排队凭证，结果通过 /ws 推送或轮询凭证获得。
+ * 同一号源的并发写入因此变为顺序写入；号源一旦售罄，队列中剩余请求直接失败，不再访问数据库。
+ * 由 registration.admission.enabled 开启：开启后 POST /api/registration 与 POST /api/registration/queue 均经此排队；
+ * 关闭时提交的请求同步处理。
+ */
+@Component
+public class RegistrationAdmissionQueue {
+
+    public enum TicketStatus { QUEUED, CONFIRMED, REJECTED }
+
+    /**
+     * 号源键：医生 + 就诊日期 + 时间段
+     */
+    private record SlotKey(Long doctorProfileId, LocalDate visitDate, TimeSlot timeslot) {
+    }
+
+    /**
+     * 排队凭证（内部可变状态，对外转换为 RegistrationTicketDTO）
+     */
+    private static final class Ticket {
+        final String id = UUID.randomUUID().toString();
+        final RegistrationRequestDTO request;
+        final String idempotencyKey;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile int position;
+        volatile TicketStatus status = TicketStatus.QUEUED;
+        volatile RegistrationResponseDTO registration;
+        volatile String message;
+        volatile LocalDateTime completedAt;
+
+        Ticket(RegistrationRequestDTO request, String idempotencyKey) {
+            this.request = request;
+            this.idempotencyKey = idempotencyKey;
+        }
+    }
+
+    /**
+     * 单个号源的队列：running 保证同一时刻只有一个工作线程，soldOut 标记本轮已售罄
+     */
+    private static final class SlotQueue {
+        final Queue<Ticket> pending;
+        final AtomicBoolean running = new AtomicBoolean(false);
+        volatile boolean soldOut;
+
+        SlotQueue(int capacity) {
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
+
+        boolean idle() {
+            return pending.isEmpty() && !running.get();
+        }
+    }
+
+    private final PatientRegistrationService registrationService;
+    private final SlotInventoryService slotInventoryService;
+    private final ClusterEventBus eventBus;
+    private final RegistrationMetrics metrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final long ticketTtlMinutes;
+
+    private final Map<SlotKey, SlotQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 所有号源工作线程共享的写入许可，限制同时占用的数据库连接数
+     */
+    private final Semaphore writePermits;
+
+    public RegistrationAdmissionQueue(PatientRegistrationService registrationService,
+                                      SlotInventoryService slotInventoryService,
+                                      ClusterEventBus eventBus,
+                                      RegistrationMetrics metrics,
+                                      @Value("${registration.admission.enabled:false}") boolean enabled,
+                                      @Value("${registration.admission.queue-capacity:200}") int queueCapacity,
+                                      @Value("${registration.admission.max-concurrent-writes:8}") int maxConcurrentWrites,
+                                      @Value("${registration.admission.ticket-ttl-minutes:10}") long ticketTtlMinutes) {
+        this.registrationService = registrationService;
+        this.slotInventoryService = slotInventoryService;
+        this.eventBus = eventBus;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.ticketTtlMinutes = ticketTtlMinutes;
+        this.writePermits = new Semaphore(maxConcurrentWrites, true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交挂号请求。参数错误直接抛出；开启排队时返回 QUEUED（或队列已满时的 REJECTED）凭证，
+     * 未开启时同步挂号并返回已完成的凭证。
+     */
+    public RegistrationTicketDTO submit(RegistrationRequestDTO req) {
+        return submit(req, null);
+    }
+
+    /**
+     * 提交挂号请求，idempotencyKey 随凭证传给 {@link PatientRegistrationService#register(RegistrationRequestDTO, String)}，
+     * 客户端超时后以同一个键重新提交不会重复挂号。
+     */
+    public RegistrationTicketDTO submit(RegistrationRequestDTO req, String idempotencyKey) {
+        if (req.getPatientProfileId() == null || req.getDoctorProfileId() == null || req.getDiseaseId() == null) {
+            throw new RuntimeException("患者、医生、疾病不能为空");
+        }
+        TimeSlot slot = TimeSlot.fromString(req.getTimeslot());
+        LocalDate visitDate = slotInventoryService.resolveVisitDate(req.getWeekday(), req.getVisitDate());
+        // 统一成解析后的日期，后续处理与排队键一致
+        req.setVisitDate(visitDate);
+        req.setWeekday(visitDate.getDayOfWeek().getValue());
+        req.setTimeslot(slot.name());
+
+        Ticket ticket = new Ticket(req, idempotencyKey);
+        if (!enabled) {
+            // 未开启排队：同步挂号，失败按普通挂号的方式直接抛出
+            complete(ticket, TicketStatus.CONFIRMED, registrationService.register(req, idempotencyKey), null);
+            return toDTO(ticket);
+        }
+
+        SlotKey key = new SlotKey(req.getDoctorProfileId(), visitDate, slot);
+        boolean[] accepted = new boolean[1];
+        // 入队与空闲队列回收都在 compute 中进行，二者互斥
+        SlotQueue queue = queues.compute(key, (k, existing) -> {
+            SlotQueue q = existing != null ? existing : new SlotQueue(queueCapacity);
+            ticket.position = q.pending.size() + 1;
+            accepted[0] = q.pending.offer(ticket);
+            return q;
+        });
+        if (!accepted[0]) {
+            complete(ticket, TicketStatus.REJECTED, null, "当前排队人数已满，请稍后再试");
+            return toDTO(ticket);
+        }
+        tickets.put(ticket.id, ticket);
+        if (queue.running.compareAndSet(false, true)) {
+            workers.execute(() -> drain(queue));
+        }
+        return toDTO(ticket);
+    }
+
+    /**
+     * 查询排队凭证
+     */
+    public RegistrationTicketDTO getTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new RuntimeException("排队凭证不存在或已过期");
+        }
+        return toDTO(ticket);
+    }
+
+    /**
+     * 号源工作线程：按到达顺序处理，直到队列为空；
+     * 退出前复查一次，避免与并发入队之间的竞态导致请求滞留。
+     */
+    private void drain(SlotQueue queue) {
+        do {
+            Ticket ticket;
+            while ((ticket = queue.pending.poll()) != null) {
+                process(queue, ticket);
+            }
+            // 本轮已处理完，之后的请求（如有人取消后释放的号）重新访问数据库
+            queue.soldOut = false;
+            queue.running.set(false);
+        } while (!queue.pending.isEmpty() && queue.running.compareAndSet(false, true));
+    }
+
+    private void process(SlotQueue queue, Ticket ticket) {
+        if (queue.soldOut) {
+            metrics.rejected(RegistrationMetrics.Rejection.SLOT_FULL);
+            complete(ticket, TicketStatus.REJECTED, null, ResultCodeEnum.SLOT_FULL.getMsg());
+            return;
+        }
+        boolean acquired = false;
+        try {
+            writePermits.acquire();
+            acquired = true;
+            RegistrationResponseDTO resp = registrationService.register(ticket.request, ticket.idempotencyKey);
+            complete(ticket, TicketStatus.CONFIRMED, resp, null);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            complete(ticket, TicketStatus.REJECTED, null, "系统繁忙，请稍后再试");
+        } catch (RuntimeException ex) {
+            if (isSlotFull(ex)) {
+                queue.soldOut = true;
+            }
+            complete(ticket, TicketStatus.REJECTED, null, ex.getMessage());
+        } finally {
+            if (acquired) {
+                writePermits.release();
+            }
+        }
+    }
+
+    private static boolean isSlotFull(RuntimeException ex) {
+        return ex instanceof BusinessException be
+                && ResultCodeEnum.SLOT_FULL.getCode().equals(be.getCode())
+                && ResultCodeEnum.SLOT_FULL.getMsg().equals(be.getMessage());
+    }
+
+    private void complete(Ticket ticket, TicketStatus status, RegistrationResponseDTO registration, String message) {
+        ticket.registration = registration;
+        ticket.message = message;
+        ticket.completedAt = LocalDateTime.now();
+        ticket.status = status;
+        if (enabled) {
+            publishResult(ticket);
+        }
+    }
+
+    // 通过 WebSocket 推送排队结果（仅发给该患者的订阅会话，患者可能连接在其他节点上）
+    private void publishResult(Ticket ticket) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("type", "registration_result");
+            payload.put("ticketId", ticket.id);
+            payload.put("patientProfileId", ticket.request.getPatientProfileId());
+            payload.put("status", ticket.status.name());
+            payload.put("registrationId", ticket.registration != null ? ticket.registration.getId() : null);
+            payload.put("message", ticket.message);
+            eventBus.publish(ClusterEventBus.WS_PUBLISH, SimpleWebSocketHandler.publishEvent(
+                    List.of(SimpleWebSocketHandler.patientTopic(ticket.request.getPatientProfileId())),
+                    objectMapper.writeValueAsString(payload)));
+        } catch (Exception ex) {
+            // ignore websocket broadcast errors，客户端仍可轮询凭证
+        }
+    }
+
+    /**
+     * 定期清理：过期的已完成凭证，以及空闲的号源队列
+     */
+    @Scheduled(fixedDelayString = "${registration.admission.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(ticketTtlMinutes);
+        tickets.values().removeIf(t -> t.completedAt != null && t.completedAt.isBefore(expireBefore));
+        for (SlotKey key : queues.keySet()) {
+            queues.computeIfPresent(key, (k, q) -> q.idle() ? null : q);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private RegistrationTicketDTO toDTO(Ticket ticket) {
+        RegistrationTicketDTO dto = new RegistrationTicketDTO();
+        dto.setTicketId(ticket.id);
+        dto.setStatus(ticket.status.name());
+        dto.setPosition(ticket.status == TicketStatus.QUEUED ? ticket.position : null);
+        dto.setPatientProfileId(ticket.request.getPatientProfileId());
+        dto.setDoctorProfileId(ticket.request.getDoctorProfileId());
+        dto.setVisitDate(ticket.request.getVisitDate());
+        dto.setTimeslot(ticket.request.getTimeslot());
+        dto.setRegistration(ticket.registration);
+        dto.setMessage(ticket.message);
+        dto.setCreatedAt(ticket.createdAt);
+        dto.setCompletedAt(ticket.completedAt);
+        return dto;
+    }
+}
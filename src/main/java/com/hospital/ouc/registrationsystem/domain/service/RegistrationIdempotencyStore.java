@@ -0,0 +1,101 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.ouc.registrationsystem.domain.repository.RegistrationIdempotencyRepository;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 挂号幂等键存储：内存中保存“键 -> 挂号结果”（带过期时间的 Caffeine 缓存），
+ * 数据库表 registration_idempotency 作为兜底（重启后、或重试落到其他节点时）。
+ * 命中内存时不执行任何查询。
+ */
+@Component
+public class RegistrationIdempotencyStore {
+
+    /**
+     * 已完成的请求：提交者与结果
+     */
+    private record Entry(Long patientProfileId, RegistrationResponseDTO response) {
+    }
+
+    private final RegistrationIdempotencyRepository idempotencyRepository;
+    private final Cache<String, Entry> recent;
+    private final Duration ttl;
+
+    public RegistrationIdempotencyStore(RegistrationIdempotencyRepository idempotencyRepository,
+                                        @Value("${registration.idempotency.ttl-hours:24}") long ttlHours,
+                                        @Value("${registration.idempotency.max-entries:100000}") long maxEntries) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * 内存中查找已完成的结果，未命中返回 null；键属于其他患者时抛出异常
+     */
+    public RegistrationResponseDTO find(String key, Long patientProfileId) {
+        Entry entry = recent.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        checkOwner(entry.patientProfileId(), patientProfileId);
+        return entry.response();
+    }
+
+    /**
+     * 在当前事务内占用幂等键；返回 false 表示该键已由先前的请求完成
+     */
+    public boolean claim(String key, Long patientProfileId) {
+        return idempotencyRepository.claim(key, patientProfileId) == 1;
+    }
+
+    /**
+     * 已完成的键对应的挂号记录ID（数据库兜底）
+     */
+    public Long findRegistrationId(String key, Long patientProfileId) {
+        return idempotencyRepository.findById(key)
+                .map(k -> {
+                    checkOwner(k.getPatientProfileId(), patientProfileId);
+                    return k.getRegistrationId();
+                })
+                .orElse(null);
+    }
+
+    /**
+     * 在当前事务内记录结果；提交后写入内存
+     */
+    public void complete(String key, Long patientProfileId, RegistrationResponseDTO response) {
+        idempotencyRepository.complete(key, response.getId());
+        AfterCommit.run(() -> remember(key, patientProfileId, response));
+    }
+
+    public void remember(String key, Long patientProfileId, RegistrationResponseDTO response) {
+        recent.put(key, new Entry(patientProfileId, response));
+    }
+
+    /**
+     * 每小时清理超过保留期的幂等键
+     */
+    @Scheduled(cron = "${registration.idempotency.purge-cron:0 15 * * * *}")
+    @Transactional
+    public void purge() {
+        idempotencyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+    }
+
+    private static void checkOwner(Long owner, Long patientProfileId) {
+        if (owner != null && !owner.equals(patientProfileId)) {
+            throw new RuntimeException("幂等键已被其他请求使用");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.enums.ResultCodeEnum;
+import com.hospital.ouc.registrationsystem.domain.repository.DepartmentSlotFillView;
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorSlotInventoryRepository;
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorSlotLoadView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 挂号业务指标（经 /actuator/prometheus 暴露）：
+ * <ul>
+ *   <li>registration.operation：挂号、自动分配挂号、取消、疾病排班表的耗时，按 operation 与 outcome 区分：
+ *       success 成功，rejected 业务拒绝（{@link BusinessException}），error 其他异常</li>
+ *   <li>registration.rejected：挂号请求被拒次数，按原因区分（号源已满、无排班、医生不支持该疾病、重复挂号）；
+ *       只在请求入口统计，自动分配挂号的逐个候选尝试、加入候补时的排班校验不计入</li>
+ *   <li>registration.slot.fill.ratio / registration.slot.saturated：各科室统计窗口内的号源占用率与已满时段数</li>
+ *   <li>registration.doctor.booked / registration.doctor.fill.ratio：窗口内已占号数最多的几位医生</li>
+ * </ul>
+ * 号源类指标由定时任务从号源库存表汇总，各节点看到的是同一份数据库状态，看板中按 max 聚合即可。
+ */
+@Component
+public class RegistrationMetrics {
+
+    /**
+     * 挂号被拒原因，对应 registration.rejected 的 reason 标签
+     */
+    public enum Rejection {
+        SLOT_FULL("slot_full", ResultCodeEnum.SLOT_FULL),
+        NO_SCHEDULE("no_schedule", ResultCodeEnum.SLOT_NOT_SCHEDULED),
+        UNSUPPORTED_DISEASE("unsupported_disease", ResultCodeEnum.DISEASE_NOT_SUPPORTED),
+        DUPLICATE("duplicate", ResultCodeEnum.DUPLICATE_REGISTRATION);
+
+        private final String tag;
+        private final ResultCodeEnum resultCode;
+
+        Rejection(String tag, ResultCodeEnum resultCode) {
+            this.tag = tag;
+            this.resultCode = resultCode;
+        }
+
+        /**
+         * 由业务异常的结果码得到拒绝原因，非已知拒绝时返回 null
+         */
+        static Rejection of(RuntimeException ex) {
+            if (ex instanceof BusinessException be && be.getResultCode() != null) {
+                for (Rejection r : values()) {
+                    if (r.resultCode == be.getResultCode()) {
+                        return r;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final DoctorSlotInventoryRepository inventoryRepository;
+    private final int windowDays;
+    private final int hotDoctors;
+
+    private final MultiGauge departmentFillRatio;
+    private final MultiGauge departmentSaturated;
+    private final MultiGauge doctorBooked;
+    private final MultiGauge doctorFillRatio;
+
+    public RegistrationMetrics(MeterRegistry meterRegistry,
+                               DoctorSlotInventoryRepository inventoryRepository,
+                               @Value("${registration.metrics.window-days:7}") int windowDays,
+                               @Value("${registration.metrics.hot-doctors:10}") int hotDoctors) {
+        this.meterRegistry = meterRegistry;
+        this.inventoryRepository = inventoryRepository;
+        this.windowDays = windowDays;
+        this.hotDoctors = hotDoctors;
+        this.departmentFillRatio = MultiGauge.builder("registration.slot.fill.ratio")
+                .description("统计窗口内科室号源占用率（已占号数 / 总容量）").register(meterRegistry);
+        this.departmentSaturated = MultiGauge.builder("registration.slot.saturated")
+                .description("统计窗口内科室已满的号源时段数").register(meterRegistry);
+        this.doctorBooked = MultiGauge.builder("registration.doctor.booked")
+                .description("统计窗口内已占号数最多的医生及其已占号数").register(meterRegistry);
+        this.doctorFillRatio = MultiGauge.builder("registration.doctor.fill.ratio")
+                .description("统计窗口内热门医生的号源占用率").register(meterRegistry);
+    }
+
+    /**
+     * 计时执行一次业务操作；业务异常记为 rejected，其他异常记为 error，异常原样抛出
+     */
+    public <T> T time(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } catch (BusinessException ex) {
+            outcome = "rejected";
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder("registration.operation")
+                    .description("挂号相关业务操作耗时")
+                    .tags("operation", operation, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    public void time(String operation, Runnable action) {
+        time(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 计时执行一次挂号请求（请求入口调用），被拒时按原因计数
+     */
+    public <T> T timeRegistration(String operation, Supplier<T> action) {
+        return time(operation, () -> {
+            try {
+                return action.get();
+            } catch (RuntimeException ex) {
+                Rejection reason = Rejection.of(ex);
+                if (reason != null) {
+                    rejected(reason);
+                }
+                throw ex;
+            }
+        });
+    }
+
+    /**
+     * 记录一次挂号被拒
+     */
+    public void rejected(Rejection reason) {
+        Counter.builder("registration.rejected")
+                .description("挂号被拒次数")
+                .tag("reason", reason.tag)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 从号源库存表刷新科室饱和度与热门医生指标（每次整体替换，已无数据的标签随之移除）
+     */
+    @Scheduled(fixedDelayString = "${registration.metrics.refresh-ms:30000}")
+    public void refreshSlotGauges() {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(windowDays - 1L);
+
+        List<MultiGauge.Row<?>> ratios = new ArrayList<>();
+        List<MultiGauge.Row<?>> saturated = new ArrayList<>();
+        for (DepartmentSlotFillView v : inventoryRepository.summarizeByDepartment(from, to)) {
+            Tags tags = Tags.of("department", v.getDepartmentName());
+            ratios.add(MultiGauge.Row.of(tags, ratio(v.getBookedPatients(), v.getMaxPatients())));
+            saturated.add(MultiGauge.Row.of(tags, v.getSaturatedSlots()));
+        }
+        departmentFillRatio.register(ratios, true);
+        departmentSaturated.register(saturated, true);
+
+        List<MultiGauge.Row<?>> booked = new ArrayList<>();
+        List<MultiGauge.Row<?>> doctorRatios = new ArrayList<>();
+        for (DoctorSlotLoadView v : inventoryRepository.findBusiestDoctors(from, to, hotDoctors)) {
+            Tags tags = Tags.of("doctor", v.getDoctorId() + " " + v.getDoctorName(),
+                    "department", v.getDepartmentName() != null ? v.getDepartmentName() : "");
+            booked.add(MultiGauge.Row.of(tags, v.getBookedPatients()));
+            doctorRatios.add(MultiGauge.Row.of(tags, ratio(v.getBookedPatients(), v.getMaxPatients())));
+        }
+        doctorBooked.register(booked, true);
+        doctorFillRatio.register(doctorRatios, true);
+    }
+
+    private static double ratio(Long booked, Long max) {
+        if (booked == null || max == null || max == 0) {
+            return 0;
+        }
+        return (double) booked / max;
+    }
+}
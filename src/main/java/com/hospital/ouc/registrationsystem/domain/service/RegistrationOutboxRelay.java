@@ -0,0 +1,58 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 发件箱中继：定时排空 registration_outbox。
+ * 每轮连续认领整批事件，直到某一批不满或达到单轮上限；
+ * 多个节点同时运行时借助 SKIP LOCKED 并行排空，互不重复投递。
+ */
+@Component
+public class RegistrationOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationOutboxRelay.class);
+
+    private final RegistrationOutboxService outboxService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int retentionDays;
+
+    public RegistrationOutboxRelay(RegistrationOutboxService outboxService,
+                                   @Value("${registration.outbox.batch-size:200}") int batchSize,
+                                   @Value("${registration.outbox.max-batches-per-run:50}") int maxBatchesPerRun,
+                                   @Value("${registration.outbox.retention-days:7}") int retentionDays) {
+        this.outboxService = outboxService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${registration.outbox.poll-ms:200}")
+    public void drain() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (outboxService.relayBatch(batchSize) < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException ex) {
+            // 本批事务已回滚，事件仍为未投递状态，下一轮重试
+            log.warn("outbox relay failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * 每天清理超过保留期的已投递事件
+     */
+    @Scheduled(cron = "${registration.outbox.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        int deleted = outboxService.purgePublishedBefore(LocalDateTime.now().minusDays(retentionDays));
+        log.info("purged {} published outbox events", deleted);
+    }
+}
@@ -0,0 +1,108 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.ouc.registrationsystem.domain.entity.RegistrationOutbox;
+import com.hospital.ouc.registrationsystem.domain.repository.RegistrationOutboxRepository;
+import com.hospital.ouc.registrationsystem.web.ws.SimpleWebSocketHandler;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 挂号事件发件箱：写入与挂号记录变更处于同一事务，投递由 {@link RegistrationOutboxRelay} 批量完成。
+ * <p>
+ * 每批投递在一个事务内：认领（FOR UPDATE SKIP LOCKED）→ 发布 → 标记已投递。
+ * WebSocket 推送经 {@link ClusterEventBus#publishAll} 按批发布（一批合并为少量 NOTIFY），通知与“已投递”标记一同提交，
+ * 因此每个事件只投递一次；
+ * 其他进程内消费者可监听 {@link OutboxEvent}（建议使用 @TransactionalEventListener 在提交后处理）。
+ */
+@Service
+public class RegistrationOutboxService {
+
+    public static final String APPOINTMENT_BOOKED = "appointment_booked";
+    public static final String APPOINTMENT_CANCELLED = "appointment_cancelled";
+    public static final String WAITLIST_PROMOTED = "waitlist_promoted";
+
+    /**
+     * 已投递的发件箱事件
+     */
+    public record OutboxEvent(Long id, String eventType, Long registrationId, List<String> topics, String payload) {
+    }
+
+    private final RegistrationOutboxRepository outboxRepository;
+    private final ClusterEventBus eventBus;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RegistrationOutboxService(RegistrationOutboxRepository outboxRepository,
+                                     ClusterEventBus eventBus,
+                                     ApplicationEventPublisher applicationEventPublisher) {
+        this.outboxRepository = outboxRepository;
+        this.eventBus = eventBus;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * 写入一条事件，必须在挂号记录变更所在的事务内调用。
+     * payload 中会补充 type 字段，作为推送给客户端的消息体。
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String eventType, Long registrationId, Collection<String> topics, Map<String, Object> payload) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("type", eventType);
+        body.putAll(payload);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("事件序列化失败", e);
+        }
+        outboxRepository.save(RegistrationOutbox.builder()
+                .eventType(eventType)
+                .registrationId(registrationId)
+                .topics(String.join(",", topics))
+                .payload(json)
+                .build());
+    }
+
+    /**
+     * 认领并投递一批事件，返回本批数量；为 0 表示当前没有可认领的事件。
+     */
+    @Transactional
+    public int relayBatch(int batchSize) {
+        List<RegistrationOutbox> batch = outboxRepository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(batch.size());
+        List<Map<String, Object>> pushes = new ArrayList<>(batch.size());
+        for (RegistrationOutbox row : batch) {
+            List<String> topics = Arrays.asList(row.getTopics().split(","));
+            pushes.add(SimpleWebSocketHandler.publishEvent(topics, row.getPayload()));
+            applicationEventPublisher.publishEvent(
+                    new OutboxEvent(row.getId(), row.getEventType(), row.getRegistrationId(), topics, row.getPayload()));
+            ids.add(row.getId());
+        }
+        eventBus.publishAll(ClusterEventBus.WS_PUBLISH, pushes);
+        outboxRepository.markPublished(ids, LocalDateTime.now());
+        return batch.size();
+    }
+
+    /**
+     * 删除投递时间早于 before 的事件
+     */
+    @Transactional
+    public int purgePublishedBefore(LocalDateTime before) {
+        return outboxRepository.deletePublishedBefore(before);
+    }
+}
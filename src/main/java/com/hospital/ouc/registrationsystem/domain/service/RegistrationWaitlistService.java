@@ -0,0 +1,183 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.*;
+import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus;
+import com.hospital.ouc.registrationsystem.domain.repository.*;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
+import com.hospital.ouc.registrationsystem.web.dto.WaitlistEntryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 候补服务：号源已满时患者加入候补，而不是反复重试挂号。
+ * 候补按号源行（医生 + 就诊日期 + 时间段）排队，同一患者在同一号源上只保留一条记录，重复加入直接返回原记录；
+ * 递补由 {@link PatientRegistrationService#cancelRegistration} 在释放号源的同一事务内完成，
+ * 定时任务补充处理取消之外释放出的号源并清理过期候补。
+ */
+@Service
+public class RegistrationWaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationWaitlistService.class);
+
+    private final PatientProfileRepository patientProfileRepository;
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final DiseaseRepository diseaseRepository;
+    private final DoctorSlotInventoryRepository inventoryRepository;
+    private final PatientDoctorRegistrationRepository registrationRepository;
+    private final RegistrationWaitlistRepository waitlistRepository;
+    private final PatientRegistrationService registrationService;
+    private final SlotInventoryService slotInventoryService;
+    private final WaitlistMirror waitlistMirror;
+
+    public RegistrationWaitlistService(PatientProfileRepository patientProfileRepository,
+                                       DoctorProfileRepository doctorProfileRepository,
+                                       DiseaseRepository diseaseRepository,
+                                       DoctorSlotInventoryRepository inventoryRepository,
+                                       PatientDoctorRegistrationRepository registrationRepository,
+                                       RegistrationWaitlistRepository waitlistRepository,
+                                       PatientRegistrationService registrationService,
+                                       SlotInventoryService slotInventoryService,
+                                       WaitlistMirror waitlistMirror) {
+        this.patientProfileRepository = patientProfileRepository;
+        this.doctorProfileRepository = doctorProfileRepository;
+        this.diseaseRepository = diseaseRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.registrationRepository = registrationRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.registrationService = registrationService;
+        this.slotInventoryService = slotInventoryService;
+        this.waitlistMirror = waitlistMirror;
+    }
+
+    /**
+     * 加入候补：校验规则与挂号相同；号源仍有余量时提示直接挂号。
+     */
+    @Transactional
+    public WaitlistEntryDTO join(RegistrationRequestDTO req) {
+        if (req.getPatientProfileId() == null || req.getDoctorProfileId() == null || req.getDiseaseId() == null) {
+            throw new RuntimeException("患者、医生、疾病不能为空");
+        }
+        PatientProfile patient = patientProfileRepository.findById(req.getPatientProfileId())
+                .orElseThrow(() -> new RuntimeException("患者不存在"));
+        DoctorProfile doctor = doctorProfileRepository.findById(req.getDoctorProfileId())
+                .orElseThrow(() -> new RuntimeException("医生不存在"));
+        Disease disease = diseaseRepository.findById(req.getDiseaseId())
+                .orElseThrow(() -> new RuntimeException("疾病不存在"));
+        TimeSlot slot = TimeSlot.fromString(req.getTimeslot());
+        LocalDate visitDate = slotInventoryService.resolveVisitDate(req.getWeekday(), req.getVisitDate());
+        SlotAvailabilityView target = registrationService.resolveSlot(doctor, disease, slot, visitDate);
+        Long inventoryId = target.getInventoryId();
+
+        // 重复加入返回原记录：一个患者在一个号源上只占一个候补位
+        RegistrationWaitlist existing = waitlistRepository
+                .findByPatientProfileIdAndSlotInventoryIdAndStatus(patient.getId(), inventoryId, WaitlistStatus.WAITING)
+                .orElse(null);
+        if (existing != null) {
+            return convertToDTO(existing);
+        }
+        if (registrationRepository.existsByPatientProfileIdAndSlotInventoryIdAndStatusNot(
+                patient.getId(), inventoryId, RegistrationStatus.CANCELLED)) {
+            throw new RuntimeException("您已预约该时段，无需候补");
+        }
+        if (target.getBookedPatients() < target.getMaxPatients()) {
+            throw new RuntimeException("该时段仍有号源，请直接挂号");
+        }
+
+        RegistrationWaitlist saved = waitlistRepository.save(RegistrationWaitlist.builder()
+                .patientProfile(patient)
+                .doctorProfile(doctor)
+                .disease(disease)
+                .slotInventory(inventoryRepository.getReferenceById(inventoryId))
+                .status(WaitlistStatus.WAITING)
+                .build());
+        waitlistMirror.changed(inventoryId, 1);
+        return convertToDTO(saved);
+    }
+
+    /**
+     * 患者的候补记录，最近的在前
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryDTO> listByPatient(Long patientProfileId) {
+        return waitlistRepository.findByPatientProfileIdOrderByIdDesc(patientProfileId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 退出候补（仅允许患者本人操作）；已递补、已过期或已退出的记录保持不变
+     */
+    @Transactional
+    public void leave(Long waitlistId, Long patientProfileId) {
+        RegistrationWaitlist entry = waitlistRepository.findByIdAndPatientProfileId(waitlistId, patientProfileId)
+                .orElseThrow(() -> new RuntimeException("候补记录不存在或不属于当前患者"));
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return;
+        }
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        waitlistMirror.changed(entry.getSlotInventory().getId(), -1);
+    }
+
+    /**
+     * 定时递补：处理有候补且仍有余号的号源行（如管理员调大号源数、递补时被并发挂号抢占等情况），
+     * 并用候补表校正内存镜像。每次递补在独立事务中进行。
+     */
+    @Scheduled(fixedDelayString = "${registration.waitlist.sweep-interval-ms:30000}")
+    public void sweep() {
+        for (Long inventoryId : waitlistRepository.findPromotableSlots(LocalDate.now())) {
+            try {
+                while (registrationService.promoteWaitlistHead(inventoryId)) {
+                    // 持续递补直到号源用完或候补为空
+                }
+            } catch (RuntimeException ex) {
+                log.warn("waitlist promotion for slot {} failed: {}", inventoryId, ex.getMessage());
+            }
+        }
+        waitlistMirror.reload();
+    }
+
+    /**
+     * 每天凌晨将就诊日期已过的候补置为过期
+     */
+    @Scheduled(cron = "${registration.waitlist.expire-cron:0 10 0 * * *}")
+    @Transactional
+    public void expire() {
+        int expired = waitlistRepository.expireBefore(LocalDate.now());
+        if (expired > 0) {
+            AfterCommit.run(waitlistMirror::reload);
+        }
+    }
+
+    private WaitlistEntryDTO convertToDTO(RegistrationWaitlist entry) {
+        DoctorSlotInventory inventory = entry.getSlotInventory();
+        WaitlistEntryDTO dto = new WaitlistEntryDTO();
+        dto.setId(entry.getId());
+        dto.setStatus(entry.getStatus().name());
+        if (entry.getStatus() == WaitlistStatus.WAITING) {
+            int position = (int) waitlistRepository.countAhead(inventory.getId(), entry.getId()) + 1;
+            dto.setPosition(position);
+            // 镜像在提交后才更新，刚加入的记录以自身排位为下限
+            dto.setWaitingCount(Math.max(position, waitlistMirror.waitingCount(inventory.getId())));
+        }
+        dto.setPatientProfileId(entry.getPatientProfile().getId());
+        dto.setDoctorProfileId(entry.getDoctorProfile().getId());
+        dto.setDoctorName(entry.getDoctorProfile().getName());
+        dto.setDiseaseId(entry.getDisease().getId());
+        dto.setWeekday(inventory.getWeekday());
+        dto.setTimeslot(inventory.getTimeslot().name());
+        dto.setVisitDate(inventory.getSlotDate());
+        dto.setRegistrationId(entry.getRegistration() != null ? entry.getRegistration().getId() : null);
+        dto.setCreatedAt(entry.getCreatedAt());
+        dto.setPromotedAt(entry.getPromotedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,133 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDepartmentSchedule;
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorSlotInventoryRepository;
+import com.hospital.ouc.registrationsystem.domain.repository.RegistrationWaitlistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+
+/**
+ * 号源库存服务：把按星期循环的排班展开为按日期的号源行（doctor_slot_inventory），
+ * 并维护一个从今天开始、长度为 N 周的滚动窗口。
+ */
+@Service
+public class SlotInventoryService {
+
+    private final DoctorSlotInventoryRepository inventoryRepository;
+    private final DoctorAvailabilityIndex availabilityIndex;
+    private final ClusterEventBus eventBus;
+    private final RegistrationWaitlistRepository waitlistRepository;
+    private final WaitlistMirror waitlistMirror;
+
+    /**
+     * 滚动窗口长度（周），可通过 registration.inventory.window-weeks 配置
+     */
+    private final int windowWeeks;
+
+    public SlotInventoryService(DoctorSlotInventoryRepository inventoryRepository,
+                                DoctorAvailabilityIndex availabilityIndex,
+                                ClusterEventBus eventBus,
+                                RegistrationWaitlistRepository waitlistRepository,
+                                WaitlistMirror waitlistMirror,
+                                @Value("${registration.inventory.window-weeks:4}") int windowWeeks) {
+        this.inventoryRepository = inventoryRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.eventBus = eventBus;
+        this.waitlistRepository = waitlistRepository;
+        this.waitlistMirror = waitlistMirror;
+        this.windowWeeks = windowWeeks;
+    }
+
+    /**
+     * 启动时及每天凌晨补齐窗口内的号源行，已存在的行不受影响；
+     * 完成后重建可用性索引，使索引窗口随日期滚动。每个节点各自执行，不发布集群事件。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${registration.inventory.rollover-cron:0 5 0 * * *}")
+    @Transactional
+    public void rollover() {
+        inventoryRepository.generateAll(LocalDate.now(), windowEnd());
+        AfterCommit.run(availabilityIndex::rebuild);
+    }
+
+    /**
+     * 排班新增或修改后，为该排班生成/同步窗口内的号源行。
+     */
+    @Transactional
+    public void syncSchedule(DoctorDepartmentSchedule schedule) {
+        inventoryRepository.generateForSchedule(schedule.getId(), LocalDate.now(), windowEnd());
+        Long doctorProfileId = schedule.getDoctorProfile().getId();
+        eventBus.publish(ClusterEventBus.DOCTOR_SCHEDULE_CHANGED, Map.of("doctorProfileId", doctorProfileId));
+    }
+
+    /**
+     * 排班删除或改期前调用：今天起这些号源行上的候补置为过期；
+     * 未被任何挂号（含已取消的）或候补记录引用的行删除，其余行保留但关闭剩余容量、不再放号
+     * （挂号与候补记录对号源行有外键引用，直接删除会违反约束）。
+     */
+    @Transactional
+    public void retireSchedule(DoctorDepartmentSchedule schedule) {
+        LocalDate today = LocalDate.now();
+        Long doctorProfileId = schedule.getDoctorProfile().getId();
+        Integer weekday = schedule.getWeekday();
+        if (waitlistRepository.expireForSchedule(doctorProfileId, weekday, schedule.getTimeslot(), today) > 0) {
+            AfterCommit.run(waitlistMirror::reload);
+        }
+        inventoryRepository.deleteUnreferencedSlots(doctorProfileId, weekday, schedule.getTimeslot(), today);
+        inventoryRepository.closeRetainedSlots(doctorProfileId, weekday, schedule.getTimeslot(), today);
+        eventBus.publish(ClusterEventBus.DOCTOR_SCHEDULE_CHANGED, Map.of("doctorProfileId", doctorProfileId));
+    }
+
+    /**
+     * 科室排班批量删除前调用，规则同 {@link #retireSchedule}。
+     */
+    @Transactional
+    public void retireDepartment(Long departmentId) {
+        LocalDate today = LocalDate.now();
+        if (waitlistRepository.expireForDepartment(departmentId, today) > 0) {
+            AfterCommit.run(waitlistMirror::reload);
+        }
+        inventoryRepository.deleteUnreferencedSlotsByDepartment(departmentId, today);
+        inventoryRepository.closeRetainedSlotsByDepartment(departmentId, today);
+        eventBus.publish(ClusterEventBus.AVAILABILITY_REBUILD, Map.of());
+    }
+
+    /**
+     * 解析就诊日期：未指定日期时取今天起最近的一个对应星期；指定日期时校验与星期一致且在窗口内。
+     */
+    public LocalDate resolveVisitDate(Integer weekday, LocalDate visitDate) {
+        if (visitDate == null) {
+            if (weekday == null || weekday < 1 || weekday > 5) {
+                throw new RuntimeException("星期只能是1-5（周一到周五）");
+            }
+            return nextDateOf(weekday);
+        }
+        if (weekday != null && visitDate.getDayOfWeek().getValue() != weekday) {
+            throw new RuntimeException("就诊日期与星期不一致");
+        }
+        if (visitDate.isBefore(LocalDate.now()) || visitDate.isAfter(windowEnd())) {
+            throw new RuntimeException("仅可预约今天起" + windowWeeks + "周内的号源");
+        }
+        return visitDate;
+    }
+
+    /**
+     * 今天起（含今天）最近的一个指定星期的日期。
+     */
+    public LocalDate nextDateOf(int weekday) {
+        return LocalDate.now().with(TemporalAdjusters.nextOrSame(DayOfWeek.of(weekday)));
+    }
+
+    private LocalDate windowEnd() {
+        return LocalDate.now().plusWeeks(windowWeeks).minusDays(1);
+    }
+}
@@ -0,0 +1,425 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.web.dto.SqlRequestProfileDTO;
+import com.hospital.ouc.registrationsystem.web.dto.SqlShapeStatDTO;
+import com.hospital.ouc.registrationsystem.web.dto.SqlStatementDTO;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 按请求的 SQL 剖析器（datasource-proxy 监听器，数据源代理见 SqlProfilerConfig）。
+ * <ul>
+ *   <li>每条语句记录文本、绑定参数个数、返回 / 影响行数与耗时，并标记发出它的控制器方法；</li>
+ *   <li>按归一化 SQL 聚合为“语句形状”，供管理端查询最慢的 N 种语句；</li>
+ *   <li>请求结束时语句条数或数据库耗时超出预算的，记录 WARN 日志并保留最近若干条明细。</li>
+ * </ul>
+ * 请求上下文由 web 层拦截器经 {@link #beginRequest} / {@link #endRequest} 维护，保存在线程本地变量中；
+ * 定时任务等非请求线程的语句只参与聚合，调用方记为 background。
+ * SELECT 的行数需开启 registration.sql-profiler.count-rows：此时代理 ResultSet 并统计 next() 的次数，
+ * 代价是每次 JDBC 方法调用都经过一次反射分派，默认关闭，SELECT 的行数记为 0。
+ */
+@Component
+public class SqlProfiler implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlProfiler.class);
+
+    public static final String BACKGROUND = "background";
+
+    // 聚合形状数达到上限后，新形状计入此项，避免无界增长
+    private static final String OTHER_SHAPE = "(其他语句)";
+    private static final int MAX_CALLERS_PER_SHAPE = 10;
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final int MAX_OPEN_STATEMENTS = 256;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final int maxStatements;
+    private final long maxDbTimeNanos;
+    private final long slowStatementNanos;
+    private final int maxShapes;
+    private final int maxRecordedStatements;
+    private final int slowRequestCapacity;
+    private final boolean countRows;
+
+    // 归一化 SQL -> 聚合统计
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+    // 原始 SQL -> 形状，同一条语句只做一次归一化
+    private final Map<String, Shape> shapesBySql = new ConcurrentHashMap<>();
+    private final Deque<SqlRequestProfileDTO> slowRequests = new ArrayDeque<>();
+
+    private final ThreadLocal<RequestProfile> currentRequest = new ThreadLocal<>();
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+
+    public SqlProfiler(@Value("${registration.sql-profiler.max-statements:20}") int maxStatements,
+                       @Value("${registration.sql-profiler.max-db-time-ms:200}") long maxDbTimeMs,
+                       @Value("${registration.sql-profiler.slow-statement-ms:100}") long slowStatementMs,
+                       @Value("${registration.sql-profiler.max-shapes:2000}") int maxShapes,
+                       @Value("${registration.sql-profiler.max-recorded-statements:200}") int maxRecordedStatements,
+                       @Value("${registration.sql-profiler.slow-requests:50}") int slowRequestCapacity,
+                       @Value("${registration.sql-profiler.count-rows:false}") boolean countRows) {
+        this.maxStatements = maxStatements;
+        this.maxDbTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxDbTimeMs);
+        this.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(slowStatementMs);
+        this.maxShapes = maxShapes;
+        this.maxRecordedStatements = maxRecordedStatements;
+        this.slowRequestCapacity = slowRequestCapacity;
+        this.countRows = countRows;
+    }
+
+    /**
+     * 是否统计 SELECT 返回的行数（需要数据源代理 ResultSet 并注册方法监听）
+     */
+    public boolean isCountRows() {
+        return countRows;
+    }
+
+    // ============ 请求上下文 ============
+
+    /**
+     * 请求开始：之后本线程执行的语句归属于 handler（控制器方法）
+     */
+    public void beginRequest(String handler, String uri) {
+        currentRequest.set(new RequestProfile(handler, uri));
+    }
+
+    /**
+     * 请求结束：检查预算，超出时记录日志并保留明细
+     */
+    public void endRequest() {
+        RequestProfile request = currentRequest.get();
+        currentRequest.remove();
+        threadState.get().statements.clear();
+        if (request == null) {
+            return;
+        }
+        if (request.statementCount <= maxStatements && request.dbNanos <= maxDbTimeNanos) {
+            return;
+        }
+        SqlRequestProfileDTO dto = request.toDTO();
+        log.warn("SQL 超出预算：{} {} 执行 {} 条语句，数据库耗时 {} ms（预算 {} 条 / {} ms）",
+                dto.getHandler(), dto.getUri(), dto.getStatementCount(), round(dto.getDbTimeMs()),
+                maxStatements, TimeUnit.NANOSECONDS.toMillis(maxDbTimeNanos));
+        synchronized (slowRequests) {
+            slowRequests.addFirst(dto);
+            while (slowRequests.size() > slowRequestCapacity) {
+                slowRequests.removeLast();
+            }
+        }
+    }
+
+    // ============ datasource-proxy 回调 ============
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        threadState.get().startedAt = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        ThreadState state = threadState.get();
+        long nanos = System.nanoTime() - state.startedAt;
+        RequestProfile request = currentRequest.get();
+        String caller = request != null ? request.handler : BACKGROUND;
+        long affected = affectedRows(execInfo.getResult());
+
+        // 批量执行时耗时按语句平均分摊
+        long share = queryInfoList.isEmpty() ? nanos : nanos / queryInfoList.size();
+        for (QueryInfo query : queryInfoList) {
+            Shape shape = shapeOf(query.getQuery());
+            shape.record(share, affected, caller);
+            StatementRecord record = new StatementRecord(query.getQuery(), bindCount(query), affected, share, shape);
+            if (request != null) {
+                request.add(record, maxRecordedStatements);
+            }
+            if (countRows && execInfo.getStatement() != null && execInfo.getResult() instanceof ResultSet) {
+                // 正常情况下语句关闭时即移除；防止未关闭的语句在长期存活的线程上累积
+                if (state.statements.size() >= MAX_OPEN_STATEMENTS) {
+                    state.statements.clear();
+                }
+                state.statements.put(execInfo.getStatement(), record);
+            }
+            if (share >= slowStatementNanos) {
+                log.warn("慢 SQL：{} ms，{}，{}", round(share / 1e6), caller, shape.sql);
+            }
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    /**
+     * 统计 ResultSet.next() 返回 true 的次数作为 SELECT 行数；语句关闭时释放对应记录
+     */
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        Object target = executionContext.getTarget();
+        String method = executionContext.getMethod().getName();
+        if (target instanceof ResultSet rs && "next".equals(method)) {
+            if (Boolean.TRUE.equals(executionContext.getResult())) {
+                StatementRecord record = recordOf(rs);
+                if (record != null) {
+                    record.rows++;
+                    record.shape.rows.increment();
+                }
+            }
+        } else if (target instanceof Statement && "close".equals(method)) {
+            threadState.get().statements.remove(target);
+        }
+    }
+
+    // ============ 查询 ============
+
+    /**
+     * 最慢的 limit 种语句形状；sort 为 total（总耗时，默认）/ avg（平均耗时）/ max（单次最长）/ count（执行次数）
+     */
+    public List<SqlShapeStatDTO> topShapes(int limit, String sort) {
+        Comparator<SqlShapeStatDTO> order = switch (sort == null ? "total" : sort.toLowerCase()) {
+            case "total" -> Comparator.comparingDouble(SqlShapeStatDTO::getTotalMs);
+            case "avg" -> Comparator.comparingDouble(SqlShapeStatDTO::getAvgMs);
+            case "max" -> Comparator.comparingDouble(SqlShapeStatDTO::getMaxMs);
+            case "count" -> Comparator.comparingLong(SqlShapeStatDTO::getCount);
+            default -> throw new RuntimeException("不支持的排序方式：" + sort + "，仅支持 total / avg / max / count");
+        };
+        return shapes.values().stream()
+                .map(Shape::toDTO)
+                .sorted(order.reversed())
+                .limit(Math.max(1, limit))
+                .toList();
+    }
+
+    /**
+     * 最近超出预算的请求（新的在前）
+     */
+    public List<SqlRequestProfileDTO> slowRequests() {
+        synchronized (slowRequests) {
+            return List.copyOf(slowRequests);
+        }
+    }
+
+    /**
+     * 清空聚合统计与超预算请求记录
+     */
+    public void reset() {
+        shapes.clear();
+        shapesBySql.clear();
+        synchronized (slowRequests) {
+            slowRequests.clear();
+        }
+    }
+
+    /**
+     * 归一化 SQL：字面量替换为 ?，IN (?, ?, ...) 折叠为 IN (?...)，合并空白。
+     * 参数个数不同的同一查询因此聚合到同一形状。
+     */
+    static String normalize(String sql) {
+        String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+        s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+        s = IN_LIST.matcher(s).replaceAll("in (?...)");
+        s = WHITESPACE.matcher(s).replaceAll(" ").trim();
+        return s.length() > MAX_SQL_LENGTH ? s.substring(0, MAX_SQL_LENGTH) + "..." : s;
+    }
+
+    private Shape shapeOf(String sql) {
+        Shape shape = shapesBySql.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        String normalized = normalize(sql);
+        shape = shapes.get(normalized);
+        if (shape == null) {
+            String key = shapes.size() < maxShapes ? normalized : OTHER_SHAPE;
+            shape = shapes.computeIfAbsent(key, Shape::new);
+        }
+        if (shapesBySql.size() < maxShapes * 4) {
+            shapesBySql.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private StatementRecord recordOf(ResultSet rs) {
+        Map<Statement, StatementRecord> statements = threadState.get().statements;
+        if (statements.isEmpty()) {
+            return null;
+        }
+        try {
+            Statement statement = rs.getStatement();
+            return statement != null ? statements.get(statement) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer n) {
+            return Math.max(0, n);
+        }
+        if (result instanceof Long n) {
+            return Math.max(0, n);
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int n : counts) {
+                total += Math.max(0, n);
+            }
+            return total;
+        }
+        return 0;
+    }
+
+    private static int bindCount(QueryInfo query) {
+        int binds = 0;
+        for (List<?> parameters : query.getParametersList()) {
+            binds += parameters.size();
+        }
+        return binds;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // ============ 内部状态 ============
+
+    /**
+     * 线程内状态：当前语句的开始时间，以及“语句 -> 执行记录”的映射（用于在读取结果时累加行数）
+     */
+    private static final class ThreadState {
+        private long startedAt;
+        private final Map<Statement, StatementRecord> statements = new IdentityHashMap<>();
+    }
+
+    private static final class StatementRecord {
+        private final String sql;
+        private final int binds;
+        private long rows;
+        private final long nanos;
+        private final Shape shape;
+
+        StatementRecord(String sql, int binds, long rows, long nanos, Shape shape) {
+            this.sql = sql;
+            this.binds = binds;
+            this.rows = rows;
+            this.nanos = nanos;
+            this.shape = shape;
+        }
+
+        SqlStatementDTO toDTO() {
+            SqlStatementDTO dto = new SqlStatementDTO();
+            dto.setSql(sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql);
+            dto.setBinds(binds);
+            dto.setRows(rows);
+            dto.setDurationMs(round(nanos / 1e6));
+            return dto;
+        }
+    }
+
+    private static final class RequestProfile {
+        private final String handler;
+        private final String uri;
+        private final long startedAt = System.nanoTime();
+        private final List<StatementRecord> statements = new ArrayList<>();
+        private int statementCount;
+        private long dbNanos;
+
+        RequestProfile(String handler, String uri) {
+            this.handler = handler;
+            this.uri = uri;
+        }
+
+        void add(StatementRecord record, int maxRecorded) {
+            statementCount++;
+            dbNanos += record.nanos;
+            if (statements.size() < maxRecorded) {
+                statements.add(record);
+            }
+        }
+
+        SqlRequestProfileDTO toDTO() {
+            SqlRequestProfileDTO dto = new SqlRequestProfileDTO();
+            dto.setHandler(handler);
+            dto.setUri(uri);
+            dto.setFinishedAt(LocalDateTime.now());
+            dto.setStatementCount(statementCount);
+            dto.setDbTimeMs(round(dbNanos / 1e6));
+            dto.setElapsedMs(round((System.nanoTime() - startedAt) / 1e6));
+            dto.setStatements(statements.stream().map(StatementRecord::toDTO).toList());
+            return dto;
+        }
+    }
+
+    private static final class Shape {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final Map<String, LongAdder> callers = new ConcurrentHashMap<>();
+
+        Shape(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, long affected, String caller) {
+            count.increment();
+            totalNanos.add(nanos);
+            rows.add(affected);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            LongAdder calls = callers.get(caller);
+            if (calls == null && callers.size() < MAX_CALLERS_PER_SHAPE) {
+                calls = callers.computeIfAbsent(caller, c -> new LongAdder());
+            }
+            if (calls != null) {
+                calls.increment();
+            }
+        }
+
+        SqlShapeStatDTO toDTO() {
+            long n = count.sum();
+            long total = totalNanos.sum();
+            long rowCount = rows.sum();
+            SqlShapeStatDTO dto = new SqlShapeStatDTO();
+            dto.setSql(sql);
+            dto.setCount(n);
+            dto.setTotalMs(round(total / 1e6));
+            dto.setAvgMs(n == 0 ? 0 : round(total / 1e6 / n));
+            dto.setMaxMs(round(maxNanos.get() / 1e6));
+            dto.setRows(rowCount);
+            dto.setAvgRows(n == 0 ? 0 : round((double) rowCount / n));
+            Map<String, Long> byCaller = new LinkedHashMap<>();
+            callers.entrySet().stream()
+                    .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                    .forEach(e -> byCaller.put(e.getKey(), e.getValue().sum()));
+            dto.setCallers(byCaller);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.repository.RegistrationWaitlistRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 候补人数的内存镜像：号源行ID -> 候补人数。
+ * 取消挂号时先查镜像，绝大多数号源没有候补，可以跳过候补表查询；查询候补人数也不访问数据库。
+ * 变更经 {@link ClusterEventBus} 同步到所有节点，并由定时任务与重连后的全量同步纠正偏差。
+ * 偏差只允许偏多（多查一次候补表），不能偏少（漏掉递补）。
+ */
+@Component
+public class WaitlistMirror {
+
+    private final RegistrationWaitlistRepository waitlistRepository;
+    private final ClusterEventBus eventBus;
+
+    private final Map<Long, Integer> waiting = new ConcurrentHashMap<>();
+
+    /**
+     * 全量重建与增量变更互斥；重建之间也互斥（定时任务与重连同步可能同时触发）
+     */
+    private final Object applyLock = new Object();
+    private final Object reloadLock = new Object();
+
+    /**
+     * 重建期间收到的人数增加（号源行ID -> 增量），在快照之上重放；为 null 表示当前不在重建
+     */
+    private Map<Long, Integer> pendingDuringReload;
+
+    /**
+     * 首次加载完成前镜像不可信，一律按“可能有候补”处理
+     */
+    private volatile boolean loaded;
+
+    public WaitlistMirror(RegistrationWaitlistRepository waitlistRepository, ClusterEventBus eventBus) {
+        this.waitlistRepository = waitlistRepository;
+        this.eventBus = eventBus;
+        eventBus.on(ClusterEventBus.WAITLIST_CHANGED,
+                data -> apply(data.path("slotInventoryId").asLong(), data.path("delta").asInt()));
+        eventBus.onResync(this::reload);
+    }
+
+    public boolean mayHaveWaiters(Long slotInventoryId) {
+        return !loaded || waiting.getOrDefault(slotInventoryId, 0) > 0;
+    }
+
+    public int waitingCount(Long slotInventoryId) {
+        return waiting.getOrDefault(slotInventoryId, 0);
+    }
+
+    /**
+     * 记录候补人数变化，提交后在所有节点生效；须在候补表写入所在的事务内调用
+     */
+    public void changed(Long slotInventoryId, int delta) {
+        eventBus.publish(ClusterEventBus.WAITLIST_CHANGED, Map.of("slotInventoryId", slotInventoryId, "delta", delta));
+    }
+
+    /**
+     * 从候补表全量重建。
+     * 查询快照期间到达的变更无法判断是否已包含在快照中：人数增加在快照上重放（至多重复计入，偏多），
+     * 人数减少不重放（至多未扣减，偏多），由下一次重建纠正。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (applyLock) {
+                pendingDuringReload = new HashMap<>();
+            }
+            try {
+                List<Object[]> rows = waitlistRepository.countWaitingBySlot();
+                Map<Long, Integer> fresh = new HashMap<>();
+                for (Object[] row : rows) {
+                    fresh.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+                }
+                synchronized (applyLock) {
+                    pendingDuringReload.forEach((id, delta) -> fresh.merge(id, delta, Integer::sum));
+                    // 先写入再移除，读者在切换过程中只会看到偏多的旧值
+                    waiting.putAll(fresh);
+                    waiting.keySet().retainAll(fresh.keySet());
+                    loaded = true;
+                }
+            } finally {
+                synchronized (applyLock) {
+                    pendingDuringReload = null;
+                }
+            }
+        }
+    }
+
+    private void apply(Long slotInventoryId, int delta) {
+        synchronized (applyLock) {
+            waiting.compute(slotInventoryId, (id, n) -> {
+                int v = (n == null ? 0 : n) + delta;
+                return v > 0 ? v : null;
+            });
+            if (pendingDuringReload != null && delta > 0) {
+                pendingDuringReload.merge(slotInventoryId, delta, Integer::sum);
+            }
+        }
+    }
+}
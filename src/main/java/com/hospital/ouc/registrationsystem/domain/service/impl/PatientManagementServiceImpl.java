@@ -1,24 +1,32 @@
 // src/main/java/com/hospital/ouc/registrationsystem/domain/service/impl/PatientManagementServiceImpl.java
 package com.hospital.ouc.registrationsystem.domain.service.impl;
 
+import com.hospital.ouc.registrationsystem.web.dto.CursorPageDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientQueryDTO;
 import com.hospital.ouc.registrationsystem.domain.entity.AppUser;
 import com.hospital.ouc.registrationsystem.domain.entity.PatientProfile;
+import com.hospital.ouc.registrationsystem.domain.enums.CountMode;
 import com.hospital.ouc.registrationsystem.domain.enums.Role;
 import com.hospital.ouc.registrationsystem.domain.service.BusinessException;
 import com.hospital.ouc.registrationsystem.domain.repository.AppUserRepository;
 import com.hospital.ouc.registrationsystem.domain.repository.PatientProfileRepository;
 import com.hospital.ouc.registrationsystem.domain.service.PatientManagementService;
+import com.hospital.ouc.registrationsystem.domain.service.PlannerRowEstimator;
+import com.hospital.ouc.registrationsystem.domain.specification.KeysetSpecification;
+import com.hospital.ouc.registrationsystem.domain.specification.PatientProfileSpecification;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class PatientManagementServiceImpl implements PatientManagementService {
@@ -26,6 +34,10 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     private final PatientProfileRepository patientProfileRepository;
     private final AppUserRepository appUserRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PlannerRowEstimator rowEstimator;
+
+    // 游标分页单页上限
+    private static final int MAX_SCROLL_SIZE = 200;
 
     /** 新增患者：强制校验所有必填字段，创建用户+档案 */
     @Override
@@ -72,16 +84,50 @@ public class PatientManagementServiceImpl implements PatientManagementService {
     @Override
     public Page<PatientDTO> queryPatients(PatientQueryDTO queryDTO) {
         Pageable pageable = PageRequest.of(queryDTO.getPageNum() - 1, queryDTO.getPageSize());
-        Page<PatientProfile> profilePage = patientProfileRepository.findByCondition(
-                queryDTO.getName(),
-                queryDTO.getIdCard(),
-                queryDTO.getPhoneNumber(),
-                queryDTO.getGender(),
-                pageable
-        );
+        // 带 keyword 时按相似度排序，否则不排序（与原查询一致）
+        Page<PatientProfile> profilePage = patientProfileRepository.findAll(
+                PatientProfileSpecification.build(queryDTO), pageable);
         return profilePage.map(profile -> convertToDTO(profile, profile.getUser()));
     }
 
+    /** 游标分页查询患者：从上一页最后一行之后按索引顺序读取，不做 OFFSET，总数可选或取估算值 */
+    @Override
+    public CursorPageDTO<PatientDTO> scrollPatients(PatientQueryDTO queryDTO, String cursor, int size, String sort, String count) {
+        KeysetSpecification.Order order = KeysetSpecification.Order.parse(sort);
+        KeysetSpecification.Cursor after = KeysetSpecification.Cursor.decode(cursor, order);
+        CountMode countMode = CountMode.fromString(count);
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        Specification<PatientProfile> filter = PatientProfileSpecification.build(queryDTO);
+        // 多取一行用于判断是否还有下一页；账号随同一条查询取回
+        List<PatientProfile> rows = patientProfileRepository.findBy(
+                filter.and(KeysetSpecification.after(order, after)),
+                q -> q.sortBy(order.toSort()).limit(limit + 1).project("user").all());
+        boolean hasMore = rows.size() > limit;
+        List<PatientProfile> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            PatientProfile last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new KeysetSpecification.Cursor(last.getId(), last.getName()).encode(order);
+        }
+
+        // 总数只在首页计算，翻页时不重复统计
+        Long total = null;
+        if (after == null) {
+            if (countMode == CountMode.EXACT) {
+                total = patientProfileRepository.count(filter);
+            } else if (countMode == CountMode.ESTIMATE) {
+                total = rowEstimator.estimate(PatientProfile.class, filter);
+            }
+        }
+
+        List<PatientDTO> content = pageRows.stream()
+                .map(profile -> convertToDTO(profile, profile.getUser()))
+                .toList();
+        return CursorPageDTO.of(content, hasMore, nextCursor, total, countMode.name().toLowerCase());
+    }
+
     /** 根据ID查询患者：仅查未删除患者 */
     @Override
     public PatientDTO getPatientById(Long id) {
@@ -11,6 +11,7 @@ import com.hospital.ouc.registrationsystem.domain.repository.DepartmentRepositor
 import com.hospital.ouc.registrationsystem.domain.repository.DoctorDepartmentScheduleRepository;
 import com.hospital.ouc.registrationsystem.domain.repository.DoctorProfileRepository;
 import com.hospital.ouc.registrationsystem.domain.service.ScheduleManageService;
+import com.hospital.ouc.registrationsystem.domain.service.SlotInventoryService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -33,6 +34,7 @@ public class ScheduleManageServiceImpl implements ScheduleManageService {
     private final DoctorDepartmentScheduleRepository scheduleRepository;
     private final DoctorProfileRepository doctorProfileRepository;
     private final DepartmentRepository departmentRepository;
+    private final SlotInventoryService slotInventoryService;
 
     /**
      * 查询指定科室的所有排班记录
@@ -122,7 +124,10 @@ public class ScheduleManageServiceImpl implements ScheduleManageService {
         schedule.setTimeslot(timeSlot);
         schedule.setMaxPatientsPerSlot(maxPatients);
 
-        return scheduleRepository.save(schedule);
+        DoctorDepartmentSchedule saved = scheduleRepository.saveAndFlush(schedule);
+        // 为新排班生成滚动窗口内的号源库存
+        slotInventoryService.syncSchedule(saved);
+        return saved;
     }
 
     /**
@@ -193,6 +198,14 @@ public class ScheduleManageServiceImpl implements ScheduleManageService {
         }
 
         // ========== 3. 更新并保存排班 ==========
+        // 医生、星期或时间段变化时，先按原排班回收未来号源，再按新排班重新生成；
+        // 仅调整号源数 / 科室时原号源行原地更新，其上的候补保留，由定时递补处理新增的号源
+        boolean slotChanged = !existSchedule.getDoctorProfile().getId().equals(doctor.getId())
+                || !existSchedule.getWeekday().equals(scheduleDTO.getWeekday())
+                || existSchedule.getTimeslot() != timeSlot;
+        if (slotChanged) {
+            slotInventoryService.retireSchedule(existSchedule);
+        }
         existSchedule.setDoctorProfile(doctor);
         existSchedule.setDepartment(department);
         existSchedule.setWeekday(scheduleDTO.getWeekday());
@@ -202,7 +215,9 @@ public class ScheduleManageServiceImpl implements ScheduleManageService {
             existSchedule.setMaxPatientsPerSlot(maxPatients);
         }
 
-        return scheduleRepository.save(existSchedule);
+        DoctorDepartmentSchedule saved = scheduleRepository.saveAndFlush(existSchedule);
+        slotInventoryService.syncSchedule(saved);
+        return saved;
     }
 
     /**
@@ -216,11 +231,11 @@ public class ScheduleManageServiceImpl implements ScheduleManageService {
             throw new BusinessException(ResultCodeEnum.PARAM_ERROR.getCode(), "排班ID不能为空");
         }
         // 校验排班是否存在
-        if (!scheduleRepository.existsById(scheduleId)) {
-            throw new BusinessException(ResultCodeEnum.SCHEDULE_NOT_FOUND);
-        }
-        // 删除排班
-        scheduleRepository.deleteById(scheduleId);
+        DoctorDepartmentSchedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new BusinessException(ResultCodeEnum.SCHEDULE_NOT_FOUND));
+        // 回收该排班未来的号源，再删除排班
+        slotInventoryService.retireSchedule(schedule);
+        scheduleRepository.delete(schedule);
     }
 
     /**
@@ -237,7 +252,8 @@ public class ScheduleManageServiceImpl implements ScheduleManageService {
         if (!departmentRepository.existsById(departmentId)) {
             throw new BusinessException(ResultCodeEnum.DEPARTMENT_NOT_FOUND);
         }
-        // 批量删除科室下所有排班
+        // 回收科室未来的号源，再批量删除科室下所有排班
+        slotInventoryService.retireDepartment(departmentId);
         scheduleRepository.deleteByDepartmentId(departmentId);
     }
 }
\ No newline at end of file
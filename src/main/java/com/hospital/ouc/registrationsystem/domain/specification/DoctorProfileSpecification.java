@@ -3,6 +3,7 @@ package com.hospital.ouc.registrationsystem.domain.specification;
 import com.hospital.ouc.registrationsystem.domain.entity.Department;
 import com.hospital.ouc.registrationsystem.domain.entity.DoctorProfile;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorSearchCriteria;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
@@ -28,8 +29,12 @@ public class DoctorProfileSpecification {
                 predicates.add(cb.equal(root.get("doctorId"), criteria.getDoctorId()));
             }
 
+            Expression<String> name = cb.lower(root.get("name"));
+            Expression<String> title = cb.lower(root.get("title"));
+
+            // lower(name) / lower(title) 上有 gin_trgm_ops 索引，包含匹配不再顺序扫描
             if (StringUtils.hasText(criteria.getName())) {
-                predicates.add(cb.like(cb.lower(root.get("name")), "%" + criteria.getName().toLowerCase() + "%"));
+                predicates.add(cb.like(name, TrigramSearch.containsPattern(criteria.getName()), '\\'));
             }
 
             if (StringUtils.hasText(criteria.getGender())) {
@@ -39,7 +44,7 @@ public class DoctorProfileSpecification {
             }
 
             if (StringUtils.hasText(criteria.getTitle())) {
-                predicates.add(cb.like(cb.lower(root.get("title")), "%" + criteria.getTitle().toLowerCase() + "%"));
+                predicates.add(cb.like(title, TrigramSearch.containsPattern(criteria.getTitle()), '\\'));
             }
 
             if (criteria.getDepartmentId() != null) {
@@ -53,6 +58,13 @@ public class DoctorProfileSpecification {
                 predicates.add(cb.equal(root.get("isActive"), !criteria.getDeleted()));
             }
 
+            // 关键字同时检索姓名、职称、工号，按相似度排序（调用方未指定排序时生效）
+            if (StringUtils.hasText(criteria.getKeyword())) {
+                Expression<String> doctorId = cb.lower(root.get("doctorId"));
+                predicates.add(TrigramSearch.matchesAny(cb, criteria.getKeyword(), name, title, doctorId));
+                TrigramSearch.orderByRelevance(query, cb, criteria.getKeyword(), root.get("id"), name, title, doctorId);
+            }
+
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
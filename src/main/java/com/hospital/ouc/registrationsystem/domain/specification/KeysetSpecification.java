@@ -0,0 +1,105 @@
+package com.hospital.ouc.registrationsystem.domain.specification;
+
+import com.hospital.ouc.registrationsystem.domain.service.BusinessException;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标（keyset）分页条件：按 id 或 (name, id) 排序，从上一页最后一行之后继续读取。
+ * 与 offset 分页不同，数据库直接从索引中的游标位置开始扫描，第 N 页与第 1 页的代价相同。
+ * 适用于带有 id、name 属性的实体（患者档案、医生档案）。
+ */
+public final class KeysetSpecification {
+
+    private KeysetSpecification() {
+    }
+
+    /**
+     * 排序方式：byName 为 true 时按 (name, id)，否则按 id；两列同向
+     */
+    public record Order(boolean byName, boolean desc) {
+
+        /**
+         * 解析 "id,desc" / "name,asc" 形式的排序参数，方向缺省为 desc
+         */
+        public static Order parse(String sort) {
+            String[] parts = (sort == null || sort.isBlank() ? "id,desc" : sort).split(",");
+            String field = parts[0].trim();
+            if (!"id".equals(field) && !"name".equals(field)) {
+                throw new BusinessException("游标分页仅支持按 id 或 name 排序");
+            }
+            if (parts.length < 2) {
+                return new Order("name".equals(field), true);
+            }
+            Sort.Direction direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new BusinessException("排序方向仅支持 asc 或 desc"));
+            return new Order("name".equals(field), direction.isDescending());
+        }
+
+        public Sort toSort() {
+            Sort.Direction direction = desc ? Sort.Direction.DESC : Sort.Direction.ASC;
+            return byName ? Sort.by(direction, "name", "id") : Sort.by(direction, "id");
+        }
+
+        private String tag() {
+            return (byName ? "name" : "id") + (desc ? ",desc" : ",asc");
+        }
+    }
+
+    /**
+     * 游标：上一页最后一行的排序键；对外编码为不透明字符串
+     */
+    public record Cursor(Long id, String name) {
+
+        public String encode(Order order) {
+            String raw = order.tag() + "\n" + id + "\n" + (order.byName() ? name : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 解码游标；为空表示首页返回 null。游标须由同一排序方式生成。
+         */
+        public static Cursor decode(String token, Order order) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\n", 3);
+                if (parts.length == 3 && parts[0].equals(order.tag())) {
+                    return new Cursor(Long.parseLong(parts[1]), order.byName() ? parts[2] : null);
+                }
+            } catch (IllegalArgumentException e) {
+                // 非法 Base64 或 id，按无效游标处理
+            }
+            throw new BusinessException("分页游标无效或与排序方式不一致");
+        }
+    }
+
+    /**
+     * 位于游标之后的行。按 (name, id) 时额外给出 name 的闭区间条件，
+     * 使数据库能以 (name, id) 索引的范围扫描定位起点，而不是从头过滤。
+     */
+    public static <T> Specification<T> after(Order order, Cursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return cb.conjunction();
+            }
+            Path<Long> id = root.get("id");
+            if (!order.byName()) {
+                return order.desc() ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+            }
+            Path<String> name = root.get("name");
+            if (order.desc()) {
+                return cb.and(cb.lessThanOrEqualTo(name, cursor.name()),
+                        cb.or(cb.lessThan(name, cursor.name()), cb.lessThan(id, cursor.id())));
+            }
+            return cb.and(cb.greaterThanOrEqualTo(name, cursor.name()),
+                    cb.or(cb.greaterThan(name, cursor.name()), cb.greaterThan(id, cursor.id())));
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.hospital.ouc.registrationsystem.domain.specification;
+
+import com.hospital.ouc.registrationsystem.domain.entity.PatientProfile;
+import com.hospital.ouc.registrationsystem.web.dto.PatientQueryDTO;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 患者检索条件：姓名前缀匹配（不区分大小写），身份证、手机号、性别精确匹配，仅查未删除患者；
+ * keyword 在姓名、手机号、身份证中模糊检索并按相似度排序（见 {@link TrigramSearch}）。
+ */
+public class PatientProfileSpecification {
+
+    public static Specification<PatientProfile> build(PatientQueryDTO query) {
+        return (root, q, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isTrue(root.get("isActive")));
+
+            if (query == null) return cb.and(predicates.toArray(new Predicate[0]));
+
+            Expression<String> name = cb.lower(root.get("name"));
+            Expression<String> phoneNumber = root.get("phoneNumber");
+            Expression<String> idCard = cb.lower(root.get("idCard"));
+
+            if (StringUtils.hasText(query.getName())) {
+                String prefix = TrigramSearch.containsPattern(query.getName()).substring(1);
+                predicates.add(cb.like(name, prefix, '\\'));
+            }
+
+            if (StringUtils.hasText(query.getIdCard())) {
+                predicates.add(cb.equal(root.get("idCard"), query.getIdCard()));
+            }
+
+            if (StringUtils.hasText(query.getPhoneNumber())) {
+                predicates.add(cb.equal(root.get("phoneNumber"), query.getPhoneNumber()));
+            }
+
+            if (query.getGender() != null) {
+                predicates.add(cb.equal(root.get("gender"), query.getGender()));
+            }
+
+            if (StringUtils.hasText(query.getKeyword())) {
+                predicates.add(TrigramSearch.matchesAny(cb, query.getKeyword(), name, phoneNumber, idCard));
+                TrigramSearch.orderByRelevance(q, cb, query.getKeyword(), root.get("id"), name, phoneNumber, idCard);
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
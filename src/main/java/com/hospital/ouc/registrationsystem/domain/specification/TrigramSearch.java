@@ -0,0 +1,62 @@
+package com.hospital.ouc.registrationsystem.domain.specification;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.Arrays;
+
+/**
+ * 关键字模糊检索的公共部分（PostgreSQL pg_trgm）。
+ * 匹配条件为 lower(列) LIKE '%关键字%'，由列上的 gin_trgm_ops 索引支持，不再顺序扫描整表；
+ * 排序按 similarity() 相似度从高到低，最接近关键字的记录排在前面。
+ * 关键字至少 3 个字符时索引才能有效缩小范围，更短的关键字退化为索引全扫描。
+ */
+public final class TrigramSearch {
+
+    private TrigramSearch() {
+    }
+
+    /**
+     * 转为小写并转义 LIKE 通配符后的包含匹配模式
+     */
+    public static String containsPattern(String keyword) {
+        String escaped = keyword.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    /**
+     * 任一列包含关键字；columns 为已转为小写的列表达式
+     */
+    @SafeVarargs
+    public static Predicate matchesAny(CriteriaBuilder cb, String keyword, Expression<String>... columns) {
+        String pattern = containsPattern(keyword);
+        return cb.or(Arrays.stream(columns)
+                .map(column -> cb.like(column, pattern, '\\'))
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * 按相似度排序（各列取最大值，null 列被 greatest 忽略），相同时按 id 排序保证翻页稳定。
+     * 仅对数据查询生效：分页的 COUNT 查询不需要排序。
+     */
+    @SafeVarargs
+    public static void orderByRelevance(CriteriaQuery<?> query, CriteriaBuilder cb, String keyword,
+                                        Expression<Long> id, Expression<String>... columns) {
+        if (query == null || Long.class.equals(query.getResultType())) {
+            return;
+        }
+        Expression<String> term = cb.literal(keyword.trim().toLowerCase());
+        Expression<?>[] scores = Arrays.stream(columns)
+                .map(column -> cb.function("similarity", Double.class, column, term))
+                .toArray(Expression<?>[]::new);
+        Expression<Double> relevance = scores.length == 1
+                ? cb.function("similarity", Double.class, columns[0], term)
+                : cb.function("greatest", Double.class, scores);
+        query.orderBy(cb.desc(relevance), cb.asc(id));
+    }
+}
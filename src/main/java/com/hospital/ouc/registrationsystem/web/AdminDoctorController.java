@@ -1,6 +1,7 @@
 package com.hospital.ouc.registrationsystem.web;
 
 import com.hospital.ouc.registrationsystem.domain.service.Admin_DoctorService;
+import com.hospital.ouc.registrationsystem.web.dto.CursorPageDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorUpdateDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorSearchCriteria;
@@ -34,9 +35,10 @@ public class AdminDoctorController {
             @RequestParam(required = false) String title,
             @RequestParam(required = false) Long departmentId,
             @RequestParam(required = false) Boolean deleted,
+            @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,desc") String sort
+            @RequestParam(required = false) String sort
     ) {
         DoctorSearchCriteria criteria = new DoctorSearchCriteria();
         criteria.setId(id);
@@ -46,6 +48,15 @@ public class AdminDoctorController {
         criteria.setTitle(title);
         criteria.setDepartmentId(departmentId);
         criteria.setDeleted(deleted);
+        criteria.setKeyword(keyword);
+
+        // 带关键字且未指定排序时按相似度排序（由检索条件决定），否则默认 id 倒序
+        if (sort == null || sort.isBlank()) {
+            if (keyword != null && !keyword.isBlank()) {
+                return ResponseEntity.ok(doctorService.searchDoctors(criteria, PageRequest.of(page, size)));
+            }
+            sort = "id,desc";
+        }
 
         // parse sort like "id,desc" or "name,asc"
         String[] sortParts = sort.split(",");
@@ -55,6 +66,35 @@ public class AdminDoctorController {
         return ResponseEntity.ok(doctorService.searchDoctors(criteria, pageable));
     }
 
+    // 游标分页查询医生：sort 支持 id / name（如 "name,asc"），count 为 none / estimate / exact
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<DoctorDTO>> scrollDoctors(
+            @RequestParam(required = false) Long id,
+            @RequestParam(required = false) String doctorId,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String gender,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Boolean deleted,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(defaultValue = "estimate") String count
+    ) {
+        DoctorSearchCriteria criteria = new DoctorSearchCriteria();
+        criteria.setId(id);
+        criteria.setDoctorId(doctorId);
+        criteria.setName(name);
+        criteria.setGender(gender);
+        criteria.setTitle(title);
+        criteria.setDepartmentId(departmentId);
+        criteria.setDeleted(deleted);
+        criteria.setKeyword(keyword);
+
+        return ResponseEntity.ok(doctorService.scrollDoctors(criteria, cursor, size, sort, count));
+    }
+
     // 根据ID获取医生
     @GetMapping("/{id}")
     public ResponseEntity<DoctorDTO> getDoctorById(@PathVariable Long id) {
@@ -0,0 +1,75 @@
+package com.hospital.ouc.registrationsystem.web;
+
+import com.hospital.ouc.registrationsystem.domain.enums.ExportFormat;
+import com.hospital.ouc.registrationsystem.domain.service.DataExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 管理端数据导出：流式输出 CSV / NDJSON，边查询边写出，适合大批量报表导出
+ */
+@RestController
+@RequestMapping("/api/admin/export")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')") // 仅管理员可访问
+public class AdminExportController {
+
+    private final DataExportService exportService;
+
+    /**
+     * 导出挂号记录：from / to 为就诊日期范围（含），status 如 PENDING / CANCELLED，format 为 csv 或 ndjson
+     */
+    @GetMapping("/registrations")
+    public ResponseEntity<StreamingResponseBody> exportRegistrations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long doctorProfileId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromString(format);
+        // 在返回响应前申请许可，超过并发上限时直接返回错误而不是空文件
+        DataExportService.Permit permit = exportService.reserve();
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                exportService.exportRegistrations(from, to, status, doctorProfileId, exportFormat, out);
+            }
+        };
+        return attachment("registrations", exportFormat, body);
+    }
+
+    /**
+     * 导出患者档案：默认仅未删除患者，includeInactive=true 时包含已删除患者
+     */
+    @GetMapping("/patients")
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromString(format);
+        DataExportService.Permit permit = exportService.reserve();
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                exportService.exportPatients(includeInactive, exportFormat, out);
+            }
+        };
+        return attachment("patients", exportFormat, body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, ExportFormat format,
+                                                                    StreamingResponseBody body) {
+        String filename = name + "-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(body);
+    }
+}
@@ -1,6 +1,7 @@
 // src/main/java/com/hospital/ouc/registrationsystem/web/AdminPatientController.java
 package com.hospital.ouc.registrationsystem.web;
 
+import com.hospital.ouc.registrationsystem.web.dto.CursorPageDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientQueryDTO;
 import com.hospital.ouc.registrationsystem.domain.service.PatientManagementService;
@@ -36,6 +37,17 @@ public class AdminPatientController {
         return ResponseEntity.ok(page);
     }
 
+    /** 游标分页查询患者：翻页代价与页码无关，sort 支持 id / name，count 为 none / estimate / exact */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<PatientDTO>> scrollPatients(
+            PatientQueryDTO queryDTO,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(defaultValue = "estimate") String count) {
+        return ResponseEntity.ok(patientManagementService.scrollPatients(queryDTO, cursor, size, sort, count));
+    }
+
     /** 根据ID查询单个患者 */
     @GetMapping("/{id}")
     public ResponseEntity<PatientDTO> getPatientById(@PathVariable Long id) {
@@ -0,0 +1,49 @@
+package com.hospital.ouc.registrationsystem.web;
+
+import com.hospital.ouc.registrationsystem.domain.service.SqlProfiler;
+import com.hospital.ouc.registrationsystem.web.dto.SqlRequestProfileDTO;
+import com.hospital.ouc.registrationsystem.web.dto.SqlShapeStatDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 管理端 SQL 剖析：按归一化 SQL 聚合的慢语句排行，以及最近超出 SQL 预算的请求
+ */
+@RestController
+@RequestMapping("/api/admin/sql-profile")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')") // 仅管理员可访问
+public class AdminSqlProfileController {
+
+    private final SqlProfiler sqlProfiler;
+
+    /**
+     * 最慢的 limit 种语句，sort 为 total（总耗时，默认）/ avg / max / count
+     */
+    @GetMapping("/statements")
+    public ResponseEntity<List<SqlShapeStatDTO>> topStatements(@RequestParam(defaultValue = "20") int limit,
+                                                               @RequestParam(defaultValue = "total") String sort) {
+        return ResponseEntity.ok(sqlProfiler.topShapes(limit, sort));
+    }
+
+    /**
+     * 最近超出语句条数或数据库耗时预算的请求（含语句明细），新的在前
+     */
+    @GetMapping("/slow-requests")
+    public ResponseEntity<List<SqlRequestProfileDTO>> slowRequests() {
+        return ResponseEntity.ok(sqlProfiler.slowRequests());
+    }
+
+    /**
+     * 清空统计（如发布新版本后重新观察）
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        sqlProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
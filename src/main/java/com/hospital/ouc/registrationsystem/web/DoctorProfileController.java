@@ -1,18 +1,16 @@
 package com.hospital.ouc.registrationsystem.web;
 
-import com.hospital.ouc.registrationsystem.domain.entity.DoctorDisease;
 import com.hospital.ouc.registrationsystem.domain.repository.AppUserRepository;
-import com.hospital.ouc.registrationsystem.domain.repository.DoctorDiseaseRepository;
 import com.hospital.ouc.registrationsystem.domain.repository.DoctorProfileRepository;
 import com.hospital.ouc.registrationsystem.domain.service.Admin_DoctorService;
 import com.hospital.ouc.registrationsystem.domain.service.BusinessException;
+import com.hospital.ouc.registrationsystem.domain.service.DoctorAssociationLoader;
 import com.hospital.ouc.registrationsystem.domain.service.DutyScheduleService;
 import com.hospital.ouc.registrationsystem.domain.entity.DoctorDutySchedule;
 import com.hospital.ouc.registrationsystem.web.dto.ChangePasswordRequest;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorSelfDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorUpdateDTO;
-import com.hospital.ouc.registrationsystem.web.dto.DiseaseDTO;
 import com.hospital.ouc.registrationsystem.web.dto.DoctorDutySimpleDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -34,7 +32,7 @@ public class DoctorProfileController {
     private final Admin_DoctorService doctorService;
     private final AppUserRepository appUserRepository;
     private final DoctorProfileRepository doctorProfileRepository;
-    private final DoctorDiseaseRepository doctorDiseaseRepository;
+    private final DoctorAssociationLoader associationLoader;
     private final DutyScheduleService dutyScheduleService;
 
     private static final String SALT = "OucWebDev123";
@@ -130,22 +128,8 @@ public class DoctorProfileController {
         self.setDepartmentId(dto.getDepartmentId());
         self.setDepartmentName(dto.getDepartmentName());
 
-        // load diseases with names
-        List<DoctorDisease> dds = doctorDiseaseRepository.findByDoctorProfileId(dto.getId());
-        List<DiseaseDTO> diseaseDTOs = dds.stream().map(dd -> {
-            var d = dd.getDisease();
-            DiseaseDTO di = new DiseaseDTO();
-            di.setId(d.getId());
-            di.setName(d.getName());
-            di.setCode(d.getCode());
-            di.setDescription(d.getDescription());
-            if (d.getDepartment() != null) {
-                di.setDepartmentId(d.getDepartment().getId());
-                di.setDepartmentName(d.getDepartment().getDepartmentName());
-            }
-            return di;
-        }).collect(Collectors.toList());
-        self.setDiseases(diseaseDTOs);
+        // load diseases with names (疾病与所属科室一条查询取回)
+        self.setDiseases(associationLoader.loadDiseases(dto.getId()));
         return self;
     }
 
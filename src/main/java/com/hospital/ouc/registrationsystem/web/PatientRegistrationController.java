@@ -1,9 +1,16 @@
 package com.hospital.ouc.registrationsystem.web;
 
+import com.hospital.ouc.registrationsystem.domain.service.AutoRegistrationService;
 import com.hospital.ouc.registrationsystem.domain.service.PatientRegistrationService;
+import com.hospital.ouc.registrationsystem.domain.service.RegistrationAdmissionQueue;
+import com.hospital.ouc.registrationsystem.domain.service.RegistrationWaitlistService;
+import com.hospital.ouc.registrationsystem.web.dto.AutoRegistrationRequestDTO;
 import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
 import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
 import com.hospital.ouc.registrationsystem.web.dto.PatientRegistrationInfoDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationTicketDTO;
+import com.hospital.ouc.registrationsystem.web.dto.WaitlistEntryDTO;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,17 +22,98 @@ import java.util.List;
 public class PatientRegistrationController {
 
     private final PatientRegistrationService registrationService;
+    private final RegistrationAdmissionQueue admissionQueue;
+    private final RegistrationWaitlistService waitlistService;
+    private final AutoRegistrationService autoRegistrationService;
 
-    public PatientRegistrationController(PatientRegistrationService registrationService) {
+    public PatientRegistrationController(PatientRegistrationService registrationService,
+                                         RegistrationAdmissionQueue admissionQueue,
+                                         RegistrationWaitlistService waitlistService,
+                                         AutoRegistrationService autoRegistrationService) {
         this.registrationService = registrationService;
+        this.admissionQueue = admissionQueue;
+        this.waitlistService = waitlistService;
+        this.autoRegistrationService = autoRegistrationService;
     }
 
+    /**
+     * 挂号。客户端可携带 Idempotency-Key 请求头（如 UUID），超时重试时使用同一个键，
+     * 服务端返回首次的挂号结果而不会重复挂号。
+     * 开启放号模式（registration.admission.enabled）时请求经号源排队处理，返回排队凭证，状态码同 /queue。
+     */
     @PostMapping
-    public ResponseEntity<RegistrationResponseDTO> register(@RequestBody RegistrationRequestDTO request) {
-        RegistrationResponseDTO resp = registrationService.register(request);
+    public ResponseEntity<?> register(@RequestBody RegistrationRequestDTO request,
+                                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 100)) {
+            throw new RuntimeException("Idempotency-Key 长度应为 1-100 个字符");
+        }
+        if (admissionQueue.isEnabled()) {
+            return ticketResponse(admissionQueue.submit(request, idempotencyKey));
+        }
+        RegistrationResponseDTO resp = registrationService.register(request, idempotencyKey);
         return ResponseEntity.ok(resp);
     }
 
+    /**
+     * 自动分配挂号：只需疾病（可选星期 / AM、PM 偏好），预约一周内最早有号的医生时段。
+     * 近一周内没有可预约的号源时返回错误信息，前端可引导加入候补。
+     */
+    @PostMapping("/auto")
+    public ResponseEntity<RegistrationResponseDTO> autoRegister(@RequestBody AutoRegistrationRequestDTO request) {
+        return ResponseEntity.ok(autoRegistrationService.autoRegister(request));
+    }
+
+    /**
+     * 排队挂号（放号模式）：立即返回排队凭证（202），结果通过 /ws 的 registration_result 消息推送，
+     * 或轮询 GET /api/registration/tickets/{ticketId}。排队已满返回 429；未开启排队时同步处理并返回 200。
+     */
+    @PostMapping("/queue")
+    public ResponseEntity<RegistrationTicketDTO> enqueue(@RequestBody RegistrationRequestDTO request) {
+        return ticketResponse(admissionQueue.submit(request));
+    }
+
+    // 排队中 202，队列已满 429，已同步完成 200
+    private static ResponseEntity<RegistrationTicketDTO> ticketResponse(RegistrationTicketDTO ticket) {
+        HttpStatus status;
+        if (RegistrationAdmissionQueue.TicketStatus.QUEUED.name().equals(ticket.getStatus())) {
+            status = HttpStatus.ACCEPTED;
+        } else if (RegistrationAdmissionQueue.TicketStatus.REJECTED.name().equals(ticket.getStatus())) {
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        } else {
+            status = HttpStatus.OK;
+        }
+        return ResponseEntity.status(status).body(ticket);
+    }
+
+    // 查询排队凭证状态
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<RegistrationTicketDTO> getTicket(@PathVariable String ticketId) {
+        return ResponseEntity.ok(admissionQueue.getTicket(ticketId));
+    }
+
+    /**
+     * 加入候补（号源已满时）：有人取消后按加入顺序自动递补，结果通过 /ws 的 waitlist_promoted 消息推送。
+     * 重复加入返回原候补记录。
+     */
+    @PostMapping("/waitlist")
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(@RequestBody RegistrationRequestDTO request) {
+        return ResponseEntity.ok(waitlistService.join(request));
+    }
+
+    // 查询患者的候补记录
+    @GetMapping("/waitlist/patient/{patientProfileId}")
+    public ResponseEntity<List<WaitlistEntryDTO>> listWaitlist(@PathVariable Long patientProfileId) {
+        return ResponseEntity.ok(waitlistService.listByPatient(patientProfileId));
+    }
+
+    // 退出候补
+    @DeleteMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long waitlistId,
+                                              @RequestParam Long patientProfileId) {
+        waitlistService.leave(waitlistId, patientProfileId);
+        return ResponseEntity.noContent().build();
+    }
+
     // 新增：根据患者档案ID查询挂号记录
     @GetMapping("/patient/{patientProfileId}")
     public ResponseEntity<List<PatientRegistrationInfoDTO>> listByPatient(@PathVariable Long patientProfileId) {
@@ -38,11 +38,26 @@ public class PatientScheduleController {
     }
 
     /**
-     * 根据疾病ID获取医生列表
+     * 疾病输入联想：q 可为名称片段、疾病代码、全拼或拼音首字母（如 “胃炎”、“weiyan”、“wy”），默认返回 10 条
+     */
+    @GetMapping("/diseases/search")
+    public ResponseEntity<List<DiseaseDTO>> searchDiseases(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(scheduleService.searchDiseases(q, limit));
+    }
+
+    /**
+     * 根据疾病ID获取医生列表。
+     * weekday / timeslot 可选，传入时只返回该时段仍有余号的医生（timeslot 支持 AM、PM 或 AM1..PM4）。
      */
     @GetMapping("/disease/{diseaseId}/doctors")
-    public ResponseEntity<List<DoctorDTO>> getDoctorsByDisease(@PathVariable Long diseaseId) {
-        List<DoctorDTO> doctors = scheduleService.getDoctorsByDisease(diseaseId);
+    public ResponseEntity<List<DoctorDTO>> getDoctorsByDisease(
+            @PathVariable Long diseaseId,
+            @RequestParam(required = false) Integer weekday,
+            @RequestParam(required = false) String timeslot) {
+        List<DoctorDTO> doctors = scheduleService.filterByFreeSlot(
+                scheduleService.getDoctorsByDisease(diseaseId), weekday, timeslot);
         return ResponseEntity.ok(doctors);
     }
 
@@ -81,22 +96,28 @@ public class PatientScheduleController {
     }
 
     /**
-     * 根据科室ID获取医生列表
+     * 根据科室ID获取医生列表，weekday / timeslot 过滤规则同上
      */
     @GetMapping("/department/{departmentId}/doctors")
-    public ResponseEntity<List<DoctorDTO>> getDoctorsByDepartment(@PathVariable Long departmentId) {
-        List<DoctorDTO> doctors = scheduleService.getDoctorsByDepartment(departmentId);
+    public ResponseEntity<List<DoctorDTO>> getDoctorsByDepartment(
+            @PathVariable Long departmentId,
+            @RequestParam(required = false) Integer weekday,
+            @RequestParam(required = false) String timeslot) {
+        List<DoctorDTO> doctors = scheduleService.filterByFreeSlot(
+                scheduleService.getDoctorsByDepartment(departmentId), weekday, timeslot);
         return ResponseEntity.ok(doctors);
     }
 
     /**
-     * 获取医院医生信息供患者浏览，可选按科室或疾病筛选
+     * 获取医院医生信息供患者浏览，可选按科室、疾病或有余号的星期/时段筛选
      */
     @GetMapping("/doctors")
     public ResponseEntity<List<DoctorForPatientDTO>> getDoctorsOverview(
             @RequestParam(required = false) Long departmentId,
-            @RequestParam(required = false) Long diseaseId) {
-        List<DoctorForPatientDTO> doctors = scheduleService.getDoctorsOverview(departmentId, diseaseId);
+            @RequestParam(required = false) Long diseaseId,
+            @RequestParam(required = false) Integer weekday,
+            @RequestParam(required = false) String timeslot) {
+        List<DoctorForPatientDTO> doctors = scheduleService.getDoctorsOverview(departmentId, diseaseId, weekday, timeslot);
         return ResponseEntity.ok(doctors);
     }
 }
@@ -0,0 +1,39 @@
+package com.hospital.ouc.registrationsystem.web;
+
+import com.hospital.ouc.registrationsystem.domain.service.SqlProfiler;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * 为 SQL 剖析器标记请求：请求线程上执行的语句归属于处理它的控制器方法（如 PatientScheduleController.getDiseaseTimetable）。
+ * 异步请求（如数据导出）在控制器返回时结束标记，之后在异步线程上的语句按 background 统计。
+ */
+public class SqlProfilingInterceptor implements AsyncHandlerInterceptor {
+
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfilingInterceptor(SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            sqlProfiler.beginRequest(method.getBeanType().getSimpleName() + "." + method.getMethod().getName(),
+                    request.getMethod() + " " + request.getRequestURI());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        sqlProfiler.endRequest();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlProfiler.endRequest();
+    }
+}
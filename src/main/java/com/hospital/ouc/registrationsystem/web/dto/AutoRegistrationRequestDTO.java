@@ -0,0 +1,14 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+/**
+ * 自动分配挂号请求 DTO：只指定疾病，由系统选择最早有号的医生与时段。
+ */
+@Data
+public class AutoRegistrationRequestDTO {
+    private Long patientProfileId;
+    private Long diseaseId;
+    private Integer weekday;  // 可选，1-5，只在该星期中查找
+    private String timeslot;  // 可选，AM / PM 表示上午或下午，也可指定 AM1..PM4
+}
@@ -0,0 +1,32 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标（keyset）分页结果。
+ * 下一页以 nextCursor 作为 cursor 参数请求，hasMore 为 false 时已到末页。
+ * totalElements 只在首页（未携带 cursor）按 countMode 计算，其余页为 null。
+ */
+@Data
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+    private Long totalElements;
+    private String countMode;
+
+    public static <T> CursorPageDTO<T> of(List<T> content, boolean hasMore, String nextCursor,
+                                          Long totalElements, String countMode) {
+        CursorPageDTO<T> page = new CursorPageDTO<>();
+        page.setContent(content);
+        page.setSize(content.size());
+        page.setHasMore(hasMore);
+        page.setNextCursor(nextCursor);
+        page.setTotalElements(totalElements);
+        page.setCountMode(countMode);
+        return page;
+    }
+}
@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.web.dto;
 
 import lombok.Data;
 
+import java.time.LocalDate;
+
 @Data
 public class DiseaseTimetableItemDTO {
     private Long doctorProfileId;   // 医生档案ID
@@ -10,6 +12,7 @@ public class DiseaseTimetableItemDTO {
     private String doctorTitle;
     private String departmentName;
     private Integer weekday;        // 1-5
+    private LocalDate visitDate;    // 该星期最近一次的就诊日期
     private String timeslot;        // AM1..PM4
     private String timeDescription; // 上午/下午具体时段
     private Integer currentPatients;
@@ -10,6 +10,10 @@ public class DoctorSearchCriteria {
     private String gender;
     private String title;
     private Long departmentId;
+    /**
+     * 关键字：在姓名、职称、工号中模糊检索，按相似度排序
+     */
+    private String keyword;
     /**
      * 表示是否查询已软删除的记录：
      *  - null 表示不按软删除过滤
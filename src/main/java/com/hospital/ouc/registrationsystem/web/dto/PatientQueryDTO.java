@@ -9,6 +9,7 @@ public class PatientQueryDTO {
     private String idCard; // 身份证精确查询
     private String phoneNumber; // 手机号精确查询
     private Gender gender; // 性别
+    private String keyword; // 姓名/手机号/身份证模糊检索，按相似度排序
     private Integer pageNum = 1; // 页码，默认1
     private Integer pageSize = 10; // 页大小，默认10
 }
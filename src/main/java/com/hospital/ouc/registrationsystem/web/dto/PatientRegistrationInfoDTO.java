@@ -2,6 +2,7 @@ package com.hospital.ouc.registrationsystem.web.dto;
 
 import lombok.Data;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -20,6 +21,7 @@ public class PatientRegistrationInfoDTO {
 
     private Integer weekday; // 1-5
     private String timeslot; // AM1..PM4
+    private LocalDate visitDate; // 就诊日期（旧数据为空）
     private String status;
     private LocalDateTime registrationTime;
 }
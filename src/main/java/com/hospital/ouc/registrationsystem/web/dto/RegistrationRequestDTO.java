@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.web.dto;
 
 import lombok.Data;
 
+import java.time.LocalDate;
+
 /**
  * 挂号请求 DTO。
  */
@@ -12,4 +14,5 @@ public class RegistrationRequestDTO {
     private Long diseaseId;
     private Integer weekday; // 1-5
     private String timeslot; // AM1..PM4
+    private LocalDate visitDate; // 就诊日期，可选；不传则取今天起最近的对应星期
 }
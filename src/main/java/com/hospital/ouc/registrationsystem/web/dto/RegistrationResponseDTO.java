@@ -2,6 +2,8 @@ package com.hospital.ouc.registrationsystem.web.dto;
 
 import lombok.Data;
 
+import java.time.LocalDate;
+
 /**
  * 挂号响应 DTO。
  */
@@ -13,5 +15,6 @@ public class RegistrationResponseDTO {
     private Long diseaseId;
     private Integer weekday;
     private String timeslot;
+    private LocalDate visitDate;
     private String status;
 }
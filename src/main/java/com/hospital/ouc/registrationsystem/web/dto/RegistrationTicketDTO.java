@@ -0,0 +1,25 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 排队挂号凭证 DTO。
+ * status：QUEUED（排队中）/ CONFIRMED（挂号成功）/ REJECTED（失败，原因见 message）。
+ */
+@Data
+public class RegistrationTicketDTO {
+    private String ticketId;
+    private String status;
+    private Integer position; // 入队时的排队位置，仅 QUEUED 时返回
+    private Long patientProfileId;
+    private Long doctorProfileId;
+    private LocalDate visitDate;
+    private String timeslot;
+    private RegistrationResponseDTO registration; // 挂号成功时的结果
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,21 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 超出 SQL 预算（语句条数或数据库耗时）的请求记录。
+ * statements 最多保留 registration.sql-profiler.max-recorded-statements 条，超出部分只计入 statementCount。
+ */
+@Data
+public class SqlRequestProfileDTO {
+    private String handler;          // 控制器方法，如 PatientScheduleController.getDiseaseTimetable
+    private String uri;
+    private LocalDateTime finishedAt;
+    private int statementCount;
+    private double dbTimeMs;
+    private double elapsedMs;
+    private List<SqlStatementDTO> statements;
+}
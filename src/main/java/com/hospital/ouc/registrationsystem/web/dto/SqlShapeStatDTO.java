@@ -0,0 +1,21 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 按归一化 SQL（字面量替换为 ?、IN 列表折叠）聚合的语句统计。
+ * callers 为发出该语句最多的控制器方法及次数（非请求线程的语句记为 background）。
+ */
+@Data
+public class SqlShapeStatDTO {
+    private String sql;
+    private long count;
+    private double totalMs;
+    private double avgMs;
+    private double maxMs;
+    private long rows;
+    private double avgRows;
+    private Map<String, Long> callers;
+}
@@ -0,0 +1,14 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+/**
+ * 单条 SQL 的执行记录：语句文本、绑定参数个数、返回 / 影响行数与耗时
+ */
+@Data
+public class SqlStatementDTO {
+    private String sql;
+    private int binds;
+    private long rows;
+    private double durationMs;
+}
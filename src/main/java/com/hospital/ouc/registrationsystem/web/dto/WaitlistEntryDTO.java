@@ -0,0 +1,28 @@
+package com.hospital.ouc.registrationsystem.web.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 候补记录 DTO。
+ * status：WAITING（候补中）/ PROMOTED（已递补，见 registrationId）/ CANCELLED / EXPIRED。
+ */
+@Data
+public class WaitlistEntryDTO {
+    private Long id;
+    private String status;
+    private Integer position;     // 当前排位（从 1 开始），仅 WAITING 时返回
+    private Integer waitingCount; // 该号源当前候补总人数，仅 WAITING 时返回
+    private Long patientProfileId;
+    private Long doctorProfileId;
+    private String doctorName;
+    private Long diseaseId;
+    private Integer weekday;
+    private String timeslot;
+    private LocalDate visitDate;
+    private Long registrationId;
+    private LocalDateTime createdAt;
+    private LocalDateTime promotedAt;
+}
@@ -0,0 +1,13 @@
+package com.hospital.ouc.registrationsystem.web.ws;
+
+/**
+ * 会话发送队列已满时的处理策略（registration.ws.overflow-policy）。
+ */
+public enum OverflowPolicy {
+    /** 丢弃队列中最旧的一条，保留最新消息 */
+    DROP_OLDEST,
+    /** 同一合并键的消息只保留最新一条；没有可合并的消息时退化为 DROP_OLDEST */
+    COALESCE,
+    /** 断开跟不上的慢客户端 */
+    DISCONNECT
+}
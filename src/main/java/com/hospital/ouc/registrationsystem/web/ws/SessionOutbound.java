@@ -0,0 +1,82 @@
+package com.hospital.ouc.registrationsystem.web.ws;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个 WebSocket 会话的有界发送队列。
+ * 生产者（业务线程）只入队，不做网络 IO；由单个排空任务按顺序发送，
+ * 因此同一会话不会出现并发 sendMessage。
+ */
+final class SessionOutbound {
+
+    /**
+     * 待发送消息；coalesceKey 非空时，COALESCE 策略下同键消息只保留最新一条。
+     * enqueuedAt 为发布时刻（System.nanoTime），用于统计从发布到写出的端到端延迟。
+     */
+    record OutboundMessage(String payload, String coalesceKey, long enqueuedAt) {
+
+        OutboundMessage(String payload, String coalesceKey) {
+            this(payload, coalesceKey, System.nanoTime());
+        }
+    }
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Deque<OutboundMessage> queue = new ArrayDeque<>();
+
+    final AtomicBoolean draining = new AtomicBoolean(false);
+    final AtomicLong sent = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+    final AtomicLong coalesced = new AtomicLong();
+
+    SessionOutbound(WebSocketSession session, int capacity, OverflowPolicy policy) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    WebSocketSession session() {
+        return session;
+    }
+
+    /**
+     * 入队；返回 false 表示按 DISCONNECT 策略应断开该会话。
+     */
+    synchronized boolean offer(OutboundMessage message) {
+        if (policy == OverflowPolicy.COALESCE && message.coalesceKey() != null
+                && queue.removeIf(m -> message.coalesceKey().equals(m.coalesceKey()))) {
+            coalesced.incrementAndGet();
+            queue.addLast(message);
+            return true;
+        }
+        if (queue.size() < capacity) {
+            queue.addLast(message);
+            return true;
+        }
+        dropped.incrementAndGet();
+        if (policy == OverflowPolicy.DISCONNECT) {
+            return false;
+        }
+        queue.pollFirst();
+        queue.addLast(message);
+        return true;
+    }
+
+    synchronized OutboundMessage poll() {
+        return queue.pollFirst();
+    }
+
+    synchronized boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+}
@@ -1,40 +1,362 @@
 package com.hospital.ouc.registrationsystem.web.ws;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.ouc.registrationsystem.domain.service.ClusterEventBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * WebSocket 推送：按主题路由，事件只发送给订阅了对应主题的会话。
+ * 主题：doctor:{医生工号}、patient:{患者档案ID}、department:{科室ID}。
+ * 订阅方式：
+ *  - 连接时携带查询参数，如 /ws?doctorId=D001 或 /ws?patientId=5&departmentId=3
+ *  - 连接后发送 {"action":"subscribe","topic":"doctor:D001"} / {"action":"unsubscribe",...}
+ * 每次推送的开销与该主题的订阅者数量成正比，而非与全部连接数成正比。
+ * <p>
+ * 发送是异步的：publish 只把消息放入各会话的有界发送队列，由虚拟线程逐会话排空，
+ * 调用方（HTTP 线程、事务）不会被慢客户端阻塞；队列满时按 registration.ws.overflow-policy 处理。
+ * <p>
+ * 多实例部署时，业务代码通过 {@link ClusterEventBus} 发布 ws.publish 事件，
+ * 每个节点收到后只推送给连接在本节点上的订阅会话。
+ */
 @Component
 public class SimpleWebSocketHandler extends TextWebSocketHandler {
-    private final Set<WebSocketSession> sessions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // 会话ID -> 发送队列（同时作为全部连接的集合）
+    private final Map<String, SessionOutbound> outbound = new ConcurrentHashMap<>();
+
+    // 主题 -> 订阅会话
+    private final Map<String, Set<WebSocketSession>> subscribers = new ConcurrentHashMap<>();
+
+    // 会话ID -> 已订阅主题，用于断开时清理索引
+    private final Map<String, Set<String>> topicsBySession = new ConcurrentHashMap<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter coalescedCounter;
+    private final Counter disconnectedCounter;
+    private final Timer sendTimer;
+    private final Timer deliveryTimer;
+
+    public SimpleWebSocketHandler(MeterRegistry meterRegistry,
+                                  ClusterEventBus eventBus,
+                                  @Value("${registration.ws.queue-capacity:256}") int queueCapacity,
+                                  @Value("${registration.ws.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sentCounter = Counter.builder("websocket.outbound.sent")
+                .description("已发送的 WebSocket 消息数").register(meterRegistry);
+        this.droppedCounter = Counter.builder("websocket.outbound.dropped")
+                .description("因发送队列已满而丢弃的消息数")
+                .tag("policy", overflowPolicy.name()).register(meterRegistry);
+        this.coalescedCounter = Counter.builder("websocket.outbound.coalesced")
+                .description("被同键新消息合并掉的消息数").register(meterRegistry);
+        this.disconnectedCounter = Counter.builder("websocket.outbound.disconnected")
+                .description("因跟不上推送而被断开的会话数").register(meterRegistry);
+        this.sendTimer = Timer.builder("websocket.outbound.send")
+                .description("单条消息 sendMessage 的耗时（网络写出）")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.deliveryTimer = Timer.builder("websocket.outbound.delivery")
+                .description("消息从发布到写出的延迟（含发送队列中的等待）")
+                .publishPercentileHistogram().register(meterRegistry);
+        Gauge.builder("websocket.sessions", outbound, Map::size)
+                .description("当前 WebSocket 连接数").register(meterRegistry);
+        Gauge.builder("websocket.outbound.queue.depth", this, SimpleWebSocketHandler::totalDepth)
+                .description("全部会话发送队列中的待发消息数").register(meterRegistry);
+        Gauge.builder("websocket.outbound.queue.depth.max", this, SimpleWebSocketHandler::maxDepth)
+                .description("单个会话发送队列的最大积压").register(meterRegistry);
+        eventBus.on(ClusterEventBus.WS_PUBLISH, this::onClusterPublish);
+    }
+
+    /**
+     * 集群推送事件负载
+     */
+    public static Map<String, Object> publishEvent(Collection<String> topics, String message) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("topics", List.copyOf(topics));
+        data.put("message", message);
+        return data;
+    }
+
+    public static String doctorTopic(String doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    public static String patientTopic(Long patientProfileId) {
+        return "patient:" + patientProfileId;
+    }
+
+    public static String departmentTopic(Long departmentId) {
+        return "department:" + departmentId;
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.add(session);
+        outbound.put(session.getId(), new SessionOutbound(session, queueCapacity, overflowPolicy));
+        if (session.getUri() == null) {
+            return;
+        }
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        subscribeAll(session, params.get("doctorId"), "doctor:");
+        subscribeAll(session, params.get("patientId"), "patient:");
+        subscribeAll(session, params.get("departmentId"), "department:");
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        try {
+            JsonNode node = objectMapper.readTree(message.getPayload());
+            String action = node.path("action").asText("");
+            String topic = node.path("topic").asText("");
+            if (!isValidTopic(topic)) {
+                return;
+            }
+            if ("subscribe".equals(action)) {
+                subscribe(session, topic);
+            } else if ("unsubscribe".equals(action)) {
+                unsubscribe(session, topic);
+            }
+        } catch (IOException e) {
+            // ignore malformed client messages
+        }
     }
 
     @Override
-    public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
-        sessions.remove(session);
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        outbound.remove(session.getId());
+        Set<String> topics = topicsBySession.remove(session.getId());
+        if (topics != null) {
+            for (String topic : topics) {
+                removeSubscriber(topic, session);
+            }
+        }
+    }
+
+    /**
+     * 推送给某个主题的订阅者
+     */
+    public void publish(String topic, String message) {
+        publish(List.of(topic), message, null);
+    }
+
+    /**
+     * 推送给多个主题的订阅者；同时订阅了其中多个主题的会话只收到一次
+     */
+    public void publish(Collection<String> topics, String message) {
+        publish(topics, message, null);
+    }
+
+    /**
+     * 推送给多个主题的订阅者。coalesceKey 非空时，COALESCE 策略下同键的积压消息只保留最新一条
+     * （适用于“最新状态”类事件，如号源余量变化）。
+     */
+    public void publish(Collection<String> topics, String message, String coalesceKey) {
+        Set<WebSocketSession> targets = new HashSet<>();
+        for (String topic : topics) {
+            Set<WebSocketSession> s = subscribers.get(topic);
+            if (s != null) {
+                targets.addAll(s);
+            }
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+        SessionOutbound.OutboundMessage m = new SessionOutbound.OutboundMessage(message, coalesceKey);
+        for (WebSocketSession s : targets) {
+            enqueue(outbound.get(s.getId()), m);
+        }
     }
 
+    /**
+     * 推送给全部连接（仅用于真正全局的事件）
+     */
     public void broadcast(String message) {
-        TextMessage m = new TextMessage(message);
-        for (WebSocketSession s : sessions) {
-            try {
-                if (s.isOpen()) {
-                    s.sendMessage(m);
+        SessionOutbound.OutboundMessage m = new SessionOutbound.OutboundMessage(message, null);
+        for (SessionOutbound o : outbound.values()) {
+            enqueue(o, m);
+        }
+    }
+
+    /**
+     * 各会话发送队列的统计，供 actuator 端点 websocketsessions 展示
+     */
+    public List<Map<String, Object>> sessionStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (SessionOutbound o : outbound.values()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("sessionId", o.session().getId());
+            row.put("topics", topicsBySession.getOrDefault(o.session().getId(), Set.of()));
+            row.put("queueDepth", o.depth());
+            row.put("sent", o.sent.get());
+            row.put("dropped", o.dropped.get());
+            row.put("coalesced", o.coalesced.get());
+            stats.add(row);
+        }
+        return stats;
+    }
+
+    private void onClusterPublish(JsonNode data) {
+        List<String> topics = new ArrayList<>();
+        data.path("topics").forEach(t -> topics.add(t.asText()));
+        String coalesceKey = data.hasNonNull("coalesceKey") ? data.get("coalesceKey").asText() : null;
+        publish(topics, data.path("message").asText(), coalesceKey);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    private void enqueue(SessionOutbound o, SessionOutbound.OutboundMessage m) {
+        if (o == null || !o.session().isOpen()) {
+            return;
+        }
+        long droppedBefore = o.dropped.get();
+        long coalescedBefore = o.coalesced.get();
+        boolean keep = o.offer(m);
+        if (o.dropped.get() > droppedBefore) {
+            droppedCounter.increment();
+        }
+        if (o.coalesced.get() > coalescedBefore) {
+            coalescedCounter.increment();
+        }
+        if (!keep) {
+            disconnect(o);
+            return;
+        }
+        if (o.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(o));
+        }
+    }
+
+    // 单个会话只有一个排空任务；退出前复查，避免与并发入队之间的竞态导致消息滞留
+    private void drain(SessionOutbound o) {
+        do {
+            SessionOutbound.OutboundMessage m;
+            while ((m = o.poll()) != null) {
+                if (!o.session().isOpen()) {
+                    break;
                 }
+                try {
+                    long started = System.nanoTime();
+                    o.session().sendMessage(new TextMessage(m.payload()));
+                    long finished = System.nanoTime();
+                    sendTimer.record(finished - started, TimeUnit.NANOSECONDS);
+                    deliveryTimer.record(finished - m.enqueuedAt(), TimeUnit.NANOSECONDS);
+                    o.sent.incrementAndGet();
+                    sentCounter.increment();
+                } catch (IOException | IllegalStateException e) {
+                    // ignore send errors，连接关闭后由 afterConnectionClosed 清理
+                }
+            }
+            o.draining.set(false);
+        } while (!o.isEmpty() && o.session().isOpen() && o.draining.compareAndSet(false, true));
+    }
+
+    private void disconnect(SessionOutbound o) {
+        if (outbound.remove(o.session().getId()) == null) {
+            return;
+        }
+        disconnectedCounter.increment();
+        senders.execute(() -> {
+            try {
+                o.session().close(CloseStatus.SESSION_NOT_RELIABLE);
             } catch (IOException e) {
-                // ignore send errors
+                // ignore close errors
+            }
+        });
+    }
+
+    private double totalDepth() {
+        int total = 0;
+        for (SessionOutbound o : outbound.values()) {
+            total += o.depth();
+        }
+        return total;
+    }
+
+    private double maxDepth() {
+        int max = 0;
+        for (SessionOutbound o : outbound.values()) {
+            max = Math.max(max, o.depth());
+        }
+        return max;
+    }
+
+    private void subscribeAll(WebSocketSession session, List<String> values, String prefix) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                subscribe(session, prefix + value.trim());
             }
         }
     }
-}
 
+    private void subscribe(WebSocketSession session, String topic) {
+        // 在 compute 内加入，避免与“最后一个订阅者退出时删除索引项”交错
+        subscribers.compute(topic, (t, set) -> {
+            Set<WebSocketSession> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            s.add(session);
+            return s;
+        });
+        topicsBySession.computeIfAbsent(session.getId(), id -> ConcurrentHashMap.newKeySet()).add(topic);
+    }
+
+    private void unsubscribe(WebSocketSession session, String topic) {
+        Set<String> topics = topicsBySession.get(session.getId());
+        if (topics != null) {
+            topics.remove(topic);
+        }
+        removeSubscriber(topic, session);
+    }
+
+    // 移除订阅者；主题无人订阅时删除索引项
+    private void removeSubscriber(String topic, WebSocketSession session) {
+        subscribers.computeIfPresent(topic, (t, set) -> {
+            set.remove(session);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static boolean isValidTopic(String topic) {
+        int idx = topic.indexOf(':');
+        if (idx <= 0 || idx == topic.length() - 1) {
+            return false;
+        }
+        String prefix = topic.substring(0, idx);
+        return "doctor".equals(prefix) || "patient".equals(prefix) || "department".equals(prefix);
+    }
+}
@@ -0,0 +1,28 @@
+package com.hospital.ouc.registrationsystem.web.ws;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator 端点 /actuator/websocketsessions：逐会话查看订阅主题、发送队列积压与丢弃数。
+ * 汇总指标见 websocket.outbound.* 与 websocket.sessions。
+ */
+@Component
+@Endpoint(id = "websocketsessions")
+public class WebSocketSessionsEndpoint {
+
+    private final SimpleWebSocketHandler webSocketHandler;
+
+    public WebSocketSessionsEndpoint(SimpleWebSocketHandler webSocketHandler) {
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> sessions() {
+        return webSocketHandler.sessionStats();
+    }
+}
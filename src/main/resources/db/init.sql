@@ -2,7 +2,11 @@
 -- Drop existing tables (avoid conflicts)
 -- ==========================================
 DROP TABLE IF EXISTS doctor_department_schedule CASCADE;
+DROP TABLE IF EXISTS registration_idempotency CASCADE;
+DROP TABLE IF EXISTS registration_outbox CASCADE;
+DROP TABLE IF EXISTS registration_waitlist CASCADE;
 DROP TABLE IF EXISTS patient_doctor_registration CASCADE;
+DROP TABLE IF EXISTS doctor_slot_inventory CASCADE;
 DROP TABLE IF EXISTS doctor_duty_schedule CASCADE;
 DROP TABLE IF EXISTS doctor_disease CASCADE;
 DROP TABLE IF EXISTS disease CASCADE;
@@ -23,6 +27,12 @@ DROP TYPE IF EXISTS time_slot CASCADE;
 -- 性别与时段均不再使用数据库 ENUM 类型，统一改为 VARCHAR + CHECK 约束
 -- （便于跨数据库迁移与与 JPA @Enumerated(EnumType.STRING) 的一致性）
 
+-- ==========================================
+-- Extensions
+-- ==========================================
+-- 三元组索引，支持管理端姓名/职称/手机号/身份证的模糊检索（PostgreSQL 13+ 库所有者即可创建）
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- ==========================================
 -- User Table (Unified Login Table)
 -- ==========================================
@@ -62,6 +72,12 @@ CREATE TABLE patient_profile (
     gender VARCHAR(10) NOT NULL CHECK (gender IN ('male','female')),
     is_active BOOLEAN NOT NULL DEFAULT TRUE
 );
+-- 管理端按 (name, id) 游标分页
+CREATE INDEX idx_patient_profile_name_id ON patient_profile (name, id);
+-- 管理端模糊检索（LIKE '%x%' / 前缀匹配），三元组索引
+CREATE INDEX idx_patient_profile_name_trgm ON patient_profile USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX idx_patient_profile_phone_trgm ON patient_profile USING gin (phone_number gin_trgm_ops);
+CREATE INDEX idx_patient_profile_id_card_trgm ON patient_profile USING gin (lower(id_card) gin_trgm_ops);
 
 -- ==========================================
 -- Doctor Profile
@@ -79,6 +95,12 @@ CREATE TABLE doctor_profile (
     department_id INT REFERENCES department(id),
     is_active BOOLEAN NOT NULL DEFAULT TRUE
 );
+-- 管理端按 (name, id) 游标分页
+CREATE INDEX idx_doctor_profile_name_id ON doctor_profile (name, id);
+-- 管理端模糊检索（姓名 / 职称 / 工号），三元组索引
+CREATE INDEX idx_doctor_profile_name_trgm ON doctor_profile USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX idx_doctor_profile_title_trgm ON doctor_profile USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX idx_doctor_profile_doctor_id_trgm ON doctor_profile USING gin (lower(doctor_id) gin_trgm_ops);
 
 -- ==========================================
 -- Disease Table
@@ -118,6 +140,25 @@ CREATE TABLE doctor_disease (
     UNIQUE (doctor_profile_id, disease_id)
 );
 
+-- ==========================================
+-- Slot Inventory (按日期展开的号源库存)
+-- ==========================================
+-- 由 doctor_department_schedule 滚动生成未来 N 周，每位医生、每天、每个时段一行；
+-- 挂号时对该行做条件 UPDATE 原子占号，取消时释放
+CREATE TABLE doctor_slot_inventory (
+    id BIGSERIAL PRIMARY KEY,
+    doctor_profile_id INT NOT NULL REFERENCES doctor_profile(id),
+    department_id INT REFERENCES department(id),
+    slot_date DATE NOT NULL,
+    weekday INT NOT NULL CHECK (weekday BETWEEN 1 AND 5),
+    timeslot VARCHAR(4) NOT NULL CHECK (timeslot IN ('AM1','AM2','AM3','AM4','PM1','PM2','PM3','PM4')),
+    max_patients INT NOT NULL,
+    booked_patients INT NOT NULL DEFAULT 0 CHECK (booked_patients >= 0),
+
+    UNIQUE (doctor_profile_id, slot_date, timeslot)
+);
+CREATE INDEX idx_slot_inventory_date ON doctor_slot_inventory (slot_date);
+
 -- ==========================================
 -- Registration Table (by Disease)
 -- ==========================================
@@ -130,8 +171,59 @@ CREATE TABLE patient_doctor_registration (
     weekday INT NOT NULL CHECK (weekday BETWEEN 1 AND 5),
     timeslot VARCHAR(4) NOT NULL CHECK (timeslot IN ('AM1','AM2','AM3','AM4','PM1','PM2','PM3','PM4')),
     registration_time TIMESTAMP NOT NULL DEFAULT NOW(),
-    status VARCHAR(20) NOT NULL
+    status VARCHAR(20) NOT NULL,
+    visit_date DATE,
+    slot_inventory_id BIGINT REFERENCES doctor_slot_inventory(id)
+);
+CREATE INDEX idx_registration_slot_inventory ON patient_doctor_registration (slot_inventory_id);
+-- 同一患者在同一号源上只能有一条未取消的挂号（防止重复提交重复占号）
+CREATE UNIQUE INDEX uk_registration_patient_slot ON patient_doctor_registration (patient_profile_id, slot_inventory_id) WHERE status <> 'CANCELLED';
+
+-- ==========================================
+-- Registration Idempotency（挂号幂等键，客户端 Idempotency-Key 请求头）
+-- ==========================================
+CREATE TABLE registration_idempotency (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    patient_profile_id INT NOT NULL,
+    registration_id INT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+CREATE INDEX idx_idempotency_created ON registration_idempotency (created_at);
+
+-- ==========================================
+-- Registration Outbox（挂号事件发件箱，与挂号记录同事务写入）
+-- ==========================================
+CREATE TABLE registration_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    registration_id BIGINT NOT NULL,
+    topics TEXT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    published_at TIMESTAMP
+);
+-- 只索引未投递的行，中继认领时按 id 顺序扫描
+CREATE INDEX idx_outbox_pending ON registration_outbox (id) WHERE published_at IS NULL;
+
+-- ==========================================
+-- Registration Waitlist（号源已满时的候补队列，取消挂号时队首自动递补）
+-- ==========================================
+CREATE TABLE registration_waitlist (
+    id BIGSERIAL PRIMARY KEY,
+    patient_profile_id INT NOT NULL REFERENCES patient_profile(id),
+    doctor_profile_id INT NOT NULL REFERENCES doctor_profile(id),
+    disease_id INT NOT NULL REFERENCES disease(id),
+    slot_inventory_id BIGINT NOT NULL REFERENCES doctor_slot_inventory(id),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('WAITING','PROMOTED','CANCELLED','EXPIRED')),
+    registration_id INT REFERENCES patient_doctor_registration(id),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    promoted_at TIMESTAMP
 );
+-- 队首查询：号源行内按 id 排序的第一条 WAITING 记录，只需读一个索引项
+CREATE INDEX idx_waitlist_slot_head ON registration_waitlist (slot_inventory_id, id) WHERE status = 'WAITING';
+-- 同一患者在同一号源上只能有一条候补中的记录
+CREATE UNIQUE INDEX uk_waitlist_patient_slot ON registration_waitlist (patient_profile_id, slot_inventory_id) WHERE status = 'WAITING';
+CREATE INDEX idx_waitlist_patient ON registration_waitlist (patient_profile_id);
 
 -- ==========================================
 -- Doctor Department Schedule
@@ -0,0 +1,9 @@
+-- 为已有数据库补充管理端游标分页所需的索引（新库直接执行 init.sql 即可，无需本脚本）
+-- 大表上可改用 CREATE INDEX CONCURRENTLY（不能在事务块内执行）避免阻塞写入
+
+CREATE INDEX IF NOT EXISTS idx_patient_profile_name_id ON patient_profile (name, id);
+CREATE INDEX IF NOT EXISTS idx_doctor_profile_name_id ON doctor_profile (name, id);
+
+-- 估算总数依赖统计信息，批量导入后执行一次
+ANALYZE patient_profile;
+ANALYZE doctor_profile;
@@ -0,0 +1,16 @@
+-- 为已有数据库补充挂号幂等键表与防重复挂号的唯一索引（新库直接执行 init.sql 即可，无需本脚本）
+-- 若已存在重复的有效挂号，需先处理重复数据，否则唯一索引创建失败：
+--   SELECT patient_profile_id, slot_inventory_id, COUNT(*) FROM patient_doctor_registration
+--   WHERE status <> 'CANCELLED' AND slot_inventory_id IS NOT NULL
+--   GROUP BY patient_profile_id, slot_inventory_id HAVING COUNT(*) > 1;
+
+CREATE TABLE IF NOT EXISTS registration_idempotency (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    patient_profile_id INT NOT NULL,
+    registration_id INT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_idempotency_created ON registration_idempotency (created_at);
+
+-- 同一患者在同一号源上只能有一条未取消的挂号（防止重复提交重复占号）
+CREATE UNIQUE INDEX IF NOT EXISTS uk_registration_patient_slot ON patient_doctor_registration (patient_profile_id, slot_inventory_id) WHERE status <> 'CANCELLED';
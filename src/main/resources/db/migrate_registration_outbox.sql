@@ -0,0 +1,13 @@
+-- 为已有数据库补充挂号事件发件箱表（新库直接执行 init.sql 即可，无需本脚本）
+
+CREATE TABLE IF NOT EXISTS registration_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    registration_id BIGINT NOT NULL,
+    topics TEXT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    published_at TIMESTAMP
+);
+-- 只索引未投递的行，中继认领时按 id 顺序扫描
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON registration_outbox (id) WHERE published_at IS NULL;
@@ -0,0 +1,18 @@
+-- 为已有数据库补充候补表（新库直接执行 init.sql 即可，无需本脚本）
+
+CREATE TABLE IF NOT EXISTS registration_waitlist (
+    id BIGSERIAL PRIMARY KEY,
+    patient_profile_id INT NOT NULL REFERENCES patient_profile(id),
+    doctor_profile_id INT NOT NULL REFERENCES doctor_profile(id),
+    disease_id INT NOT NULL REFERENCES disease(id),
+    slot_inventory_id BIGINT NOT NULL REFERENCES doctor_slot_inventory(id),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('WAITING','PROMOTED','CANCELLED','EXPIRED')),
+    registration_id INT REFERENCES patient_doctor_registration(id),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    promoted_at TIMESTAMP
+);
+-- 队首查询：号源行内按 id 排序的第一条 WAITING 记录，只需读一个索引项
+CREATE INDEX IF NOT EXISTS idx_waitlist_slot_head ON registration_waitlist (slot_inventory_id, id) WHERE status = 'WAITING';
+-- 同一患者在同一号源上只能有一条候补中的记录
+CREATE UNIQUE INDEX IF NOT EXISTS uk_waitlist_patient_slot ON registration_waitlist (patient_profile_id, slot_inventory_id) WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS idx_waitlist_patient ON registration_waitlist (patient_profile_id);
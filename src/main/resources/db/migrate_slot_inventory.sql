@@ -0,0 +1,72 @@
+-- 为已有数据库补充按日期的号源库存表（新库直接执行 init.sql 即可，无需本脚本）
+-- 依赖 init.sql 已经初始化完基础表；替代原 migrate_booked_patients.sql（计数从排班表移到按日期的库存行）
+-- 须在停服状态下执行（切换期间不能有新的挂号写入），执行完成后再启动新版本应用；
+-- 应用启动时会按排班继续补齐滚动窗口内的库存行，已存在的行保持不变
+
+CREATE TABLE IF NOT EXISTS doctor_slot_inventory (
+    id BIGSERIAL PRIMARY KEY,
+    doctor_profile_id INT NOT NULL REFERENCES doctor_profile(id),
+    department_id INT REFERENCES department(id),
+    slot_date DATE NOT NULL,
+    weekday INT NOT NULL CHECK (weekday BETWEEN 1 AND 5),
+    timeslot VARCHAR(4) NOT NULL CHECK (timeslot IN ('AM1','AM2','AM3','AM4','PM1','PM2','PM3','PM4')),
+    max_patients INT NOT NULL,
+    booked_patients INT NOT NULL DEFAULT 0 CHECK (booked_patients >= 0),
+
+    UNIQUE (doctor_profile_id, slot_date, timeslot)
+);
+CREATE INDEX IF NOT EXISTS idx_slot_inventory_date ON doctor_slot_inventory (slot_date);
+
+ALTER TABLE patient_doctor_registration
+    ADD COLUMN IF NOT EXISTS visit_date DATE,
+    ADD COLUMN IF NOT EXISTS slot_inventory_id BIGINT REFERENCES doctor_slot_inventory(id);
+CREATE INDEX IF NOT EXISTS idx_registration_slot_inventory ON patient_doctor_registration (slot_inventory_id);
+
+-- 为今天起 4 周（与 registration.inventory.window-weeks 默认值一致）生成库存行，口径与应用内 generateAll 相同
+INSERT INTO doctor_slot_inventory (doctor_profile_id, department_id, slot_date, weekday, timeslot, max_patients)
+SELECT s.doctor_profile_id, s.department_id, CAST(d AS DATE), s.weekday, s.timeslot, COALESCE(s.max_patients_per_slot, 2)
+FROM doctor_department_schedule s
+JOIN generate_series(CURRENT_DATE, CURRENT_DATE + 27, INTERVAL '1 day') AS d
+    ON EXTRACT(ISODOW FROM d) = s.weekday
+ON CONFLICT (doctor_profile_id, slot_date, timeslot) DO NOTHING;
+
+-- 旧挂号只有星期几没有日期：未就诊的有效挂号（PAID / PENDING）按今天起下一个对应星期几补就诊日期
+UPDATE patient_doctor_registration
+SET visit_date = CURRENT_DATE + ((weekday - EXTRACT(ISODOW FROM CURRENT_DATE)::int + 7) % 7)
+WHERE visit_date IS NULL
+  AND status IN ('PAID', 'PENDING');
+
+-- 按医生 + 就诊日期 + 时段关联库存行；同一患者在同一号源上的重复有效挂号只关联最早一条，
+-- 以免与 uk_registration_patient_slot 冲突（其余重复挂号保持未关联，需人工处理）
+UPDATE patient_doctor_registration r
+SET slot_inventory_id = sub.inventory_id
+FROM (
+    SELECT DISTINCT ON (r2.patient_profile_id, i.id) r2.id AS registration_id, i.id AS inventory_id
+    FROM patient_doctor_registration r2
+    JOIN doctor_slot_inventory i
+        ON i.doctor_profile_id = r2.doctor_profile_id
+       AND i.slot_date = r2.visit_date
+       AND i.timeslot = r2.timeslot
+    WHERE r2.slot_inventory_id IS NULL
+      AND r2.status IN ('PAID', 'PENDING')
+      AND r2.visit_date >= CURRENT_DATE
+    ORDER BY r2.patient_profile_id, i.id, r2.id
+) sub
+WHERE r.id = sub.registration_id;
+
+-- 按已关联的有效挂号回填占用数（口径与原 migrate_booked_patients.sql 一致：PAID / PENDING / COMPLETED），
+-- 超出容量的行保持满员，tryReserve 不会再售出
+UPDATE doctor_slot_inventory i
+SET booked_patients = sub.cnt
+FROM (
+    SELECT slot_inventory_id, COUNT(*) AS cnt
+    FROM patient_doctor_registration
+    WHERE slot_inventory_id IS NOT NULL
+      AND status IN ('PAID', 'PENDING', 'COMPLETED')
+    GROUP BY slot_inventory_id
+) sub
+WHERE i.id = sub.slot_inventory_id;
+
+-- 执行后可用以下查询检查未能关联库存行的有效挂号（排班已删除或重复挂号），需人工处理：
+--   SELECT id, patient_profile_id, doctor_profile_id, weekday, timeslot, visit_date FROM patient_doctor_registration
+--   WHERE status IN ('PAID', 'PENDING') AND slot_inventory_id IS NULL;
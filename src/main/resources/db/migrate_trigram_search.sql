@@ -0,0 +1,15 @@
+-- 为已有数据库补充管理端模糊检索所需的 pg_trgm 扩展与三元组索引（新库直接执行 init.sql 即可，无需本脚本）
+-- 大表上可改用 CREATE INDEX CONCURRENTLY（不能在事务块内执行）避免阻塞写入
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_patient_profile_name_trgm ON patient_profile USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patient_profile_phone_trgm ON patient_profile USING gin (phone_number gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patient_profile_id_card_trgm ON patient_profile USING gin (lower(id_card) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_doctor_profile_name_trgm ON doctor_profile USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_doctor_profile_title_trgm ON doctor_profile USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_doctor_profile_doctor_id_trgm ON doctor_profile USING gin (lower(doctor_id) gin_trgm_ops);
+
+ANALYZE patient_profile;
+ANALYZE doctor_profile;
@@ -0,0 +1,77 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.Department;
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.repository.DepartmentRepository;
+import com.hospital.ouc.registrationsystem.domain.repository.DiseaseRepository;
+import com.hospital.ouc.registrationsystem.web.dto.DepartmentDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 科室列表的 SQL 条数不随科室数量增长（疾病由一条批量查询取回）。
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class DepartmentServiceQueryCountTests {
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private DiseaseRepository diseaseRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void listingDepartmentsRunsConstantNumberOfStatements() {
+        long withFew = statementsForListingAfterAdding(2);
+        long withMany = statementsForListingAfterAdding(20);
+
+        // 一条查科室 + 一条批量查疾病
+        assertThat(withFew).isEqualTo(2);
+        assertThat(withMany).isEqualTo(withFew);
+    }
+
+    private long statementsForListingAfterAdding(int departments) {
+        for (int i = 0; i < departments; i++) {
+            Department department = departmentRepository.save(Department.builder()
+                    .departmentName("测试科室-" + UUID.randomUUID())
+                    .build());
+            for (int j = 0; j < 3; j++) {
+                diseaseRepository.save(Disease.builder()
+                        .name("测试疾病-" + j)
+                        .department(department)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        List<DepartmentDTO> result = departmentService.getAllDepartments();
+
+        assertThat(result).hasSizeGreaterThanOrEqualTo(departments);
+        assertThat(result).allSatisfy(dto -> assertThat(dto.getDiseases()).isNotNull());
+        return statistics.getPrepareStatementCount();
+    }
+}
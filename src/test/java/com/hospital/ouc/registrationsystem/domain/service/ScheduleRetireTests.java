@@ -0,0 +1,200 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.domain.entity.AppUser;
+import com.hospital.ouc.registrationsystem.domain.entity.Department;
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDepartmentSchedule;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDisease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorProfile;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorSlotInventory;
+import com.hospital.ouc.registrationsystem.domain.entity.PatientProfile;
+import com.hospital.ouc.registrationsystem.domain.entity.RegistrationWaitlist;
+import com.hospital.ouc.registrationsystem.domain.enums.Gender;
+import com.hospital.ouc.registrationsystem.domain.enums.Role;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.domain.enums.WaitlistStatus;
+import com.hospital.ouc.registrationsystem.domain.repository.DoctorSlotInventoryRepository;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationRequestDTO;
+import com.hospital.ouc.registrationsystem.web.dto.RegistrationResponseDTO;
+import com.hospital.ouc.registrationsystem.web.dto.ScheduleDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 排班改期 / 删除时回收号源：被已取消挂号或候补记录引用的号源行不能删除（外键），
+ * 应保留并关闭剩余容量，其上的候补置为过期；未被引用的行删除。
+ */
+@SpringBootTest
+@Transactional
+class ScheduleRetireTests {
+
+    private static final int WEEKDAY = 3;
+
+    @Autowired
+    private ScheduleManageService scheduleManageService;
+
+    @Autowired
+    private PatientRegistrationService registrationService;
+
+    @Autowired
+    private SlotInventoryService slotInventoryService;
+
+    @Autowired
+    private DoctorSlotInventoryRepository inventoryRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Department department;
+    private Disease disease;
+    private DoctorProfile doctor;
+    private PatientProfile patient;
+    private DoctorDepartmentSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        department = Department.builder().departmentName("回收测试科室").build();
+        entityManager.persist(department);
+        disease = Disease.builder().name("回收测试疾病").code("RT-DISEASE").department(department).build();
+        entityManager.persist(disease);
+
+        AppUser doctorUser = AppUser.builder().username("rt_doc").password("x").role(Role.DOCTOR)
+                .createdAt(LocalDateTime.now()).isActive(true).build();
+        entityManager.persist(doctorUser);
+        doctor = DoctorProfile.builder().user(doctorUser).doctorId("RT0001").name("回收测试医生").age(40)
+                .gender(Gender.male).title("主治医师").department(department).isActive(true).build();
+        entityManager.persist(doctor);
+        entityManager.persist(DoctorDisease.builder().doctorProfile(doctor).disease(disease).build());
+
+        AppUser patientUser = AppUser.builder().username("rt_pat").password("x").role(Role.PATIENT)
+                .createdAt(LocalDateTime.now()).isActive(true).build();
+        entityManager.persist(patientUser);
+        patient = PatientProfile.builder().user(patientUser).idCard("RT0000000000000001").name("回收测试患者")
+                .phoneNumber("09900000001").age(30).gender(Gender.female).isActive(true).build();
+        entityManager.persist(patient);
+
+        schedule = DoctorDepartmentSchedule.builder().doctorProfile(doctor).department(department)
+                .weekday(WEEKDAY).timeslot(TimeSlot.AM1).maxPatientsPerSlot(5).build();
+        entityManager.persist(schedule);
+        entityManager.flush();
+        slotInventoryService.syncSchedule(schedule);
+    }
+
+    @Test
+    void reschedulingKeepsSlotsReferencedByCancelledRegistrationsAndWaitlist() {
+        LocalDate firstDate = slotInventoryService.nextDateOf(WEEKDAY);
+        LocalDate secondDate = firstDate.plusWeeks(1);
+        Long cancelledSlot = bookAndCancel(firstDate);
+        Long waitlistedSlot = waitlist(secondDate);
+
+        ScheduleDTO dto = new ScheduleDTO();
+        dto.setId(schedule.getId());
+        dto.setDoctorProfileId(doctor.getId());
+        dto.setDepartmentId(department.getId());
+        dto.setWeekday(WEEKDAY);
+        dto.setTimeslot("AM2");
+        dto.setMaxPatientsPerSlot(5);
+        scheduleManageService.updateSchedule(dto);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertRetainedAndClosed(cancelledSlot);
+        assertRetainedAndClosed(waitlistedSlot);
+        assertThat(entityManager.createQuery(
+                        "select w.status from RegistrationWaitlist w where w.slotInventory.id = :id", WaitlistStatus.class)
+                .setParameter("id", waitlistedSlot).getSingleResult())
+                .isEqualTo(WaitlistStatus.EXPIRED);
+
+        // 未被引用的 AM1 号源行已删除，新时段 AM2 的号源行已生成
+        List<DoctorSlotInventory> remaining = inventoryRepository.findByDoctorProfileIdAndSlotDateBetween(
+                doctor.getId(), LocalDate.now(), LocalDate.now().plusYears(1));
+        assertThat(remaining).filteredOn(i -> i.getTimeslot() == TimeSlot.AM1)
+                .extracting(DoctorSlotInventory::getId)
+                .containsExactlyInAnyOrder(cancelledSlot, waitlistedSlot);
+        assertThat(remaining).filteredOn(i -> i.getTimeslot() == TimeSlot.AM2).isNotEmpty();
+    }
+
+    @Test
+    void raisingCapacityKeepsSlotRowsAndWaitlist() {
+        LocalDate firstDate = slotInventoryService.nextDateOf(WEEKDAY);
+        Long cancelledSlot = bookAndCancel(firstDate);
+        Long waitlistedSlot = waitlist(firstDate.plusWeeks(1));
+
+        ScheduleDTO dto = new ScheduleDTO();
+        dto.setId(schedule.getId());
+        dto.setDoctorProfileId(doctor.getId());
+        dto.setDepartmentId(department.getId());
+        dto.setWeekday(WEEKDAY);
+        dto.setTimeslot("AM1");
+        dto.setMaxPatientsPerSlot(8);
+        scheduleManageService.updateSchedule(dto);
+        entityManager.flush();
+        entityManager.clear();
+
+        // 号源行原地调大容量，ID 不变
+        assertThat(entityManager.find(DoctorSlotInventory.class, cancelledSlot).getMaxPatients()).isEqualTo(8);
+        assertThat(entityManager.find(DoctorSlotInventory.class, waitlistedSlot).getMaxPatients()).isEqualTo(8);
+        assertThat(entityManager.createQuery(
+                        "select w.status from RegistrationWaitlist w where w.slotInventory.id = :id", WaitlistStatus.class)
+                .setParameter("id", waitlistedSlot).getSingleResult())
+                .isEqualTo(WaitlistStatus.WAITING);
+    }
+
+    @Test
+    void deletingDepartmentSchedulesKeepsSlotsReferencedByCancelledRegistrations() {
+        Long cancelledSlot = bookAndCancel(slotInventoryService.nextDateOf(WEEKDAY));
+
+        scheduleManageService.batchDeleteScheduleByDeptId(department.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertRetainedAndClosed(cancelledSlot);
+    }
+
+    // 挂号后取消：号源行已占号数回到 0，但仍被已取消的挂号记录引用
+    private Long bookAndCancel(LocalDate visitDate) {
+        RegistrationRequestDTO req = new RegistrationRequestDTO();
+        req.setPatientProfileId(patient.getId());
+        req.setDoctorProfileId(doctor.getId());
+        req.setDiseaseId(disease.getId());
+        req.setWeekday(WEEKDAY);
+        req.setTimeslot("AM1");
+        req.setVisitDate(visitDate);
+        RegistrationResponseDTO resp = registrationService.register(req);
+        registrationService.cancelRegistration(resp.getId(), patient.getId());
+        entityManager.flush();
+        return slotOn(visitDate).getId();
+    }
+
+    private Long waitlist(LocalDate visitDate) {
+        DoctorSlotInventory slot = slotOn(visitDate);
+        entityManager.persist(RegistrationWaitlist.builder()
+                .patientProfile(patient).doctorProfile(doctor).disease(disease).slotInventory(slot)
+                .status(WaitlistStatus.WAITING).createdAt(LocalDateTime.now()).build());
+        entityManager.flush();
+        return slot.getId();
+    }
+
+    private DoctorSlotInventory slotOn(LocalDate date) {
+        return inventoryRepository.findByDoctorProfileIdAndSlotDateAndTimeslot(doctor.getId(), date, TimeSlot.AM1)
+                .orElseThrow();
+    }
+
+    private void assertRetainedAndClosed(Long slotId) {
+        DoctorSlotInventory slot = entityManager.find(DoctorSlotInventory.class, slotId);
+        assertThat(slot).isNotNull();
+        assertThat(slot.getBookedPatients()).isZero();
+        assertThat(slot.getMaxPatients()).isZero();
+    }
+}
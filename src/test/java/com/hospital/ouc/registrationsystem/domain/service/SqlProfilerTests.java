@@ -0,0 +1,142 @@
+package com.hospital.ouc.registrationsystem.domain.service;
+
+import com.hospital.ouc.registrationsystem.web.dto.SqlRequestProfileDTO;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL 剖析器：语句归一化与请求预算判定（不启动 Spring 上下文，直接驱动监听器回调）。
+ */
+class SqlProfilerTests {
+
+    @Test
+    void normalizeReplacesStringAndNumberLiterals() {
+        assertThat(SqlProfiler.normalize("select * from disease where code = 'K29.5' and name = 'O''Brien' and id = 42"))
+                .isEqualTo("select * from disease where code = ? and name = ? and id = ?");
+        assertThat(SqlProfiler.normalize("update doctor_slot_inventory set booked_patients = booked_patients + 1 where id = 7"))
+                .isEqualTo("update doctor_slot_inventory set booked_patients = booked_patients + ? where id = ?");
+    }
+
+    @Test
+    void normalizeFoldsNegativeAndDecimalNumbers() {
+        assertThat(SqlProfiler.normalize("select * from t where a = -5 and b > 3.14 and c < -0.5"))
+                .isEqualTo("select * from t where a = ? and b > ? and c < ?");
+    }
+
+    @Test
+    void normalizeKeepsDigitsInsideIdentifiers() {
+        assertThat(SqlProfiler.normalize("select d1_0.id from department d1_0 where d1_0.id = 3"))
+                .isEqualTo("select d1_0.id from department d1_0 where d1_0.id = ?");
+    }
+
+    @Test
+    void normalizeFoldsInListsOfAnyLength() {
+        String one = SqlProfiler.normalize("select * from disease where department_id in (?)");
+        String many = SqlProfiler.normalize("select * from disease where department_id IN ( ?, ?,? , ? )");
+        String literals = SqlProfiler.normalize("select * from disease where department_id in (1, 2, 3)");
+
+        assertThat(one).isEqualTo("select * from disease where department_id in (?...)");
+        assertThat(many).isEqualTo(one);
+        assertThat(literals).isEqualTo(one);
+    }
+
+    @Test
+    void normalizeCollapsesWhitespace() {
+        assertThat(SqlProfiler.normalize("  select *\n\tfrom   department\r\n where id = ?  "))
+                .isEqualTo("select * from department where id = ?");
+    }
+
+    @Test
+    void requestWithinBudgetIsNotRecorded() {
+        SqlProfiler profiler = profiler(2, 10_000, 2);
+
+        profiler.beginRequest("DepartmentController.getAllDepartments", "/api/departments");
+        execute(profiler, "select * from department");
+        execute(profiler, "select * from disease where department_id in (?, ?)");
+        profiler.endRequest();
+
+        assertThat(profiler.slowRequests()).isEmpty();
+    }
+
+    @Test
+    void requestOverStatementBudgetIsRecordedWithStatements() {
+        SqlProfiler profiler = profiler(2, 10_000, 2);
+
+        profiler.beginRequest("DepartmentController.getAllDepartments", "/api/departments");
+        for (int i = 0; i < 3; i++) {
+            execute(profiler, "select * from disease where department_id = " + i);
+        }
+        profiler.endRequest();
+
+        List<SqlRequestProfileDTO> slow = profiler.slowRequests();
+        assertThat(slow).hasSize(1);
+        assertThat(slow.get(0).getHandler()).isEqualTo("DepartmentController.getAllDepartments");
+        assertThat(slow.get(0).getUri()).isEqualTo("/api/departments");
+        assertThat(slow.get(0).getStatementCount()).isEqualTo(3);
+        assertThat(slow.get(0).getStatements()).hasSize(3);
+    }
+
+    @Test
+    void requestOverDbTimeBudgetIsRecorded() throws InterruptedException {
+        SqlProfiler profiler = profiler(20, 1, 2);
+
+        profiler.beginRequest("PatientScheduleController.getDiseaseTimetable", "/api/patient/timetable");
+        ExecutionInfo execInfo = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo("select pg_sleep(0.005)"));
+        profiler.beforeQuery(execInfo, queries);
+        Thread.sleep(5);
+        profiler.afterQuery(execInfo, queries);
+        profiler.endRequest();
+
+        assertThat(profiler.slowRequests()).hasSize(1);
+        assertThat(profiler.slowRequests().get(0).getStatementCount()).isEqualTo(1);
+        assertThat(profiler.slowRequests().get(0).getDbTimeMs()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void statementsOutsideRequestOnlyCountTowardsShapes() {
+        SqlProfiler profiler = profiler(0, 10_000, 2);
+
+        execute(profiler, "select * from registration_outbox where id > 10");
+        profiler.endRequest();
+        execute(profiler, "select * from registration_outbox where id > 20");
+
+        assertThat(profiler.slowRequests()).isEmpty();
+        assertThat(profiler.topShapes(10, "count")).singleElement().satisfies(shape -> {
+            assertThat(shape.getSql()).isEqualTo("select * from registration_outbox where id > ?");
+            assertThat(shape.getCount()).isEqualTo(2);
+            assertThat(shape.getCallers()).containsEntry(SqlProfiler.BACKGROUND, 2L);
+        });
+    }
+
+    @Test
+    void slowRequestsKeepOnlyTheMostRecent() {
+        SqlProfiler profiler = profiler(0, 10_000, 2);
+
+        for (int i = 1; i <= 3; i++) {
+            profiler.beginRequest("AdminController.list", "/api/admin/" + i);
+            execute(profiler, "select 1");
+            profiler.endRequest();
+        }
+
+        assertThat(profiler.slowRequests())
+                .extracting(SqlRequestProfileDTO::getUri)
+                .containsExactly("/api/admin/3", "/api/admin/2");
+    }
+
+    private static SqlProfiler profiler(int maxStatements, long maxDbTimeMs, int slowRequests) {
+        return new SqlProfiler(maxStatements, maxDbTimeMs, 10_000, 2000, 200, slowRequests, false);
+    }
+
+    private static void execute(SqlProfiler profiler, String sql) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        profiler.beforeQuery(execInfo, queries);
+        profiler.afterQuery(execInfo, queries);
+    }
+}
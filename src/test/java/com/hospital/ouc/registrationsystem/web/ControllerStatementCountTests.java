@@ -0,0 +1,326 @@
+package com.hospital.ouc.registrationsystem.web;
+
+import com.hospital.ouc.registrationsystem.domain.entity.AppUser;
+import com.hospital.ouc.registrationsystem.domain.entity.Department;
+import com.hospital.ouc.registrationsystem.domain.entity.Disease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDepartmentSchedule;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDisease;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorDutySchedule;
+import com.hospital.ouc.registrationsystem.domain.entity.DoctorProfile;
+import com.hospital.ouc.registrationsystem.domain.entity.PatientDoctorRegistration;
+import com.hospital.ouc.registrationsystem.domain.entity.PatientProfile;
+import com.hospital.ouc.registrationsystem.domain.enums.Gender;
+import com.hospital.ouc.registrationsystem.domain.enums.RegistrationStatus;
+import com.hospital.ouc.registrationsystem.domain.enums.Role;
+import com.hospital.ouc.registrationsystem.domain.enums.TimeSlot;
+import com.hospital.ouc.registrationsystem.domain.service.SlotInventoryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 各控制器接口每个请求执行的 SQL 条数上限（按 SELECT / INSERT / UPDATE 分别统计）。
+ * <p>
+ * 测试数据中每个列表接口都至少返回 {@value #ROWS} 行（医生、患者、挂号各 {@value #ROWS} 条），
+ * 上限远小于行数：任何逐行查询（N+1）都会使条数超过上限而导致构建失败。
+ * 每个请求前清空一级缓存、Hibernate 二级缓存 / 查询缓存与目录缓存，按冷启动统计。
+ * <p>
+ * 导出接口（/api/admin/export）不在此列：响应在异步线程上以一条游标查询流式写出，不属于请求线程。
+ */
+@SpringBootTest
+@Transactional
+class ControllerStatementCountTests {
+
+    private static final int ROWS = 30;
+
+    private static final String SALT = "OucWebDev123";
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+
+        // 以 datasource-proxy 包装数据源，按线程统计执行的语句（MockMvc 请求在测试线程上执行）
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name("statement-count")
+                                .countQuery()
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * 单个接口的 SQL 条数上限
+     */
+    private record Budget(String name, RequestBuilder request, int selects, int inserts, int updates) {
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private SlotInventoryService slotInventoryService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private MockMvc mockMvc;
+
+    private Department department;
+    private Disease disease;
+    private final List<DoctorProfile> doctors = new ArrayList<>();
+    private final List<PatientProfile> patients = new ArrayList<>();
+    private PatientDoctorRegistration patientRegistration;
+    private int weekday;
+    private LocalDate visitDate;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        seed();
+    }
+
+    @Test
+    void everyEndpointStaysWithinItsStatementBudget() throws Exception {
+        DoctorProfile doctor = doctors.get(0);
+        PatientProfile patient = patients.get(0);
+        Long departmentId = department.getId();
+
+        List<Budget> budgets = List.of(
+                // 患者端：科室 / 疾病 / 医生 / 排班
+                new Budget("schedule departments", get("/api/schedule/departments"), 3, 0, 0),
+                new Budget("schedule department diseases", get("/api/schedule/department/{id}/diseases", departmentId), 3, 0, 0),
+                new Budget("schedule disease search", get("/api/schedule/diseases/search").param("q", "qc"), 1, 0, 0),
+                new Budget("schedule disease doctors", get("/api/schedule/disease/{id}/doctors", disease.getId()), 3, 0, 0),
+                new Budget("schedule disease timetable", get("/api/schedule/disease/{id}/timetable", disease.getId()), 4, 0, 0),
+                new Budget("schedule doctor schedules", get("/api/schedule/doctor/{id}/schedules", doctor.getId()), 4, 0, 0),
+                new Budget("schedule doctor schedules grouped", get("/api/schedule/doctor/{id}/schedules/grouped", doctor.getId()), 4, 0, 0),
+                new Budget("schedule department doctors", get("/api/schedule/department/{id}/doctors", departmentId), 3, 0, 0),
+                new Budget("schedule doctors overview", get("/api/schedule/doctors").param("departmentId", departmentId.toString()), 3, 0, 0),
+                // 医生端
+                new Budget("doctor day schedule", get("/api/doctor/schedule")
+                        .param("doctorId", doctor.getDoctorId()).param("weekday", String.valueOf(weekday)), 3, 0, 0),
+                new Budget("doctor week schedule", get("/api/doctor/week-schedule").param("doctorId", doctor.getDoctorId()), 4, 0, 0),
+                new Budget("doctor profile", get("/api/doctor/profile/{id}", doctor.getId()), 4, 0, 0),
+                new Budget("doctor profile by user", get("/api/doctor/profile/by-user/{id}", doctor.getUser().getId()), 5, 0, 0),
+                new Budget("doctor weekend duties", get("/api/doctor/profile/{id}/duties/weekend", doctor.getId()), 3, 0, 0),
+                // 患者档案与值班
+                new Budget("patient profile", get("/api/patient/profile/{id}", patient.getId()), 3, 0, 0),
+                new Budget("patient profile by user", get("/api/patient/profile/by-user/{id}", patient.getUser().getId()), 4, 0, 0),
+                new Budget("patient duty schedules", get("/api/patient/duty-schedules").param("departmentId", departmentId.toString()), 3, 0, 0),
+                new Budget("patient duty schedules all", get("/api/patient/duty-schedules/all"), 4, 0, 0),
+                // 挂号记录与候补
+                new Budget("registrations by patient", get("/api/registration/patient/{id}", patient.getId()), 3, 0, 0),
+                new Budget("waitlist by patient", get("/api/registration/waitlist/patient/{id}", patient.getId()), 2, 0, 0),
+                // 管理端
+                new Budget("admin departments", get("/api/admin/departments"), 3, 0, 0),
+                new Budget("admin department", get("/api/admin/departments/{id}", departmentId), 3, 0, 0),
+                new Budget("admin diseases", get("/api/admin/diseases"), 3, 0, 0),
+                new Budget("admin department diseases", get("/api/admin/diseases/department/{id}", departmentId), 3, 0, 0),
+                new Budget("admin doctors page", get("/api/admin/doctors")
+                        .param("departmentId", departmentId.toString()).param("size", "50"), 4, 0, 0),
+                new Budget("admin doctors cursor", get("/api/admin/doctors/cursor")
+                        .param("departmentId", departmentId.toString()).param("size", "50").param("count", "exact"), 4, 0, 0),
+                new Budget("admin doctor", get("/api/admin/doctors/{id}", doctor.getId()), 3, 0, 0),
+                new Budget("admin patients page", get("/api/admin/patients")
+                        .param("name", "质控患者").param("pageSize", "50"), 3, 0, 0),
+                new Budget("admin patients cursor", get("/api/admin/patients/cursor")
+                        .param("name", "质控患者").param("size", "50").param("count", "exact"), 3, 0, 0),
+                new Budget("admin patient", get("/api/admin/patients/{id}", patient.getId()), 2, 0, 0),
+                new Budget("admin department schedules", get("/api/admin/schedule/department/{id}", departmentId), 3, 0, 0),
+                new Budget("admin department duties", get("/api/admin/duty-schedule/department/{id}", departmentId), 3, 0, 0),
+                // 认证
+                new Budget("login", post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + patient.getUser().getUsername() + "\",\"password\":\"123456\"}"), 3, 0, 0),
+                new Budget("register patient", post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"qc_new_patient\",\"password\":\"123456\",\"name\":\"质控新患者\","
+                                + "\"idCard\":\"QC9999999999999999\",\"phoneNumber\":\"09999999999\",\"age\":30,\"gender\":\"male\"}"),
+                        6, 3, 1),
+                // 写操作放在最后，避免影响前面的读接口；挂号选在种子数据未占用的星期二
+                new Budget("register", post("/api/registration").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientProfileId\":" + patients.get(1).getId()
+                                + ",\"doctorProfileId\":" + doctor.getId()
+                                + ",\"diseaseId\":" + disease.getId()
+                                + ",\"weekday\":2,\"timeslot\":\"AM2\",\"visitDate\":\""
+                                + slotInventoryService.nextDateOf(2) + "\"}"), 8, 3, 2),
+                new Budget("cancel registration", delete("/api/registration/{id}", patientRegistration.getId())
+                        .param("patientProfileId", patient.getId().toString()), 6, 2, 2)
+        );
+
+        SoftAssertions softly = new SoftAssertions();
+        for (Budget budget : budgets) {
+            QueryCount count = execute(budget.request(), softly, budget.name());
+            softly.assertThat(count.getSelect()).as("%s SELECT", budget.name()).isLessThanOrEqualTo(budget.selects());
+            softly.assertThat(count.getInsert()).as("%s INSERT", budget.name()).isLessThanOrEqualTo(budget.inserts());
+            softly.assertThat(count.getUpdate()).as("%s UPDATE", budget.name()).isLessThanOrEqualTo(budget.updates());
+        }
+        softly.assertAll();
+    }
+
+    // 冷缓存下执行一个请求，返回该请求期间本线程执行的语句数
+    private QueryCount execute(RequestBuilder request, SoftAssertions softly, String name) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        cacheManager.getCacheNames().forEach(cacheName ->
+                Objects.requireNonNull(cacheManager.getCache(cacheName)).clear());
+
+        QueryCountHolder.clear();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        // 请求结束前未刷新的写操作也计入该请求
+        entityManager.flush();
+        QueryCount count = QueryCountHolder.getGrandTotal();
+
+        softly.assertThat(result.getResponse().getStatus())
+                .as("%s status (%s)", name, result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isBetween(200, 299);
+        return count;
+    }
+
+    // ============ 测试数据 ============
+
+    /**
+     * 一个科室、一种疾病、{@value #ROWS} 位医生（均可诊疗该疾病并在同一时段出诊）、{@value #ROWS} 位患者；
+     * 第一位医生同一天有 {@value #ROWS} 位患者挂号，第一位患者挂了 {@value #ROWS} 位不同医生的号
+     */
+    private void seed() {
+        String password = sha256Hex("123456" + SALT);
+        weekday = 3;
+        visitDate = slotInventoryService.nextDateOf(weekday);
+
+        department = entityManager.merge(Department.builder().departmentName("质控科室").build());
+        disease = entityManager.merge(Disease.builder()
+                .name("质控疾病").code("QC-DISEASE").description("语句计数测试").department(department).build());
+        entityManager.persist(Disease.builder()
+                .name("质控疾病二").code("QC-DISEASE-2").description("语句计数测试").department(department).build());
+
+        for (int i = 0; i < ROWS; i++) {
+            AppUser user = AppUser.builder().username("qc_doc_" + i).password(password).role(Role.DOCTOR)
+                    .createdAt(LocalDateTime.now()).isActive(true).build();
+            entityManager.persist(user);
+            DoctorProfile doctor = DoctorProfile.builder().user(user).doctorId(String.format("QC%04d", i))
+                    .name("质控医生" + i).age(40).gender(Gender.male).title("主治医师")
+                    .department(department).isActive(true).build();
+            entityManager.persist(doctor);
+            doctors.add(doctor);
+            entityManager.persist(DoctorDisease.builder().doctorProfile(doctor).disease(disease).build());
+        }
+
+        for (int i = 0; i < ROWS; i++) {
+            AppUser user = AppUser.builder().username("qc_pat_" + i).password(password).role(Role.PATIENT)
+                    .createdAt(LocalDateTime.now()).isActive(true).build();
+            entityManager.persist(user);
+            PatientProfile patient = PatientProfile.builder().user(user).idCard(String.format("QC%016d", i))
+                    .name("质控患者" + i).phoneNumber(String.format("099%08d", i)).age(30)
+                    .gender(i % 2 == 0 ? Gender.male : Gender.female).isActive(true).build();
+            entityManager.persist(patient);
+            patients.add(patient);
+        }
+
+        // 第一位医生全周出诊，其余医生只在 weekday 的 AM1 出诊；号源库存随排班生成
+        List<DoctorDepartmentSchedule> schedules = new ArrayList<>();
+        for (int w = 1; w <= 5; w++) {
+            for (TimeSlot slot : TimeSlot.values()) {
+                schedules.add(schedule(doctors.get(0), w, slot));
+            }
+        }
+        for (int i = 1; i < ROWS; i++) {
+            schedules.add(schedule(doctors.get(i), weekday, TimeSlot.AM1));
+        }
+        entityManager.flush();
+        schedules.forEach(slotInventoryService::syncSchedule);
+
+        String[] dutySlots = {"MORNING", "AFTERNOON", "NIGHT"};
+        for (int i = 0; i < 6; i++) {
+            DoctorDutySchedule duty = new DoctorDutySchedule();
+            duty.setDepartment(department);
+            duty.setDoctorProfile(doctors.get(i));
+            duty.setWeekendType(i < 3 ? 6 : 7);
+            duty.setDutyTimeslot(dutySlots[i % 3]);
+            duty.setCreatedTime(LocalDateTime.now());
+            duty.setUpdatedTime(LocalDateTime.now());
+            entityManager.persist(duty);
+        }
+
+        for (int i = 0; i < ROWS; i++) {
+            // 第一位医生当天的患者
+            registration(patients.get(i), doctors.get(0), TimeSlot.values()[i % TimeSlot.values().length]);
+            // 第一位患者的挂号（不同医生）
+            PatientDoctorRegistration reg = registration(patients.get(0), doctors.get(i), TimeSlot.AM1);
+            if (i == ROWS - 1) {
+                patientRegistration = reg;
+            }
+        }
+        entityManager.flush();
+    }
+
+    private DoctorDepartmentSchedule schedule(DoctorProfile doctor, int weekday, TimeSlot slot) {
+        DoctorDepartmentSchedule schedule = DoctorDepartmentSchedule.builder()
+                .doctorProfile(doctor).department(department).weekday(weekday).timeslot(slot)
+                .maxPatientsPerSlot(100).build();
+        entityManager.persist(schedule);
+        return schedule;
+    }
+
+    private PatientDoctorRegistration registration(PatientProfile patient, DoctorProfile doctor, TimeSlot slot) {
+        PatientDoctorRegistration registration = PatientDoctorRegistration.builder()
+                .patientProfile(patient).doctorProfile(doctor).disease(disease)
+                .weekday(weekday).timeslot(slot).visitDate(visitDate)
+                .registrationTime(LocalDateTime.now()).status(RegistrationStatus.PAID).build();
+        entityManager.persist(registration);
+        return registration;
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}